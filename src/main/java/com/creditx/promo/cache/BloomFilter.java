@@ -0,0 +1,87 @@
+package com.creditx.promo.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Bloom filter over strings. {@link #mightContain} never returns false for a value
+ * that was {@link #put}; it returns true for an absent value with roughly the configured
+ * false-positive rate as long as no more than the expected number of values has been added.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+  private final LongAdder insertions = new LongAdder();
+
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Invalid Bloom filter sizing: " + expectedInsertions
+          + " insertions at fpp " + falsePositiveRate);
+    }
+    long optimalBits = (long) Math.ceil(
+        -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = Math.toIntExact((optimalBits + 63) / 64);
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words * 64;
+    this.hashCount = Math.max(1,
+        (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+  }
+
+  public void put(String value) {
+    long hash = hash64(value);
+    long h1 = hash;
+    long h2 = mix64(hash ^ 0x9E3779B97F4A7C15L) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      long mask = 1L << bit;
+      bits.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+    }
+    insertions.increment();
+  }
+
+  public boolean mightContain(String value) {
+    long hash = hash64(value);
+    long h1 = hash;
+    long h2 = mix64(hash ^ 0x9E3779B97F4A7C15L) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return number of {@link #put} calls, counting repeated values each time
+   */
+  public long insertions() {
+    return insertions.sum();
+  }
+
+  long bitCount() {
+    return bitCount;
+  }
+
+  int hashCount() {
+    return hashCount;
+  }
+
+  // FNV-1a over the UTF-16 code units, finalised with the MurmurHash3 mixer
+  private static long hash64(String value) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001B3L;
+    }
+    return mix64(hash);
+  }
+
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+    z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return z ^ (z >>> 33);
+  }
+}
@@ -0,0 +1,186 @@
+package com.creditx.promo.cache;
+
+import com.creditx.promo.repository.ProcessedEventRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory front for the processed-event markers in {@code CPRS_PROCESSED_EVENTS}.
+ *
+ * <p>An LRU of recently committed event IDs answers positive lookups. A Bloom filter loaded with
+ * every marker written inside the warm-up window answers negative lookups: an event whose marker
+ * is absent from the filter has not been processed. That only holds for events that can still be
+ * redelivered, so the window must cover the source topic's retention. Everything else is
+ * {@link Lookup#UNKNOWN} and has to be checked against the database.
+ *
+ * <p>The filter is kept current with markers written by other instances through
+ * {@link #synchronize()}, which is called periodically and whenever partitions are assigned.
+ * After an assignment the previous owner's latest markers may be missing from the filter, so
+ * negatives are {@link Lookup#UNKNOWN} until a sync started after that assignment has succeeded.
+ */
+@Component
+@Slf4j
+public class ProcessedEventCache {
+
+  public enum Lookup {
+    PROCESSED, NOT_PROCESSED, UNKNOWN
+  }
+
+  private final ProcessedEventRepository processedEventRepository;
+  private final boolean enabled;
+  private final long expectedInsertions;
+  private final double falsePositiveRate;
+  private final Duration window;
+  private final Duration syncOverlap;
+  private final Map<String, Boolean> recent;
+  private final ReentrantLock syncLock = new ReentrantLock();
+  private final AtomicLong rebuildThreshold = new AtomicLong();
+  // Partition assignments seen, and how many of them the last successful sync started after
+  private final AtomicLong assignments = new AtomicLong();
+  private volatile long syncedAssignments;
+
+  private volatile BloomFilter filter;
+  // Filter being rebuilt; receives every record() made while the rebuild scans the table
+  private volatile BloomFilter pending;
+  private volatile boolean warm;
+  private volatile Instant syncedUpTo;
+
+  public ProcessedEventCache(ProcessedEventRepository processedEventRepository,
+      @Value("${app.dedup.cache.enabled:true}") boolean enabled,
+      @Value("${app.dedup.cache.expected-insertions:5000000}") long expectedInsertions,
+      @Value("${app.dedup.cache.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${app.dedup.cache.recent-size:100000}") int recentSize,
+      @Value("${app.dedup.cache.window-hours:168}") long windowHours,
+      @Value("${app.dedup.cache.sync-overlap-ms:60000}") long syncOverlapMs) {
+    this.processedEventRepository = processedEventRepository;
+    this.enabled = enabled;
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+    this.window = Duration.ofHours(windowHours);
+    this.syncOverlap = Duration.ofMillis(syncOverlapMs);
+    this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > recentSize;
+      }
+    });
+  }
+
+  public Lookup lookup(String eventId) {
+    if (!enabled) {
+      return Lookup.UNKNOWN;
+    }
+    if (recent.containsKey(eventId)) {
+      return Lookup.PROCESSED;
+    }
+    BloomFilter current = filter;
+    if (warm && syncedAssignments == assignments.get() && !current.mightContain(eventId)) {
+      return Lookup.NOT_PROCESSED;
+    }
+    return Lookup.UNKNOWN;
+  }
+
+  /**
+   * Record an event whose marker is committed. Must not be called before the commit, or a
+   * rolled-back marker would be reported as processed.
+   */
+  public void record(String eventId) {
+    if (!enabled) {
+      return;
+    }
+    recent.put(eventId, Boolean.TRUE);
+    // Read pending before filter: a rebuild publishes the new filter before clearing pending
+    BloomFilter rebuilding = pending;
+    BloomFilter current = filter;
+    if (rebuilding != null) {
+      rebuilding.put(eventId);
+    }
+    if (current != null && current != rebuilding) {
+      current.put(eventId);
+    }
+  }
+
+  /**
+   * Bring the cache up to date with the database. The first call loads the warm-up window; later
+   * calls only read markers written since the previous sync (minus an overlap that absorbs commit
+   * lag and clock skew), and reload the whole window once the filter has taken more insertions
+   * than it was sized for.
+   */
+  public void synchronize() {
+    if (!enabled) {
+      return;
+    }
+    long assigned = assignments.get();
+    syncLock.lock();
+    try {
+      BloomFilter current = filter;
+      if (!warm || current.insertions() > rebuildThreshold.get()) {
+        rebuild();
+      } else {
+        loadSince(syncedUpTo.minus(syncOverlap), current);
+      }
+      syncedAssignments = Math.max(syncedAssignments, assigned);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  /**
+   * Catch up with markers written since the last sync, without blocking on the initial warm-up.
+   * Called on partition assignment, after the previous owner has committed its markers. Until
+   * this or a later sync succeeds, negative lookups are {@link Lookup#UNKNOWN}.
+   */
+  public void catchUp() {
+    if (!enabled) {
+      return;
+    }
+    assignments.incrementAndGet();
+    if (warm) {
+      synchronize();
+    }
+  }
+
+  public boolean isWarm() {
+    return warm;
+  }
+
+  private void rebuild() {
+    long started = System.nanoTime();
+    BloomFilter rebuilt = new BloomFilter(expectedInsertions, falsePositiveRate);
+    pending = rebuilt;
+    try {
+      long loaded = loadSince(Instant.now().minus(window), rebuilt);
+      filter = rebuilt;
+      rebuildThreshold.set(Math.max(expectedInsertions, loaded * 2));
+      warm = true;
+      if (loaded > expectedInsertions) {
+        log.warn("Loaded {} processed events, more than the {} the dedup filter is sized for",
+            loaded, expectedInsertions);
+      }
+      log.info("Loaded {} processed events into the dedup cache in {} ms", loaded,
+          (System.nanoTime() - started) / 1_000_000);
+    } finally {
+      pending = null;
+    }
+  }
+
+  private long loadSince(Instant since, BloomFilter target) {
+    Instant queryStart = Instant.now();
+    long[] loaded = new long[1];
+    processedEventRepository.forEachEventIdProcessedSince(since, eventId -> {
+      target.put(eventId);
+      recent.put(eventId, Boolean.TRUE);
+      loaded[0]++;
+    });
+    syncedUpTo = queryStart;
+    return loaded[0];
+  }
+}
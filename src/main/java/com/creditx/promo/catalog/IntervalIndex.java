@@ -0,0 +1,90 @@
+package com.creditx.promo.catalog;
+
+import com.creditx.promo.model.Promotion;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Promotions sorted by {@code startDate} (then {@code promoId}) with an implicit segment tree
+ * holding the latest {@code expiryDate} of every range, so interval lookups cost O(log n) plus
+ * the matches.
+ */
+final class IntervalIndex {
+
+  static final Comparator<Promotion> BY_START = Comparator
+      .comparing(Promotion::getStartDate).thenComparing(Promotion::getPromoId);
+
+  private final Promotion[] byStart;
+  private final Instant[] maxExpiry;
+
+  IntervalIndex(Collection<Promotion> promotions) {
+    this.byStart = promotions.toArray(Promotion[]::new);
+    Arrays.sort(byStart, BY_START);
+    this.maxExpiry = new Instant[Math.max(1, 4 * byStart.length)];
+    if (byStart.length > 0) {
+      build(1, 0, byStart.length);
+    }
+  }
+
+  int size() {
+    return byStart.length;
+  }
+
+  /**
+   * @return promotions with {@code startDate <= to} and {@code expiryDate >= from}, in index
+   *     order
+   */
+  List<Promotion> findValidBetween(Instant from, Instant to) {
+    int limit = firstStartAfter(to);
+    if (limit == 0) {
+      return List.of();
+    }
+    List<Promotion> result = new ArrayList<>();
+    collect(1, 0, byStart.length, limit, from, result);
+    return result;
+  }
+
+  private Instant build(int node, int lo, int hi) {
+    if (hi - lo == 1) {
+      maxExpiry[node] = byStart[lo].getExpiryDate();
+    } else {
+      int mid = (lo + hi) >>> 1;
+      Instant left = build(2 * node, lo, mid);
+      Instant right = build(2 * node + 1, mid, hi);
+      maxExpiry[node] = left.isAfter(right) ? left : right;
+    }
+    return maxExpiry[node];
+  }
+
+  private void collect(int node, int lo, int hi, int limit, Instant from,
+      List<Promotion> result) {
+    if (lo >= limit || maxExpiry[node].isBefore(from)) {
+      return;
+    }
+    if (hi - lo == 1) {
+      result.add(byStart[lo]);
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    collect(2 * node, lo, mid, limit, from, result);
+    collect(2 * node + 1, mid, hi, limit, from, result);
+  }
+
+  private int firstStartAfter(Instant instant) {
+    int lo = 0;
+    int hi = byStart.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (byStart[mid].getStartDate().isAfter(instant)) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return lo;
+  }
+}
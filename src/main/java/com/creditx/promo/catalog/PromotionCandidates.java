@@ -0,0 +1,50 @@
+package com.creditx.promo.catalog;
+
+import com.creditx.promo.model.Promotion;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Result of {@link PromotionCatalog#findValidBetween}: reads like the list of every promotion
+ * valid in the window, and lets the evaluator narrow it to one merchant's candidates through
+ * {@link #forMerchant} without materialising the full list.
+ */
+public final class PromotionCandidates extends AbstractList<Promotion> implements RandomAccess {
+
+  private final PromotionSnapshot snapshot;
+  private final Instant from;
+  private final Instant to;
+  private List<Promotion> promotions;
+
+  PromotionCandidates(PromotionSnapshot snapshot, Instant from, Instant to) {
+    this.snapshot = snapshot;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * @return the elements of this list that can apply to the merchant, in list order
+   */
+  public List<Promotion> forMerchant(Long merchantAccountId) {
+    return snapshot.findValidBetween(from, to, merchantAccountId);
+  }
+
+  @Override
+  public Promotion get(int index) {
+    return promotions().get(index);
+  }
+
+  @Override
+  public int size() {
+    return promotions().size();
+  }
+
+  private List<Promotion> promotions() {
+    if (promotions == null) {
+      promotions = snapshot.findValidBetween(from, to);
+    }
+    return promotions;
+  }
+}
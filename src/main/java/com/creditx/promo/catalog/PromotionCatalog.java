@@ -0,0 +1,141 @@
+package com.creditx.promo.catalog;
+
+import com.creditx.promo.model.Promotion;
+import com.creditx.promo.model.PromotionStatus;
+import com.creditx.promo.repository.PromotionRepository;
+import com.creditx.promo.rules.CompiledPromotionCache;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of {@code CPRS_PROMOTIONS} that answers "which promotions were valid at this
+ * time" without a query per event.
+ *
+ * <p>Readers see an immutable {@link PromotionSnapshot} that is swapped atomically. Each
+ * {@link #refresh()} loads only rows whose {@code UPDATED_AT} moved past the last one seen (minus
+ * an overlap that absorbs commit lag), and reloads the whole table periodically to pick up
+ * deletes. INACTIVE promotions are left out; EXPIRED ones are kept so that late transactions are
+ * still evaluated retroactively.
+ */
+@Component
+@Slf4j
+public class PromotionCatalog {
+
+  private final PromotionRepository promotionRepository;
+  private final CompiledPromotionCache compiledPromotionCache;
+  private final Duration refreshOverlap;
+  private final long fullReloadIntervalNanos;
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  private volatile PromotionSnapshot snapshot;
+  // Guarded by refreshLock
+  private Instant watermark = Instant.EPOCH;
+  private long lastFullReloadNanos;
+
+  public PromotionCatalog(PromotionRepository promotionRepository,
+      CompiledPromotionCache compiledPromotionCache,
+      @Value("${app.promotions.catalog.refresh-overlap-ms:60000}") long refreshOverlapMs,
+      @Value("${app.promotions.catalog.full-reload-interval-ms:300000}")
+      long fullReloadIntervalMs) {
+    this.promotionRepository = promotionRepository;
+    this.compiledPromotionCache = compiledPromotionCache;
+    this.refreshOverlap = Duration.ofMillis(refreshOverlapMs);
+    this.fullReloadIntervalNanos = Duration.ofMillis(fullReloadIntervalMs).toNanos();
+  }
+
+  /**
+   * @return non-INACTIVE promotions with {@code startDate <= to} and {@code expiryDate >= from},
+   *     ordered by start date and promo ID, as {@link PromotionCandidates}
+   */
+  public List<Promotion> findValidBetween(Instant from, Instant to) {
+    return new PromotionCandidates(current(), from, to);
+  }
+
+  public void refresh() {
+    refreshLock.lock();
+    try {
+      if (snapshot == null || System.nanoTime() - lastFullReloadNanos >= fullReloadIntervalNanos) {
+        reload();
+      } else {
+        applyChangesSince(watermark.minus(refreshOverlap));
+      }
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private PromotionSnapshot current() {
+    PromotionSnapshot current = snapshot;
+    if (current == null) {
+      // Loaded lazily on first use so that events arriving before the first scheduled refresh
+      // are evaluated against the full catalog
+      refresh();
+      current = snapshot;
+    }
+    return current;
+  }
+
+  private void reload() {
+    Map<String, Promotion> promotions = new LinkedHashMap<>();
+    Instant latest = Instant.EPOCH;
+    for (Promotion promotion : promotionRepository.findAll()) {
+      latest = later(latest, promotion.getUpdatedAt());
+      if (promotion.getStatus() != PromotionStatus.INACTIVE) {
+        promotions.put(promotion.getPromoId(), promotion);
+      }
+    }
+    snapshot = snapshotOf(promotions);
+    compiledPromotionCache.retainAll(promotions.keySet());
+    watermark = latest;
+    lastFullReloadNanos = System.nanoTime();
+    log.info("Loaded {} promotions into the catalog", promotions.size());
+  }
+
+  private void applyChangesSince(Instant since) {
+    List<Promotion> changed = promotionRepository.findByUpdatedAtGreaterThan(since);
+    PromotionSnapshot current = snapshot;
+    Map<String, Promotion> promotions = null;
+    Instant latest = watermark;
+    for (Promotion promotion : changed) {
+      latest = later(latest, promotion.getUpdatedAt());
+      Promotion existing = current.promotions().get(promotion.getPromoId());
+      boolean inactive = promotion.getStatus() == PromotionStatus.INACTIVE;
+      if (existing == null ? inactive
+          : !inactive && Objects.equals(existing.getUpdatedAt(), promotion.getUpdatedAt())) {
+        // Re-read through the overlap, or an INACTIVE promotion that was never loaded
+        continue;
+      }
+      if (promotions == null) {
+        promotions = new LinkedHashMap<>(current.promotions());
+      }
+      if (inactive) {
+        promotions.remove(promotion.getPromoId());
+      } else {
+        promotions.put(promotion.getPromoId(), promotion);
+      }
+      compiledPromotionCache.invalidate(promotion.getPromoId());
+    }
+    watermark = latest;
+    if (promotions != null) {
+      snapshot = snapshotOf(promotions);
+      log.info("Promotion catalog updated: {} promotions", promotions.size());
+    }
+  }
+
+  private PromotionSnapshot snapshotOf(Map<String, Promotion> promotions) {
+    return new PromotionSnapshot(promotions,
+        promotion -> compiledPromotionCache.get(promotion).getMerchantIds());
+  }
+
+  private static Instant later(Instant current, Instant candidate) {
+    return candidate != null && candidate.isAfter(current) ? candidate : current;
+  }
+}
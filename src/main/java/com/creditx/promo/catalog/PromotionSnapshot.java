@@ -0,0 +1,92 @@
+package com.creditx.promo.catalog;
+
+import com.creditx.promo.model.Promotion;
+import com.creditx.promo.util.LongHashSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable set of promotions indexed by validity interval, overall and per merchant. A promotion
+ * restricted to a list of merchants is indexed under each of them; every other promotion goes to
+ * the merchant-agnostic index.
+ */
+final class PromotionSnapshot {
+
+  private final Map<String, Promotion> byId;
+  private final IntervalIndex all;
+  private final IntervalIndex merchantAgnostic;
+  private final Map<Long, IntervalIndex> byMerchant;
+
+  /**
+   * @param merchantRestriction merchants a promotion is limited to, or {@code null} for none
+   */
+  PromotionSnapshot(Map<String, Promotion> promotions,
+      Function<Promotion, LongHashSet> merchantRestriction) {
+    this.byId = Collections.unmodifiableMap(new LinkedHashMap<>(promotions));
+    this.all = new IntervalIndex(promotions.values());
+
+    List<Promotion> agnostic = new ArrayList<>();
+    Map<Long, List<Promotion>> restricted = new HashMap<>();
+    for (Promotion promotion : promotions.values()) {
+      LongHashSet merchantIds = merchantRestriction.apply(promotion);
+      if (merchantIds == null) {
+        agnostic.add(promotion);
+        continue;
+      }
+      for (long merchantId : merchantIds.toArray()) {
+        restricted.computeIfAbsent(merchantId, k -> new ArrayList<>()).add(promotion);
+      }
+    }
+    this.merchantAgnostic = new IntervalIndex(agnostic);
+    this.byMerchant = new HashMap<>();
+    restricted.forEach((merchantId, list) -> byMerchant.put(merchantId, new IntervalIndex(list)));
+  }
+
+  Map<String, Promotion> promotions() {
+    return byId;
+  }
+
+  int size() {
+    return all.size();
+  }
+
+  /**
+   * @return promotions with {@code startDate <= to} and {@code expiryDate >= from}, ordered by
+   *     start date and promo ID
+   */
+  List<Promotion> findValidBetween(Instant from, Instant to) {
+    return all.findValidBetween(from, to);
+  }
+
+  /**
+   * Same as {@link #findValidBetween} restricted to promotions that can apply to the merchant:
+   * those listing it and those without a merchant restriction, in the same order.
+   */
+  List<Promotion> findValidBetween(Instant from, Instant to, Long merchantAccountId) {
+    List<Promotion> agnostic = merchantAgnostic.findValidBetween(from, to);
+    IntervalIndex merchant = merchantAccountId == null ? null : byMerchant.get(merchantAccountId);
+    if (merchant == null) {
+      return agnostic;
+    }
+    List<Promotion> specific = merchant.findValidBetween(from, to);
+    if (agnostic.isEmpty()) {
+      return specific;
+    }
+    List<Promotion> merged = new ArrayList<>(agnostic.size() + specific.size());
+    int i = 0;
+    int j = 0;
+    while (i < agnostic.size() && j < specific.size()) {
+      merged.add(IntervalIndex.BY_START.compare(agnostic.get(i), specific.get(j)) <= 0
+          ? agnostic.get(i++) : specific.get(j++));
+    }
+    merged.addAll(agnostic.subList(i, agnostic.size()));
+    merged.addAll(specific.subList(j, specific.size()));
+    return merged;
+  }
+}
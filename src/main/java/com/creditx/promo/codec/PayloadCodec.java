@@ -0,0 +1,96 @@
+package com.creditx.promo.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Storage codec for text payloads. Payloads that fit a {@code VARCHAR2(4000 BYTE)} are stored
+ * inline and read without LOB locators; larger ones go to a {@code BLOB}, LZ4-compressed unless
+ * that does not make them smaller. The byte limits assume an AL32UTF8 database character set.
+ */
+public final class PayloadCodec {
+
+  /**
+   * Largest payload, in UTF-8 bytes, that is stored inline.
+   */
+  public static final int INLINE_MAX_BYTES = 4000;
+
+  private static final int LENGTH_PREFIX_BYTES = Integer.BYTES;
+  private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+  private static final LZ4FastDecompressor DECOMPRESSOR =
+      LZ4Factory.fastestInstance().fastDecompressor();
+
+  /**
+   * A payload as stored: exactly one of {@code inline} and {@code blob} is set, except for an
+   * empty payload, which Oracle stores as a NULL inline value.
+   */
+  public record EncodedPayload(PayloadEncoding encoding, String inline, byte[] blob) {
+  }
+
+  private PayloadCodec() {
+  }
+
+  public static EncodedPayload encode(String payload) {
+    if (payload == null) {
+      return new EncodedPayload(PayloadEncoding.INLINE, null, null);
+    }
+    // A char takes at most 3 UTF-8 bytes, so short payloads need not be encoded to be measured
+    if (payload.length() * 3 <= INLINE_MAX_BYTES) {
+      return new EncodedPayload(PayloadEncoding.INLINE, payload, null);
+    }
+    byte[] utf8 = payload.getBytes(StandardCharsets.UTF_8);
+    if (utf8.length <= INLINE_MAX_BYTES) {
+      return new EncodedPayload(PayloadEncoding.INLINE, payload, null);
+    }
+    byte[] compressed = new byte[LENGTH_PREFIX_BYTES + COMPRESSOR.maxCompressedLength(
+        utf8.length)];
+    ByteBuffer.wrap(compressed).putInt(utf8.length);
+    int compressedLength = COMPRESSOR.compress(utf8, 0, utf8.length, compressed,
+        LENGTH_PREFIX_BYTES);
+    if (LENGTH_PREFIX_BYTES + compressedLength >= utf8.length) {
+      return new EncodedPayload(PayloadEncoding.RAW, null, utf8);
+    }
+    byte[] blob = new byte[LENGTH_PREFIX_BYTES + compressedLength];
+    System.arraycopy(compressed, 0, blob, 0, blob.length);
+    return new EncodedPayload(PayloadEncoding.LZ4, null, blob);
+  }
+
+  public static String decode(PayloadEncoding encoding, String inline, byte[] blob) {
+    if (encoding == null) {
+      throw new IllegalArgumentException("Payload encoding is missing");
+    }
+    return switch (encoding) {
+      case INLINE -> inline == null ? "" : inline;
+      case RAW -> new String(blob, StandardCharsets.UTF_8);
+      case LZ4 -> {
+        int length = ByteBuffer.wrap(blob).getInt();
+        byte[] utf8 = new byte[length];
+        DECOMPRESSOR.decompress(blob, LENGTH_PREFIX_BYTES, utf8, 0, length);
+        yield new String(utf8, StandardCharsets.UTF_8);
+      }
+    };
+  }
+
+  /**
+   * Cut {@code text} to at most {@code maxBytes} UTF-8 bytes without splitting a character, for
+   * free-text values kept in a bounded {@code VARCHAR2} column.
+   */
+  public static String truncateUtf8(String text, int maxBytes) {
+    if (text == null || text.length() * 3 <= maxBytes) {
+      return text;
+    }
+    CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    CharBuffer in = CharBuffer.wrap(text);
+    encoder.encode(in, ByteBuffer.allocate(maxBytes), true);
+    // The encoder stops before the first character that no longer fits
+    return text.substring(0, in.position());
+  }
+}
@@ -0,0 +1,23 @@
+package com.creditx.promo.codec;
+
+/**
+ * How a payload is stored; recorded next to it in {@code PAYLOAD_ENCODING}.
+ */
+public enum PayloadEncoding {
+
+  /**
+   * UTF-8 text in the inline {@code VARCHAR2} column.
+   */
+  INLINE,
+
+  /**
+   * LZ4 block of the UTF-8 bytes in the {@code BLOB} column, prefixed with the uncompressed length
+   * as a 4-byte big-endian integer.
+   */
+  LZ4,
+
+  /**
+   * Uncompressed UTF-8 bytes in the {@code BLOB} column, for large payloads that do not compress.
+   */
+  RAW
+}
@@ -0,0 +1,146 @@
+package com.creditx.promo.config;
+
+import com.creditx.promo.resilience.AdaptiveConcurrencyLimiter;
+import com.creditx.promo.resilience.CallNotPermittedException;
+import com.creditx.promo.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Guards the calls to one downstream service and exports how they are guarded. A call needs the
+ * circuit breaker's permission and a slot of the adaptive concurrency limit; {@link HttpClient}
+ * keeps its connection pool private, so this limit also bounds the connections in use and is the
+ * source of the {@code http.client.limiter.*} gauges: {@code active} requests hold a slot, {@code pending} ones
+ * wait for one, and a request that waits longer than the acquire timeout fails without being
+ * sent. Responses with status 429 or 5xx, and I/O errors, count as failures for both.
+ */
+public class BoundedConcurrencyInterceptor implements ClientHttpRequestInterceptor {
+
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final CircuitBreaker circuitBreaker;
+  private final long acquireTimeoutNanos;
+
+  public BoundedConcurrencyInterceptor(String clientName, AdaptiveConcurrencyLimiter limiter,
+      CircuitBreaker circuitBreaker, Duration acquireTimeout, MeterRegistry meterRegistry) {
+    this.limiter = limiter;
+    this.circuitBreaker = circuitBreaker;
+    this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    Gauge.builder("http.client.limiter.active", limiter, AdaptiveConcurrencyLimiter::inflight)
+        .tag("client.name", clientName).description("Requests in flight")
+        .register(meterRegistry);
+    Gauge.builder("http.client.limiter.pending", limiter, AdaptiveConcurrencyLimiter::waiting)
+        .tag("client.name", clientName).description("Requests waiting for a free slot")
+        .register(meterRegistry);
+    Gauge.builder("http.client.limiter.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+        .tag("client.name", clientName).description("Current adaptive concurrency limit")
+        .register(meterRegistry);
+    Gauge.builder("http.client.limiter.max", limiter, AdaptiveConcurrencyLimiter::maxLimit)
+        .tag("client.name", clientName).description("Maximum concurrent requests")
+        .register(meterRegistry);
+    Gauge.builder("http.client.circuit.state", circuitBreaker, cb -> cb.state().ordinal())
+        .tag("client.name", clientName)
+        .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+      ClientHttpRequestExecution execution) throws IOException {
+    String host = request.getURI().getHost();
+    try {
+      if (!limiter.tryAcquire(Duration.ofNanos(acquireTimeoutNanos))) {
+        throw new CallNotPermittedException("No free connection to " + host + " within "
+            + Duration.ofNanos(acquireTimeoutNanos).toMillis() + " ms");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResourceAccessException("Interrupted waiting for a connection");
+    }
+    if (!circuitBreaker.tryAcquirePermission()) {
+      limiter.release();
+      throw new CallNotPermittedException("Circuit to " + host + " is "
+          + circuitBreaker.state());
+    }
+    long started = System.nanoTime();
+    ClientHttpResponse response;
+    try {
+      response = execution.execute(request, body);
+    } catch (IOException | RuntimeException e) {
+      limiter.onSample(System.nanoTime() - started, true);
+      circuitBreaker.onFailure();
+      limiter.release();
+      throw e;
+    }
+    boolean failed = isFailure(response);
+    limiter.onSample(System.nanoTime() - started, failed);
+    if (failed) {
+      circuitBreaker.onFailure();
+    } else {
+      circuitBreaker.onSuccess();
+    }
+    // The connection stays busy until the body is consumed, so the slot goes with the response
+    return new PermitReleasingResponse(response);
+  }
+
+  private static boolean isFailure(ClientHttpResponse response) {
+    try {
+      HttpStatusCode status = response.getStatusCode();
+      return status.is5xxServerError() || status.value() == 429;
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  private final class PermitReleasingResponse implements ClientHttpResponse {
+
+    private final ClientHttpResponse delegate;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private PermitReleasingResponse(ClientHttpResponse delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return delegate.getStatusText();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      return delegate.getBody();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return delegate.getHeaders();
+    }
+
+    @Override
+    public void close() {
+      try {
+        delegate.close();
+      } finally {
+        if (released.compareAndSet(false, true)) {
+          limiter.release();
+        }
+      }
+    }
+  }
+}
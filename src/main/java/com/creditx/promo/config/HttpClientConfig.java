@@ -1,15 +1,118 @@
 package com.creditx.promo.config;
 
+import com.creditx.promo.resilience.AdaptiveConcurrencyLimiter;
+import com.creditx.promo.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class HttpClientConfig {
 
+  @Value("${app.creditmain.url:http://localhost:8080}")
+  private String creditMainUrl;
+
+  @Value("${app.creditmain.http-version:HTTP_2}")
+  private HttpClient.Version httpVersion;
+
+  @Value("${app.creditmain.connect-timeout-ms:2000}")
+  private long connectTimeoutMs;
+
+  @Value("${app.creditmain.read-timeout-ms:5000}")
+  private long readTimeoutMs;
+
+  @Value("${app.creditmain.max-connections:50}")
+  private int maxConnections;
+
+  @Value("${app.creditmain.acquire-timeout-ms:1000}")
+  private long acquireTimeoutMs;
+
+  @Value("${app.creditmain.limiter.initial-limit:20}")
+  private int initialLimit;
+
+  @Value("${app.creditmain.limiter.min-limit:1}")
+  private int minLimit;
+
+  @Value("${app.creditmain.limiter.backoff-ratio:0.9}")
+  private double backoffRatio;
+
+  @Value("${app.creditmain.limiter.latency-threshold-ms:1000}")
+  private long latencyThresholdMs;
+
+  @Value("${app.creditmain.circuit-breaker.window-size:50}")
+  private int breakerWindowSize;
+
+  @Value("${app.creditmain.circuit-breaker.minimum-calls:20}")
+  private int breakerMinimumCalls;
+
+  @Value("${app.creditmain.circuit-breaker.failure-rate-threshold:0.5}")
+  private double breakerFailureRateThreshold;
+
+  @Value("${app.creditmain.circuit-breaker.open-ms:30000}")
+  private long breakerOpenMs;
+
+  @Value("${app.creditmain.circuit-breaker.half-open-calls:5}")
+  private int breakerHalfOpenCalls;
+
+  /**
+   * Executor of the credit-main client's response handling. Closing the {@link HttpClient} does
+   * not shut down an executor it was given, so the context closes it on shutdown.
+   */
+  @Bean(destroyMethod = "close")
+  public ExecutorService creditMainHttpExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  /**
+   * Client for credit-main. HTTP/2 multiplexes requests over few connections and falls back to
+   * HTTP/1.1 when the server does not negotiate it. Idle-connection keep-alive and pool size are
+   * JVM-wide and read once, so they are launch options ({@code -Djdk.httpclient.*}, see
+   * application.properties) rather than settings of this bean.
+   */
+  @Bean
+  public HttpClient creditMainHttpClient(ExecutorService creditMainHttpExecutor) {
+    return HttpClient.newBuilder().version(httpVersion)
+        .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+        .executor(creditMainHttpExecutor).build();
+  }
+
+  /**
+   * Concurrency limit for credit-main, bounded above by {@code app.creditmain.max-connections}.
+   */
+  @Bean
+  public AdaptiveConcurrencyLimiter creditMainConcurrencyLimiter() {
+    return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxConnections, backoffRatio,
+        Duration.ofMillis(latencyThresholdMs));
+  }
+
+  @Bean
+  public CircuitBreaker creditMainCircuitBreaker() {
+    return new CircuitBreaker("credit-main", breakerWindowSize, breakerMinimumCalls,
+        breakerFailureRateThreshold, Duration.ofMillis(breakerOpenMs), breakerHalfOpenCalls);
+  }
+
+  /**
+   * RestTemplate rooted at {@code app.creditmain.url}. Requests use relative paths, so the
+   * {@code http.client.requests} timer is tagged per endpoint.
+   */
   @Bean
-  public RestTemplate restTemplate(RestTemplateBuilder builder) {
-    return builder.build();
+  public RestTemplate creditMainRestTemplate(RestTemplateBuilder builder,
+      HttpClient creditMainHttpClient, AdaptiveConcurrencyLimiter creditMainConcurrencyLimiter,
+      CircuitBreaker creditMainCircuitBreaker, MeterRegistry meterRegistry) {
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+        creditMainHttpClient);
+    requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+    return builder.rootUri(creditMainUrl).requestFactory(() -> requestFactory)
+        .additionalInterceptors(new BoundedConcurrencyInterceptor("credit-main",
+            creditMainConcurrencyLimiter, creditMainCircuitBreaker,
+            Duration.ofMillis(acquireTimeoutMs), meterRegistry)).build();
   }
 }
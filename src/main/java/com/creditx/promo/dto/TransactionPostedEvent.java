@@ -1,6 +1,7 @@
 package com.creditx.promo.dto;
 
 import com.creditx.promo.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 import java.time.Instant;
 import lombok.AllArgsConstructor;
@@ -22,4 +23,8 @@ public class TransactionPostedEvent {
   private String currency;
   private String status;
   private Instant createdAt;
+
+  // Hash of the raw record bytes, set on consumption; not part of the event contract
+  @JsonIgnore
+  private byte[] payloadHash;
 }
@@ -0,0 +1,72 @@
+package com.creditx.promo.hashing;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digest used for payload-level deduplication. Hashes are stored as raw bytes in
+ * {@code CPRS_PROCESSED_EVENTS.PAYLOAD_HASH}; hashes of different algorithms never compare equal
+ * because their lengths differ.
+ */
+public enum PayloadHashAlgorithm {
+
+  /**
+   * 32-byte SHA-256. Use when payload hashes must resist deliberate collisions.
+   */
+  SHA_256 {
+    @Override
+    public byte[] hash(byte[] payload) {
+      MessageDigest digest = Sha256.digest();
+      try {
+        return digest.digest(payload);
+      } finally {
+        digest.reset();
+      }
+    }
+  },
+
+  /**
+   * 16-byte MurmurHash3 x64 128-bit. Several times faster than SHA-256 with a collision rate that
+   * is negligible for accidental duplicates.
+   */
+  MURMUR3_128 {
+    @Override
+    public byte[] hash(byte[] payload) {
+      return Murmur3.hash128(payload, 0);
+    }
+  };
+
+  public abstract byte[] hash(byte[] payload);
+
+  /**
+   * Thread-confined SHA-256 digests. Platform threads (consumer, scheduler) keep one digest each;
+   * short-lived virtual threads clone a prototype instead, which skips the provider lookup of
+   * {@link MessageDigest#getInstance}.
+   */
+  private static final class Sha256 {
+
+    private static final MessageDigest PROTOTYPE = newDigest();
+    private static final ThreadLocal<MessageDigest> PER_THREAD =
+        ThreadLocal.withInitial(Sha256::newDigest);
+
+    static MessageDigest digest() {
+      if (!Thread.currentThread().isVirtual()) {
+        return PER_THREAD.get();
+      }
+      try {
+        return (MessageDigest) PROTOTYPE.clone();
+      } catch (CloneNotSupportedException e) {
+        return newDigest();
+      }
+    }
+
+    private static MessageDigest newDigest() {
+      try {
+        return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        // Every Java platform is required to provide SHA-256
+        throw new IllegalStateException("SHA-256 not available", e);
+      }
+    }
+  }
+}
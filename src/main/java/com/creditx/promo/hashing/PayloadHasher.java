@@ -0,0 +1,25 @@
+package com.creditx.promo.hashing;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes incoming record payloads with the configured {@link PayloadHashAlgorithm}, straight from
+ * the bytes received from Kafka.
+ */
+@Component
+public class PayloadHasher {
+
+  @Getter
+  private final PayloadHashAlgorithm algorithm;
+
+  public PayloadHasher(
+      @Value("${app.dedup.payload-hash.algorithm:MURMUR3_128}") PayloadHashAlgorithm algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  public byte[] hash(byte[] payload) {
+    return algorithm.hash(payload);
+  }
+}
@@ -0,0 +1,74 @@
+package com.creditx.promo.id;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7): 48 bits of Unix milliseconds, then a 12-bit sequence
+ * that keeps the IDs of one instance strictly increasing within a millisecond, then 62 random
+ * bits. Stored as {@code RAW(16)}, consecutive IDs land at the right edge of the primary key
+ * index instead of on random leaf blocks.
+ *
+ * <p>Lock-free: the millisecond and sequence share one {@link AtomicLong} advanced by CAS. When
+ * the sequence runs out or the clock steps back, IDs continue from the last timestamp issued.
+ */
+@Component
+public class UuidV7Generator {
+
+  private static final int SEQUENCE_BITS = 12;
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000000000000000L;
+  private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+  private final LongSupplier millisClock;
+  // (millis << SEQUENCE_BITS) | sequence of the last ID issued
+  private final AtomicLong last = new AtomicLong();
+
+  @Autowired
+  public UuidV7Generator() {
+    this(System::currentTimeMillis);
+  }
+
+  UuidV7Generator(LongSupplier millisClock) {
+    this.millisClock = millisClock;
+  }
+
+  public UUID next() {
+    long floor = millisClock.getAsLong() << SEQUENCE_BITS;
+    long prev;
+    long state;
+    do {
+      prev = last.get();
+      state = Math.max(floor, prev + 1);
+    } while (!last.compareAndSet(prev, state));
+
+    long msb = (state >>> SEQUENCE_BITS) << 16 | VERSION | (state & 0xFFF);
+    long lsb = ThreadLocalRandom.current().nextLong() & RANDOM_MASK | VARIANT;
+    return new UUID(msb, lsb);
+  }
+
+  /**
+   * @return milliseconds since the epoch encoded in a version 7 UUID
+   */
+  public static long timestampOf(UUID uuid) {
+    return uuid.getMostSignificantBits() >>> 16;
+  }
+
+  /**
+   * @return the 16 bytes of {@code uuid} in the order stored in a {@code RAW(16)} column
+   */
+  public static byte[] toBytes(UUID uuid) {
+    return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits()).array();
+  }
+
+  public static UUID fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+}
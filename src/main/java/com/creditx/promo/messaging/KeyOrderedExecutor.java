@@ -0,0 +1,76 @@
+package com.creditx.promo.messaging;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs tasks on virtual threads while keeping tasks that share a key strictly sequential.
+ * Tasks with different keys run concurrently. The number of submitted-but-unfinished tasks is
+ * bounded; {@link #submit} blocks the caller (the consumer thread) once the bound is reached.
+ */
+@Component
+@Slf4j
+public class KeyOrderedExecutor implements DisposableBean {
+
+  private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("promo-worker-", 0).factory());
+  private final ConcurrentHashMap<String, CompletableFuture<Void>> tails =
+      new ConcurrentHashMap<>();
+  private final Semaphore permits;
+
+  public KeyOrderedExecutor(@Value("${app.consumer.parallel.max-in-flight:256}") int maxInFlight) {
+    this.permits = new Semaphore(maxInFlight);
+  }
+
+  /**
+   * Schedule {@code task} after every previously submitted task with the same key has finished
+   * (successfully or not).
+   *
+   * @param key   ordering key
+   * @param task  work to run
+   * @return future completed when the task has run
+   */
+  public CompletableFuture<Void> submit(String key, Runnable task) {
+    permits.acquireUninterruptibly();
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    tails.compute(key, (k, tail) -> {
+      CompletableFuture<?> previous = tail != null ? tail : CompletableFuture.completedFuture(null);
+      previous.whenComplete((v, ex) -> executor.execute(() -> run(task, result)));
+      return result;
+    });
+    result.whenComplete((v, ex) -> {
+      permits.release();
+      tails.remove(key, result);
+    });
+    return result;
+  }
+
+  int activeKeys() {
+    return tails.size();
+  }
+
+  private static void run(Runnable task, CompletableFuture<Void> result) {
+    try {
+      task.run();
+      result.complete(null);
+    } catch (Throwable t) {
+      result.completeExceptionally(t);
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.warn("Key-ordered executor did not finish in-flight tasks before shutdown");
+    }
+  }
+}
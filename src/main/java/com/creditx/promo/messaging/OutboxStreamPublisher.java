@@ -1,11 +1,19 @@
 package com.creditx.promo.messaging;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,33 +21,90 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class OutboxStreamPublisher {
 
+  /**
+   * Channel the Kafka binder reports successful sends to, configured as the binding's
+   * {@code record-metadata-channel}.
+   */
+  public static final String PUBLISH_RESULTS_CHANNEL = "outboxPublishResults";
+
+  static final String OUTBOX_EVENT_ID_HEADER = "outboxEventId";
+
   private final StreamBridge streamBridge;
+  // Sends waiting for the broker's acknowledgement, by outbox event ID
+  private final Map<Long, CompletableFuture<Void>> pendingAcks = new ConcurrentHashMap<>();
 
   @Value("${app.outbox.binding}")
   private String bindingName;
 
-  public void publish(String key, String payload, String eventType) {
-    // Validate inputs
-    if (key == null || payload == null || payload.trim().isEmpty()) {
-      log.debug("Skipping publish - invalid key or payload. Key: {}, Payload: {}", key, payload);
-      return;
+  // Without a record-metadata channel on the binding, a send counts once the binder accepted it
+  @Value("${app.outbox.await-acks:false}")
+  private boolean awaitAcks;
+
+  /**
+   * Hand an outbox event to the producer without waiting for the broker. Records with the same
+   * key are sent in call order to the same partition, so events of one aggregate stay ordered.
+   *
+   * @return completed once the broker acknowledged the record; failed at once if the binder
+   *     rejected it, and as soon as the producer reports that the send failed
+   */
+  public CompletableFuture<Void> publishAsync(Long eventId, String key, String payload,
+      String eventType) {
+    if (key == null || payload == null || payload.trim().isEmpty() || eventType == null
+        || eventType.trim().isEmpty()) {
+      log.debug("Skipping publish of event {} - invalid key, payload or eventType", eventId);
+      return CompletableFuture.completedFuture(null);
     }
-    if (eventType == null || eventType.trim().isEmpty()) {
-      log.debug("Skipping publish - invalid eventType: {}", eventType);
-      return;
+    Message<String> message = MessageBuilder.withPayload(payload).setHeader("key", key)
+        .setHeader("eventType", eventType).setHeader(OUTBOX_EVENT_ID_HEADER, eventId).build();
+    CompletableFuture<Void> ack = new CompletableFuture<>();
+    if (awaitAcks) {
+      pendingAcks.put(eventId, ack);
+      // Whoever gives up on the ack (timeout) must not leave it behind
+      ack.whenComplete((v, ex) -> pendingAcks.remove(eventId, ack));
     }
+    try {
+      if (!streamBridge.send(bindingName, message)) {
+        ack.completeExceptionally(new IllegalStateException(
+            "Binding " + bindingName + " rejected event " + eventId));
+      } else if (!awaitAcks) {
+        ack.complete(null);
+      }
+    } catch (RuntimeException e) {
+      ack.completeExceptionally(e);
+    }
+    return ack;
+  }
 
-    log.debug("Publishing message to binding '{}' with key: {}", bindingName, key);
-
-    Message<String> message = MessageBuilder.withPayload(payload).setHeader("key", key)
-        .setHeader("eventType", eventType).build();
+  @ServiceActivator(inputChannel = PUBLISH_RESULTS_CHANNEL)
+  public void onPublished(Message<?> sent) {
+    Object eventId = sent.getHeaders().get(OUTBOX_EVENT_ID_HEADER);
+    CompletableFuture<Void> ack = eventId instanceof Long id ? pendingAcks.remove(id) : null;
+    if (ack != null) {
+      ack.complete(null);
+    } else {
+      log.debug("Acknowledgement for unknown or expired outbox event {} at {}", eventId,
+          sent.getHeaders().get(KafkaHeaders.RECORD_METADATA));
+    }
+  }
 
-    try {
-      streamBridge.send(bindingName, message);
-      log.debug("Successfully published message with key: {}", key);
-    } catch (Exception e) {
-      log.error("Failed to publish message with key {}: {}", key, e.getMessage(), e);
-      throw e;
+  /**
+   * Fails the pending acknowledgement of an outbox record the producer could not send. The
+   * binding's error channel ({@code error-channel-enabled}) is bridged to the global error channel,
+   * which also carries errors unrelated to the outbox; those are left to its other subscribers.
+   */
+  @ServiceActivator(inputChannel = IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)
+  public void onPublishFailed(ErrorMessage error) {
+    if (!(error.getPayload() instanceof MessagingException e) || e.getFailedMessage() == null) {
+      return;
+    }
+    Object eventId = e.getFailedMessage().getHeaders().get(OUTBOX_EVENT_ID_HEADER);
+    CompletableFuture<Void> ack = eventId instanceof Long id ? pendingAcks.remove(id) : null;
+    if (ack != null) {
+      ack.completeExceptionally(e);
     }
   }
+
+  int pendingAcks() {
+    return pendingAcks.size();
+  }
 }
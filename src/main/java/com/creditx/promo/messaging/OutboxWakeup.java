@@ -0,0 +1,43 @@
+package com.creditx.promo.messaging;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wakes the outbox lane workers when new events are committed. Signals are per lane and
+ * coalesced: any number of them between two waits wakes the lane's worker once, and a signal
+ * given while the worker is busy is not lost.
+ */
+@Component
+public class OutboxWakeup {
+
+  private final Map<Integer, Semaphore> signals = new ConcurrentHashMap<>();
+
+  public void signal(int lane) {
+    Semaphore semaphore = signals(lane);
+    if (semaphore.availablePermits() == 0) {
+      semaphore.release();
+    }
+  }
+
+  /**
+   * Wait for a signal on {@code lane} given since the previous wait, for at most
+   * {@code timeout}.
+   *
+   * @return whether a signal arrived
+   */
+  public boolean await(int lane, Duration timeout) throws InterruptedException {
+    Semaphore semaphore = signals(lane);
+    boolean signalled = semaphore.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    semaphore.drainPermits();
+    return signalled;
+  }
+
+  private Semaphore signals(int lane) {
+    return signals.computeIfAbsent(lane, l -> new Semaphore(0));
+  }
+}
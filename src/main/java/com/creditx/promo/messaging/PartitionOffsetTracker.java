@@ -0,0 +1,121 @@
+package com.creditx.promo.messaging;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks in-flight records per partition so that offsets are only acknowledged up to the lowest
+ * record that has not completed yet. Records may complete in any order; when the contiguous
+ * completed prefix of a partition grows, the acknowledgment of its highest record is invoked,
+ * which commits every offset below it.
+ */
+@Component
+@Slf4j
+public class PartitionOffsetTracker {
+
+  private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+  public void register(TopicPartition partition, long offset, Acknowledgment acknowledgment) {
+    partitions.computeIfAbsent(partition, p -> new PartitionState())
+        .register(offset, acknowledgment);
+  }
+
+  public void complete(TopicPartition partition, long offset) {
+    PartitionState state = partitions.get(partition);
+    if (state == null) {
+      log.debug("Ignoring completion of {}@{}: partition no longer tracked", partition, offset);
+      return;
+    }
+    state.complete(offset);
+  }
+
+  /**
+   * Wait until every registered record of the given partitions has completed, so their
+   * acknowledgments are queued before the container commits on revocation.
+   *
+   * @return true if all partitions drained before the timeout
+   */
+  public boolean awaitDrained(Collection<TopicPartition> revoked, Duration timeout)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    boolean drained = true;
+    for (TopicPartition partition : revoked) {
+      PartitionState state = partitions.get(partition);
+      if (state != null && !state.awaitEmpty(deadline)) {
+        log.warn("Partition {} still has {} in-flight records after {}", partition,
+            state.inFlight(), timeout);
+        drained = false;
+      }
+    }
+    return drained;
+  }
+
+  public void revoke(Collection<TopicPartition> revoked) {
+    revoked.forEach(partitions::remove);
+  }
+
+  public int inFlight(TopicPartition partition) {
+    PartitionState state = partitions.get(partition);
+    return state == null ? 0 : state.inFlight();
+  }
+
+  private static final class PartitionState {
+
+    private final TreeMap<Long, Entry> inFlight = new TreeMap<>();
+
+    synchronized void register(long offset, Acknowledgment acknowledgment) {
+      inFlight.put(offset, new Entry(acknowledgment));
+    }
+
+    synchronized void complete(long offset) {
+      Entry entry = inFlight.get(offset);
+      if (entry == null) {
+        return;
+      }
+      entry.done = true;
+      Acknowledgment highest = null;
+      while (!inFlight.isEmpty() && inFlight.firstEntry().getValue().done) {
+        highest = inFlight.pollFirstEntry().getValue().acknowledgment;
+      }
+      // Acknowledge under the lock so commits for a partition are queued in offset order
+      if (highest != null) {
+        highest.acknowledge();
+      }
+      if (inFlight.isEmpty()) {
+        notifyAll();
+      }
+    }
+
+    synchronized boolean awaitEmpty(long deadlineNanos) throws InterruptedException {
+      while (!inFlight.isEmpty()) {
+        long remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000;
+        if (remainingMillis <= 0) {
+          return false;
+        }
+        wait(remainingMillis);
+      }
+      return true;
+    }
+
+    synchronized int inFlight() {
+      return inFlight.size();
+    }
+  }
+
+  private static final class Entry {
+
+    private final Acknowledgment acknowledgment;
+    private boolean done;
+
+    private Entry(Acknowledgment acknowledgment) {
+      this.acknowledgment = acknowledgment;
+    }
+  }
+}
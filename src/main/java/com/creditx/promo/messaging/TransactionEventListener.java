@@ -2,14 +2,27 @@ package com.creditx.promo.messaging;
 
 import com.creditx.promo.constants.EventTypes;
 import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.hashing.PayloadHasher;
+import com.creditx.promo.service.ProcessedEventService;
 import com.creditx.promo.service.TransactionEventService;
 import com.creditx.promo.tracing.TransactionSpanTagger;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
 
 @Configuration
@@ -18,13 +31,19 @@ import org.springframework.messaging.Message;
 public class TransactionEventListener {
 
   private final TransactionEventService transactionEventService;
+  private final ProcessedEventService processedEventService;
   private final TransactionSpanTagger transactionSpanTagger;
-  private final ObjectMapper objectMapper;
+  private final TransactionPostedEventDecoder transactionPostedEventDecoder;
+  private final PayloadHasher payloadHasher;
+  private final KeyOrderedExecutor keyOrderedExecutor;
+  private final PartitionOffsetTracker partitionOffsetTracker;
+
+  @Value("${app.dedup.write-behind.await-timeout-ms:5000}")
+  private long markerAwaitTimeoutMs = 5_000;
 
   @Bean
-  public Consumer<Message<String>> transactionPosted() {
+  public Consumer<Message<byte[]>> transactionPosted() {
     return message -> {
-      String payload = message.getPayload();
       String eventType = message.getHeaders().getOrDefault(EventTypes.EVENT_TYPE_HEADER, "")
           .toString();
       if (!EventTypes.TRANSACTION_POSTED.equals(eventType)) {
@@ -32,13 +51,167 @@ public class TransactionEventListener {
         return;
       }
       try {
-        TransactionPostedEvent event = objectMapper.readValue(payload,
-            TransactionPostedEvent.class);
+        TransactionPostedEvent event = decode(message);
+        if (event == null) {
+          log.debug("Dropping transaction.posted event of an ignored transaction type");
+          return;
+        }
         transactionSpanTagger.tagTransactionId(event.getTransactionId());
         transactionEventService.processTransactionPosted(event);
       } catch (Exception e) {
         log.error("Failed to process transaction.posted message", e);
       }
+      // The container commits the offset once we return; a marker that could not be written
+      // must fail the record instead. The flush also writes whatever the other consumer threads
+      // buffered meanwhile, so the record never waits for the scheduled flush
+      awaitMarkerWrites();
     };
   }
+
+  /**
+   * Batch variant of {@link #transactionPosted()}, active when
+   * {@code spring.cloud.function.definition=transactionPostedBatch}. Batch size and wait are
+   * driven by the consumer's {@code max.poll.records} / {@code fetch.max.wait.ms}.
+   */
+  @Bean
+  public Consumer<List<Message<byte[]>>> transactionPostedBatch() {
+    return messages -> {
+      List<TransactionPostedEvent> events = new ArrayList<>(messages.size());
+      for (Message<byte[]> message : messages) {
+        String eventType = message.getHeaders().getOrDefault(EventTypes.EVENT_TYPE_HEADER, "")
+            .toString();
+        if (!EventTypes.TRANSACTION_POSTED.equals(eventType)) {
+          log.debug("Ignoring event type {}", eventType);
+          continue;
+        }
+        try {
+          TransactionPostedEvent event = decode(message);
+          if (event != null) {
+            events.add(event);
+          }
+        } catch (Exception e) {
+          log.error("Failed to decode transaction.posted message", e);
+        }
+      }
+      if (events.isEmpty()) {
+        return;
+      }
+      try {
+        transactionEventService.processTransactionPostedBatch(events);
+      } catch (Exception e) {
+        // One bad record must not drop its neighbours: replay the batch record by record
+        log.warn("Batch of {} transaction.posted events failed, retrying per record: {}",
+            events.size(), e.getMessage());
+        for (TransactionPostedEvent event : events) {
+          try {
+            transactionSpanTagger.tagTransactionId(event.getTransactionId());
+            transactionEventService.processTransactionPosted(event);
+          } catch (Exception ex) {
+            log.error("Failed to process transaction.posted message for txn {}",
+                event.getTransactionId(), ex);
+          }
+        }
+      }
+      // The whole batch is acknowledged once we return, so its markers are flushed here
+      awaitMarkerWrites();
+    };
+  }
+
+  /**
+   * Parallel variant of {@link #transactionPosted()}, active when
+   * {@code spring.cloud.function.definition=transactionPostedParallel}. Records are processed on
+   * virtual threads, ordered per issuer account, and offsets are acknowledged only up to the
+   * lowest unfinished record of each partition. Requires {@code ack-mode=MANUAL} on the binding.
+   */
+  @Bean
+  public Consumer<Message<byte[]>> transactionPostedParallel() {
+    return message -> {
+      Acknowledgment acknowledgment = message.getHeaders()
+          .get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+      if (acknowledgment == null) {
+        log.warn("No acknowledgment header; processing synchronously (is ack-mode MANUAL?)");
+        transactionPosted().accept(message);
+        return;
+      }
+      TopicPartition partition = new TopicPartition(
+          message.getHeaders().get(KafkaHeaders.RECEIVED_TOPIC, String.class),
+          message.getHeaders().get(KafkaHeaders.RECEIVED_PARTITION, Integer.class));
+      long offset = message.getHeaders().get(KafkaHeaders.OFFSET, Long.class);
+      partitionOffsetTracker.register(partition, offset, acknowledgment);
+
+      String eventType = message.getHeaders().getOrDefault(EventTypes.EVENT_TYPE_HEADER, "")
+          .toString();
+      if (!EventTypes.TRANSACTION_POSTED.equals(eventType)) {
+        log.debug("Ignoring event type {}", eventType);
+        partitionOffsetTracker.complete(partition, offset);
+        return;
+      }
+      TransactionPostedEvent event;
+      try {
+        event = decode(message);
+      } catch (Exception e) {
+        log.error("Failed to decode transaction.posted message", e);
+        partitionOffsetTracker.complete(partition, offset);
+        return;
+      }
+      if (event == null) {
+        log.debug("Dropping transaction.posted event of an ignored transaction type");
+        partitionOffsetTracker.complete(partition, offset);
+        return;
+      }
+      AtomicReference<CompletableFuture<Void>> markerWrites = new AtomicReference<>(
+          CompletableFuture.completedFuture(null));
+      keyOrderedExecutor.submit(orderingKey(event), () -> {
+        try {
+          transactionSpanTagger.tagTransactionId(event.getTransactionId());
+          transactionEventService.processTransactionPosted(event);
+        } finally {
+          markerWrites.set(processedEventService.takePendingMarkerWrites());
+        }
+      }).whenComplete((v, ex) -> {
+        if (ex != null) {
+          log.error("Failed to process transaction.posted message for txn {}",
+              event.getTransactionId(), ex);
+        }
+        markerWrites.get().whenComplete((w, writeEx) -> {
+          if (writeEx != null) {
+            // Leave the record in flight: its offset and every later one stay uncommitted, so
+            // the partition is replayed from here after the next rebalance or restart
+            log.error("Marker for txn {} was not written; holding back offset {} of {}",
+                event.getTransactionId(), offset, partition, writeEx);
+            return;
+          }
+          partitionOffsetTracker.complete(partition, offset);
+        });
+      });
+    };
+  }
+
+  private TransactionPostedEvent decode(Message<byte[]> message) throws IOException {
+    TransactionPostedEvent event = transactionPostedEventDecoder.decode(message.getPayload());
+    if (event != null) {
+      event.setPayloadHash(payloadHasher.hash(message.getPayload()));
+    }
+    return event;
+  }
+
+  private void awaitMarkerWrites() {
+    CompletableFuture<Void> markerWrites = processedEventService.takePendingMarkerWrites();
+    if (!markerWrites.isDone()) {
+      processedEventService.flushPendingMarkers();
+    }
+    try {
+      markerWrites.get(markerAwaitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for processed-event markers", e);
+    } catch (ExecutionException | TimeoutException e) {
+      throw new IllegalStateException("Processed-event markers were not written", e);
+    }
+  }
+
+  private static String orderingKey(TransactionPostedEvent event) {
+    return event.getIssuerAccountId() != null ? "issuer:" + event.getIssuerAccountId()
+        : "txn:" + event.getTransactionId();
+  }
 }
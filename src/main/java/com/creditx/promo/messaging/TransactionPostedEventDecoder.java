@@ -0,0 +1,95 @@
+package com.creditx.promo.messaging;
+
+import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.model.TransactionType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streaming decoder for {@code transaction.posted} payloads. Reads the Kafka record bytes
+ * directly with a {@link JsonParser}, without building an intermediate String or tree, and stops
+ * as soon as the {@code type} field shows a transaction type this service never acts on.
+ */
+@Component
+public class TransactionPostedEventDecoder {
+
+  private final JsonFactory jsonFactory;
+
+  public TransactionPostedEventDecoder(ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+  }
+
+  /**
+   * Decode a {@code transaction.posted} payload.
+   *
+   * @param payload UTF-8 JSON bytes
+   * @return the event, or {@code null} if its type is dropped without processing
+   * @throws IOException if the payload is not a valid event
+   */
+  public TransactionPostedEvent decode(byte[] payload) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(payload)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected transaction.posted JSON object");
+      }
+      TransactionPostedEvent event = new TransactionPostedEvent();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.VALUE_NULL) {
+          continue;
+        }
+        switch (field) {
+          case "type" -> {
+            TransactionType type = TransactionType.valueOf(parser.getText());
+            if (isDropped(type)) {
+              return null;
+            }
+            event.setType(type);
+          }
+          case "transactionId" -> event.setTransactionId(readLong(parser, value));
+          case "issuerAccountId" -> event.setIssuerAccountId(readLong(parser, value));
+          case "merchantAccountId" -> event.setMerchantAccountId(readLong(parser, value));
+          case "amount" -> event.setAmount(value == JsonToken.VALUE_STRING
+              ? new BigDecimal(parser.getText()) : parser.getDecimalValue());
+          case "currency" -> event.setCurrency(parser.getText());
+          case "status" -> event.setStatus(parser.getText());
+          case "createdAt" -> event.setCreatedAt(readInstant(parser, value));
+          default -> parser.skipChildren();
+        }
+      }
+      return event;
+    }
+  }
+
+  private static boolean isDropped(TransactionType type) {
+    return type == TransactionType.CAPTURE || type == TransactionType.COMPENSATION;
+  }
+
+  private static long readLong(JsonParser parser, JsonToken value) throws IOException {
+    return value == JsonToken.VALUE_STRING ? Long.parseLong(parser.getText())
+        : parser.getLongValue();
+  }
+
+  private static Instant readInstant(JsonParser parser, JsonToken value) throws IOException {
+    if (value == JsonToken.VALUE_STRING) {
+      String text = parser.getText();
+      return text.endsWith("Z") ? Instant.parse(text) : OffsetDateTime.parse(text).toInstant();
+    }
+    if (value == JsonToken.VALUE_NUMBER_INT) {
+      return Instant.ofEpochSecond(parser.getLongValue());
+    }
+    // Jackson's default numeric form: seconds with a nanosecond fraction
+    BigDecimal seconds = parser.getDecimalValue();
+    long wholeSeconds = seconds.longValue();
+    int nanos = seconds.subtract(BigDecimal.valueOf(wholeSeconds)).movePointRight(9).intValue();
+    return Instant.ofEpochSecond(wholeSeconds, nanos);
+  }
+}
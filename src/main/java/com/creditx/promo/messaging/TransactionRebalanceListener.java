@@ -0,0 +1,56 @@
+package com.creditx.promo.messaging;
+
+import com.creditx.promo.cache.ProcessedEventCache;
+import java.time.Duration;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.binder.kafka.KafkaBindingRebalanceListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionRebalanceListener implements KafkaBindingRebalanceListener {
+
+  private final PartitionOffsetTracker partitionOffsetTracker;
+  private final ProcessedEventCache processedEventCache;
+
+  @Value("${app.consumer.parallel.drain-timeout-ms:10000}")
+  private long drainTimeoutMs;
+
+  @Override
+  public void onPartitionsRevokedBeforeCommit(String bindingName, Consumer<?, ?> consumer,
+      Collection<TopicPartition> partitions) {
+    // Let in-flight records finish so their acks are part of the commit made on revocation
+    try {
+      if (!partitionOffsetTracker.awaitDrained(partitions, Duration.ofMillis(drainTimeoutMs))) {
+        log.warn("Revoking {} on {} with unfinished records; they will be redelivered",
+            partitions, bindingName);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void onPartitionsRevokedAfterCommit(String bindingName, Consumer<?, ?> consumer,
+      Collection<TopicPartition> partitions) {
+    partitionOffsetTracker.revoke(partitions);
+  }
+
+  @Override
+  public void onPartitionsAssigned(String bindingName, Consumer<?, ?> consumer,
+      Collection<TopicPartition> partitions, boolean initial) {
+    // The previous owner committed its markers before its offsets; pick them up before replaying
+    try {
+      processedEventCache.catchUp();
+    } catch (Exception e) {
+      log.warn("Could not refresh the dedup cache on assignment of {}: {}", partitions,
+          e.getMessage());
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.creditx.promo.model;
 
+import com.creditx.promo.codec.PayloadCodec;
+import com.creditx.promo.codec.PayloadEncoding;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -8,8 +10,12 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.time.Instant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,9 +30,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class OutboxEvent {
 
+  // allocationSize must match the INCREMENT BY of CPRS_OUTBOX_SEQ (V9); ids are handed out from
+  // the block with the pooled-lo optimizer, so a batch of inserts costs one NEXTVAL per 50 rows
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq_gen")
-  @SequenceGenerator(name = "outbox_seq_gen", sequenceName = "CPRS_OUTBOX_SEQ", allocationSize = 1)
+  @SequenceGenerator(name = "outbox_seq_gen", sequenceName = "CPRS_OUTBOX_SEQ", allocationSize = 50)
   @Column(name = "EVENT_ID")
   private Long eventId;
 
@@ -36,10 +44,26 @@ public class OutboxEvent {
   @Column(name = "AGGREGATE_ID")
   private Long aggregateId;
 
-  @Lob
-  @Column(name = "PAYLOAD", nullable = false)
+  // Publishing lane, derived from the aggregate ID so that an aggregate's events stay in order
+  @Column(name = "LANE", nullable = false)
+  private Integer lane;
+
+  // Stored through PayloadCodec in one of the PAYLOAD_* columns: inline when it fits, otherwise
+  // (compressed) in the BLOB. Not tracked by dirty checking, so setPayload re-encodes at once
+  @Transient
   private String payload;
 
+  @Enumerated(EnumType.STRING)
+  @Column(name = "PAYLOAD_ENCODING", nullable = false, length = 10)
+  private PayloadEncoding payloadEncoding;
+
+  @Column(name = "PAYLOAD_INLINE", length = PayloadCodec.INLINE_MAX_BYTES)
+  private String payloadInline;
+
+  @Lob
+  @Column(name = "PAYLOAD_BLOB")
+  private byte[] payloadBlob;
+
   @Enumerated(EnumType.STRING)
   @Column(name = "STATUS", nullable = false, length = 20)
   private OutboxEventStatus status;
@@ -49,4 +73,27 @@ public class OutboxEvent {
 
   @Column(name = "PUBLISHED_AT")
   private Instant publishedAt;
+
+  /**
+   * Replace the payload; on a managed entity the encoded columns change with it, so the new
+   * payload is saved at the next flush.
+   */
+  public void setPayload(String payload) {
+    this.payload = payload;
+    encodePayload();
+  }
+
+  @PrePersist
+  @PreUpdate
+  void encodePayload() {
+    PayloadCodec.EncodedPayload encoded = PayloadCodec.encode(payload);
+    payloadEncoding = encoded.encoding();
+    payloadInline = encoded.inline();
+    payloadBlob = encoded.blob();
+  }
+
+  @PostLoad
+  void decodePayload() {
+    payload = PayloadCodec.decode(payloadEncoding, payloadInline, payloadBlob);
+  }
 }
@@ -22,8 +22,8 @@ public class ProcessedEvent {
   @Column(name = "EVENT_ID", length = 100)
   private String eventId;
 
-  @Column(name = "PAYLOAD_HASH", length = 128)
-  private String payloadHash;
+  @Column(name = "PAYLOAD_HASH", length = 32)
+  private byte[] payloadHash;
 
   @Column(name = "STATUS", length = 20)
   private String status;
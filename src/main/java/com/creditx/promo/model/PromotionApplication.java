@@ -1,17 +1,20 @@
 package com.creditx.promo.model;
 
+import com.creditx.promo.codec.PayloadCodec;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import java.time.Instant;
+import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "CPRS_PROMO_APPLICATIONS")
@@ -21,9 +24,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class PromotionApplication {
 
+  // A UuidV7Generator ID, stored as RAW(16)
   @Id
-  @Column(name = "APPLICATION_ID", length = 36)
-  private String applicationId;
+  @JdbcTypeCode(SqlTypes.BINARY)
+  @Column(name = "APPLICATION_ID", length = 16)
+  private UUID applicationId;
 
   @Column(name = "PROMO_ID", nullable = false, length = 36)
   private String promoId;
@@ -40,12 +45,15 @@ public class PromotionApplication {
   @Column(name = "CASHBACK_AMOUNT", nullable = false, precision = 20, scale = 2)
   private java.math.BigDecimal cashbackAmount;
 
+  @Column(name = "CURRENCY", length = 3)
+  private String currency;
+
   @Enumerated(EnumType.STRING)
   @Column(name = "STATUS", nullable = false, length = 20)
   private PromotionApplicationStatus status;
 
-  @Lob
-  @Column(name = "REASON")
+  // A short diagnostic, kept inline; cut to fit by setReason and the builder
+  @Column(name = "REASON", length = PayloadCodec.INLINE_MAX_BYTES)
   private String reason;
 
   @Column(name = "IDEMPOTENCY_KEY", length = 200, nullable = false)
@@ -53,4 +61,29 @@ public class PromotionApplication {
 
   @Column(name = "APPLIED_AT", insertable = false, updatable = false)
   private Instant appliedAt;
+
+  // Maintained by the dispatcher through PromotionApplicationRepositoryCustom
+  @Column(name = "ATTEMPTS", insertable = false, updatable = false)
+  private Integer attempts;
+
+  @Column(name = "NEXT_RETRY_AT", insertable = false, updatable = false)
+  private Instant nextRetryAt;
+
+  /**
+   * Set the failure reason, cut to what fits the {@code VARCHAR2(4000 BYTE)} column.
+   */
+  public void setReason(String reason) {
+    this.reason = PayloadCodec.truncateUtf8(reason, PayloadCodec.INLINE_MAX_BYTES);
+  }
+
+  public static class PromotionApplicationBuilder {
+
+    /**
+     * Set the failure reason, cut like {@link PromotionApplication#setReason(String)}.
+     */
+    public PromotionApplicationBuilder reason(String reason) {
+      this.reason = PayloadCodec.truncateUtf8(reason, PayloadCodec.INLINE_MAX_BYTES);
+      return this;
+    }
+  }
 }
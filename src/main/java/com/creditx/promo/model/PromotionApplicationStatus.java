@@ -1,5 +1,5 @@
 package com.creditx.promo.model;
 
 public enum PromotionApplicationStatus {
-  APPLIED, FAILED, REVERSED
+  PENDING, APPLIED, FAILED, ABANDONED, REVERSED, UNCONFIRMED
 }
@@ -3,6 +3,7 @@ package com.creditx.promo.repository;
 import com.creditx.promo.model.OutboxEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>,
+    OutboxEventRepositoryCustom {
 
 }
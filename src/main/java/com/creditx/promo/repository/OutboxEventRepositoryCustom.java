@@ -0,0 +1,43 @@
+package com.creditx.promo.repository;
+
+import com.creditx.promo.model.OutboxEventStatus;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepositoryCustom {
+
+  /**
+   * Claim up to {@code limit} PENDING outbox events of {@code lane} that are unclaimed or whose
+   * claim expired, oldest {@code CREATED_AT} first. Rows locked by a concurrent claim are
+   * skipped, and so are events with an earlier event of their aggregate that is FAILED or waiting
+   * for a retry.
+   *
+   * @param lane publishing lane to claim from
+   * @param owner claim owner recorded in {@code CLAIMED_BY}
+   * @param lease how long the claim keeps other publishers away
+   * @param limit maximum number of events to claim
+   * @return IDs of the claimed events, in claim order
+   */
+  List<Long> claimPending(int lane, String owner, Duration lease, int limit);
+
+  /**
+   * Set the status of the given events and release their claims, with one set-based UPDATE per
+   * {@link com.creditx.promo.util.BatchUtils#MAX_IN_LIST_SIZE} IDs. {@code PUBLISHED_AT} is
+   * stamped for PUBLISHED.
+   *
+   * @return number of events updated
+   */
+  int updateStatus(Collection<Long> eventIds, OutboxEventStatus status);
+
+  /**
+   * Count a failed attempt for each of the given claimed events. An event with attempts left stays
+   * PENDING and is not claimed again, nor are the later events of its aggregate, until
+   * {@code initialBackoff} doubled for each earlier attempt, at most {@code maxBackoff}, has
+   * passed. An event that used its {@code maxAttempts} is marked FAILED.
+   *
+   * @return number of events updated
+   */
+  int retryLater(Collection<Long> eventIds, int maxAttempts, Duration initialBackoff,
+      Duration maxBackoff);
+}
@@ -0,0 +1,122 @@
+package com.creditx.promo.repository;
+
+import com.creditx.promo.model.OutboxEventStatus;
+import com.creditx.promo.util.BatchUtils;
+import jakarta.transaction.Transactional;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class OutboxEventRepositoryCustomImpl implements OutboxEventRepositoryCustom {
+
+  // Served by IDX_CPRS_OUTBOX_STATUS (STATUS, LANE, CREATED_AT, EVENT_ID). Each replica takes
+  // EVENT_IDs from its own pooled sequence block, so they do not follow write order across
+  // replicas; CREATED_AT, stamped by the database, does. FETCH FIRST cannot be combined with
+  // FOR UPDATE (ORA-02014); the row limit is applied with setMaxRows so that only the fetched
+  // rows are locked. An event is not claimed while an earlier event of its aggregate is FAILED or
+  // PENDING behind a live claim, which covers one waiting out its retry backoff; probed through
+  // IDX_CPRS_OUTBOX_AGG_ID
+  private static final String SELECT_CLAIMABLE_SQL = """
+      SELECT EVENT_ID FROM CPRS_OUTBOX_EVENTS o
+      WHERE STATUS = 'PENDING' AND LANE = ?
+        AND (CLAIM_EXPIRES_AT IS NULL OR CLAIM_EXPIRES_AT < SYSTIMESTAMP)
+        AND NOT EXISTS (
+          SELECT 1 FROM CPRS_OUTBOX_EVENTS p
+          WHERE p.AGGREGATE_ID = o.AGGREGATE_ID
+            AND (p.STATUS = 'FAILED'
+              OR p.STATUS = 'PENDING' AND p.CLAIM_EXPIRES_AT >= SYSTIMESTAMP)
+            AND (p.CREATED_AT < o.CREATED_AT
+              OR p.CREATED_AT = o.CREATED_AT AND p.EVENT_ID < o.EVENT_ID))
+      ORDER BY CREATED_AT, EVENT_ID
+      FOR UPDATE SKIP LOCKED
+      """;
+
+  private static final String CLAIM_SQL = """
+      UPDATE CPRS_OUTBOX_EVENTS
+      SET CLAIMED_BY = ?, CLAIM_EXPIRES_AT = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND')
+      WHERE EVENT_ID = ?
+      """;
+
+  private static final String UPDATE_STATUS_SQL = """
+      UPDATE CPRS_OUTBOX_EVENTS
+      SET STATUS = ?, PUBLISHED_AT = CASE WHEN ? = 'PUBLISHED' THEN SYSTIMESTAMP END,
+          CLAIMED_BY = NULL, CLAIM_EXPIRES_AT = NULL
+      WHERE EVENT_ID IN (%s)
+      """;
+
+  // The claim is kept, without an owner, until the backoff has passed. ATTEMPTS on the right-hand
+  // side is the value before the update; the exponent is capped so POWER cannot overflow
+  private static final String RETRY_LATER_SQL = """
+      UPDATE CPRS_OUTBOX_EVENTS
+      SET STATUS = CASE WHEN ATTEMPTS + 1 >= ? THEN 'FAILED' ELSE 'PENDING' END,
+          CLAIM_EXPIRES_AT = CASE WHEN ATTEMPTS + 1 < ? THEN SYSTIMESTAMP
+              + NUMTODSINTERVAL(LEAST(? * POWER(2, LEAST(ATTEMPTS, 30)), ?) / 1000, 'SECOND') END,
+          ATTEMPTS = ATTEMPTS + 1, CLAIMED_BY = NULL
+      WHERE EVENT_ID IN (%s)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  @Transactional
+  public List<Long> claimPending(int lane, String owner, Duration lease, int limit) {
+    List<Long> ids = jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(SELECT_CLAIMABLE_SQL);
+      ps.setMaxRows(limit);
+      ps.setFetchSize(limit);
+      ps.setInt(1, lane);
+      return ps;
+    }, (rs, rowNum) -> rs.getLong(1));
+    if (ids.isEmpty()) {
+      return ids;
+    }
+    jdbcTemplate.batchUpdate(CLAIM_SQL, ids, ids.size(), (ps, id) -> {
+      ps.setString(1, owner);
+      ps.setLong(2, lease.toSeconds());
+      ps.setLong(3, id);
+    });
+    return ids;
+  }
+
+  @Override
+  public int updateStatus(Collection<Long> eventIds, OutboxEventStatus status) {
+    int updated = 0;
+    for (List<Long> chunk : BatchUtils.partition(eventIds, BatchUtils.MAX_IN_LIST_SIZE)) {
+      String sql = UPDATE_STATUS_SQL.formatted(
+          String.join(",", Collections.nCopies(chunk.size(), "?")));
+      Object[] args = new Object[chunk.size() + 2];
+      args[0] = status.name();
+      args[1] = status.name();
+      for (int i = 0; i < chunk.size(); i++) {
+        args[i + 2] = chunk.get(i);
+      }
+      updated += jdbcTemplate.update(sql, args);
+    }
+    return updated;
+  }
+
+  @Override
+  public int retryLater(Collection<Long> eventIds, int maxAttempts, Duration initialBackoff,
+      Duration maxBackoff) {
+    int updated = 0;
+    for (List<Long> chunk : BatchUtils.partition(eventIds, BatchUtils.MAX_IN_LIST_SIZE)) {
+      String sql = RETRY_LATER_SQL.formatted(
+          String.join(",", Collections.nCopies(chunk.size(), "?")));
+      Object[] args = new Object[chunk.size() + 4];
+      args[0] = maxAttempts;
+      args[1] = maxAttempts;
+      args[2] = initialBackoff.toMillis();
+      args[3] = maxBackoff.toMillis();
+      for (int i = 0; i < chunk.size(); i++) {
+        args[i + 4] = chunk.get(i);
+      }
+      updated += jdbcTemplate.update(sql, args);
+    }
+    return updated;
+  }
+}
@@ -0,0 +1,161 @@
+package com.creditx.promo.repository;
+
+import jakarta.transaction.Transactional;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Lane leases and instance heartbeats of the outbox publishers ({@code CPRS_OUTBOX_LANE_LEASES},
+ * {@code CPRS_OUTBOX_NODES}). All times are taken from the database clock.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxLaneLeaseRepository {
+
+  private static final String ENSURE_LANES_SQL = """
+      MERGE INTO CPRS_OUTBOX_LANE_LEASES l
+      USING (SELECT LEVEL - 1 AS LANE FROM DUAL CONNECT BY LEVEL <= ?) s
+      ON (l.LANE = s.LANE)
+      WHEN NOT MATCHED THEN INSERT (LANE) VALUES (s.LANE)
+      """;
+
+  private static final String HEARTBEAT_SQL = """
+      MERGE INTO CPRS_OUTBOX_NODES n
+      USING (SELECT ? AS NODE_ID FROM DUAL) s
+      ON (n.NODE_ID = s.NODE_ID)
+      WHEN MATCHED THEN UPDATE SET HEARTBEAT_AT = SYSTIMESTAMP
+      WHEN NOT MATCHED THEN INSERT (NODE_ID, HEARTBEAT_AT) VALUES (s.NODE_ID, SYSTIMESTAMP)
+      """;
+
+  private static final String DELETE_STALE_NODES_SQL = """
+      DELETE FROM CPRS_OUTBOX_NODES
+      WHERE HEARTBEAT_AT < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND')
+      """;
+
+  private static final String COUNT_LIVE_NODES_SQL = """
+      SELECT COUNT(*) FROM CPRS_OUTBOX_NODES
+      WHERE HEARTBEAT_AT >= SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND')
+      """;
+
+  private static final String RENEW_SQL = """
+      UPDATE CPRS_OUTBOX_LANE_LEASES
+      SET LEASE_EXPIRES_AT = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND')
+      WHERE OWNER = ? AND LANE < ?
+      """;
+
+  private static final String SELECT_OWNED_SQL = """
+      SELECT LANE FROM CPRS_OUTBOX_LANE_LEASES
+      WHERE OWNER = ? AND LANE < ?
+      ORDER BY LANE
+      """;
+
+  // Row limit applied with setMaxRows, as FETCH FIRST cannot be combined with FOR UPDATE
+  private static final String SELECT_FREE_SQL = """
+      SELECT LANE FROM CPRS_OUTBOX_LANE_LEASES
+      WHERE LANE < ? AND (OWNER IS NULL OR LEASE_EXPIRES_AT < SYSTIMESTAMP)
+      ORDER BY LANE
+      FOR UPDATE SKIP LOCKED
+      """;
+
+  private static final String TAKE_SQL = """
+      UPDATE CPRS_OUTBOX_LANE_LEASES
+      SET OWNER = ?, LEASE_EXPIRES_AT = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND')
+      WHERE LANE = ?
+      """;
+
+  private static final String RELEASE_SQL = """
+      UPDATE CPRS_OUTBOX_LANE_LEASES
+      SET OWNER = NULL, LEASE_EXPIRES_AT = NULL
+      WHERE OWNER = ? AND LANE IN (%s)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Create the lease rows of lanes {@code 0..laneCount-1} that do not exist yet.
+   */
+  public void ensureLanes(int laneCount) {
+    jdbcTemplate.update(ENSURE_LANES_SQL, laneCount);
+  }
+
+  /**
+   * Record that {@code nodeId} is alive and forget nodes silent for longer than {@code ttl}.
+   */
+  @Transactional
+  public void heartbeat(String nodeId, Duration ttl) {
+    jdbcTemplate.update(HEARTBEAT_SQL, nodeId);
+    jdbcTemplate.update(DELETE_STALE_NODES_SQL, seconds(ttl));
+  }
+
+  /**
+   * @return number of nodes that sent a heartbeat within {@code ttl}
+   */
+  public int countLiveNodes(Duration ttl) {
+    Integer count = jdbcTemplate.queryForObject(COUNT_LIVE_NODES_SQL, Integer.class,
+        seconds(ttl));
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Extend every lease {@code owner} still holds.
+   *
+   * @return the lanes held, in ascending order
+   */
+  @Transactional
+  public List<Integer> renew(String owner, Duration lease, int laneCount) {
+    jdbcTemplate.update(RENEW_SQL, seconds(lease), owner, laneCount);
+    return jdbcTemplate.queryForList(SELECT_OWNED_SQL, Integer.class, owner, laneCount);
+  }
+
+  /**
+   * Take up to {@code max} lanes that nobody holds or whose lease expired. Lanes being taken by a
+   * concurrent instance are skipped.
+   *
+   * @return the lanes taken
+   */
+  @Transactional
+  public List<Integer> acquire(String owner, Duration lease, int laneCount, int max) {
+    List<Integer> lanes = jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(SELECT_FREE_SQL);
+      ps.setMaxRows(max);
+      ps.setInt(1, laneCount);
+      return ps;
+    }, (rs, rowNum) -> rs.getInt(1));
+    if (lanes.isEmpty()) {
+      return lanes;
+    }
+    jdbcTemplate.batchUpdate(TAKE_SQL, lanes, lanes.size(), (ps, lane) -> {
+      ps.setString(1, owner);
+      ps.setDouble(2, seconds(lease));
+      ps.setInt(3, lane);
+    });
+    return lanes;
+  }
+
+  /**
+   * Give up the given lanes, if {@code owner} still holds them.
+   */
+  public void release(String owner, Collection<Integer> lanes) {
+    if (lanes.isEmpty()) {
+      return;
+    }
+    Object[] args = new Object[lanes.size() + 1];
+    args[0] = owner;
+    int i = 1;
+    for (Integer lane : lanes) {
+      args[i++] = lane;
+    }
+    jdbcTemplate.update(RELEASE_SQL.formatted(String.join(",",
+        Collections.nCopies(lanes.size(), "?"))), args);
+  }
+
+  private static double seconds(Duration duration) {
+    return duration.toMillis() / 1000.0;
+  }
+}
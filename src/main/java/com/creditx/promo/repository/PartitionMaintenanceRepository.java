@@ -0,0 +1,117 @@
+package com.creditx.promo.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Partition metadata and maintenance DDL for the day-partitioned event tables. DDL commits
+ * implicitly, so none of these methods may run inside a caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartitionMaintenanceRepository {
+
+  /**
+   * A partition of a range-partitioned table.
+   *
+   * @param name      partition name
+   * @param highValue exclusive upper bound of the partition key, in UTC
+   * @param interval  whether the partition was created by interval partitioning; the range
+   *                  partition below the interval section can be truncated but not dropped
+   */
+  public record TablePartition(String name, Instant highValue, boolean interval) {
+  }
+
+  private static final String SELECT_PARTITIONS_SQL = """
+      SELECT PARTITION_NAME, HIGH_VALUE, INTERVAL FROM USER_TAB_PARTITIONS
+      WHERE TABLE_NAME = ?
+      ORDER BY PARTITION_POSITION
+      """;
+
+  private static final String SEGMENT_BYTES_SQL = """
+      SELECT NVL(SUM(BYTES), 0) FROM USER_SEGMENTS
+      WHERE SEGMENT_NAME = ? AND PARTITION_NAME = ?
+      """;
+
+  // HIGH_VALUE is the text of the bound, e.g. TO_DATE(' 2025-01-02 00:00:00', 'SYYYY-MM-DD ...')
+  private static final Pattern HIGH_VALUE_DATE = Pattern.compile(
+      "'\\s*(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2})'");
+  private static final DateTimeFormatter HIGH_VALUE_FORMAT = DateTimeFormatter.ofPattern(
+      "yyyy-MM-dd HH:mm:ss");
+  // Identifiers come from the data dictionary, but are still checked before going into DDL
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Z][A-Z0-9_$#]{0,127}");
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * @return partitions of {@code table} with a date bound, in partition order
+   */
+  public List<TablePartition> findPartitions(String table) {
+    return jdbcTemplate.query(SELECT_PARTITIONS_SQL, (rs, rowNum) -> new TablePartition(
+        rs.getString(1), parseHighValue(rs.getString(2)), "YES".equals(rs.getString(3))),
+        table).stream().filter(p -> p.highValue() != null).toList();
+  }
+
+  public long countRows(String table, String partition) {
+    Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM %s PARTITION (%s)".formatted(
+        identifier(table), identifier(partition)), Long.class);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * @return rows of the partition whose {@code STATUS} is one of {@code statuses}
+   */
+  public long countRowsWithStatus(String table, String partition, List<String> statuses) {
+    String placeholders = String.join(",", statuses.stream().map(s -> "?").toList());
+    Long count = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM %s PARTITION (%s) WHERE STATUS IN (%s)".formatted(
+            identifier(table), identifier(partition), placeholders), Long.class,
+        statuses.toArray());
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * @return bytes allocated to the partition's table segment
+   */
+  public long segmentBytes(String table, String partition) {
+    Long bytes = jdbcTemplate.queryForObject(SEGMENT_BYTES_SQL, Long.class, table, partition);
+    return bytes == null ? 0 : bytes;
+  }
+
+  public void dropPartition(String table, String partition) {
+    jdbcTemplate.execute("ALTER TABLE %s DROP PARTITION %s UPDATE GLOBAL INDEXES".formatted(
+        identifier(table), identifier(partition)));
+  }
+
+  public void truncatePartition(String table, String partition) {
+    jdbcTemplate.execute(
+        "ALTER TABLE %s TRUNCATE PARTITION %s DROP STORAGE UPDATE GLOBAL INDEXES".formatted(
+            identifier(table), identifier(partition)));
+  }
+
+  static Instant parseHighValue(String highValue) {
+    if (highValue == null) {
+      return null;
+    }
+    Matcher matcher = HIGH_VALUE_DATE.matcher(highValue);
+    if (!matcher.find()) {
+      return null;
+    }
+    return LocalDateTime.parse(matcher.group(1), HIGH_VALUE_FORMAT).toInstant(ZoneOffset.UTC);
+  }
+
+  private static String identifier(String name) {
+    if (!IDENTIFIER.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid identifier: " + name);
+    }
+    return name;
+  }
+}
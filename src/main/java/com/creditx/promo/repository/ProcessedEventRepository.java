@@ -1,13 +1,21 @@
 package com.creditx.promo.repository;
 
 import com.creditx.promo.model.ProcessedEvent;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String>,
+    ProcessedEventRepositoryCustom {
 
   boolean existsByEventId(String eventId);
 
-  boolean existsByPayloadHash(String payloadHash);
+  boolean existsByPayloadHash(byte[] payloadHash);
+
+  @Query("select p.eventId from ProcessedEvent p where p.eventId in :eventIds")
+  List<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
 }
@@ -0,0 +1,29 @@
+package com.creditx.promo.repository;
+
+import com.creditx.promo.model.ProcessedEvent;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ProcessedEventRepositoryCustom {
+
+  /**
+   * Insert the given markers with a single JDBC batch, skipping those whose event is already
+   * marked.
+   *
+   * @param events markers to insert
+   * @return number of markers inserted. Approximate: event IDs are deterministic, so a row the
+   *     driver reports as {@code SUCCESS_NO_INFO} cannot be told apart from an earlier marker and
+   *     is counted as inserted. Only used for logging
+   */
+  int insertIfAbsent(List<ProcessedEvent> events);
+
+  /**
+   * Stream the IDs of events processed at or after {@code since}, oldest first, without
+   * materialising them in memory.
+   *
+   * @param since  lower bound on {@code PROCESSED_AT}
+   * @param action called once per event ID
+   */
+  void forEachEventIdProcessedSince(Instant since, Consumer<String> action);
+}
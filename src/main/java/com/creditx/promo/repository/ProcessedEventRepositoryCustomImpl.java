@@ -0,0 +1,65 @@
+package com.creditx.promo.repository;
+
+import com.creditx.promo.model.ProcessedEvent;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+@RequiredArgsConstructor
+public class ProcessedEventRepositoryCustomImpl implements ProcessedEventRepositoryCustom {
+
+  // A marker for an event already marked is skipped with an update count of 0 rather than failing
+  // the batch on the primary key. The key is named by column, as its index name is generated
+  private static final String INSERT_IF_ABSENT_SQL = """
+      INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(CPRS_PROCESSED_EVENTS (EVENT_ID)) */
+      INTO CPRS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS)
+      VALUES (?, ?, ?)
+      """;
+
+  private static final String SELECT_SINCE_SQL = """
+      SELECT EVENT_ID FROM CPRS_PROCESSED_EVENTS
+      WHERE PROCESSED_AT >= ?
+      ORDER BY PROCESSED_AT
+      """;
+
+  private static final int FETCH_SIZE = 5000;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public int insertIfAbsent(List<ProcessedEvent> events) {
+    if (events.isEmpty()) {
+      return 0;
+    }
+    int[][] counts = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, events, events.size(),
+        (ps, event) -> {
+          ps.setString(1, event.getEventId());
+          ps.setBytes(2, event.getPayloadHash());
+          ps.setString(3, event.getStatus());
+        });
+    // Approximate, see ProcessedEventRepositoryCustom#insertIfAbsent
+    int inserted = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+      }
+    }
+    return inserted;
+  }
+
+  @Override
+  public void forEachEventIdProcessedSince(Instant since, Consumer<String> action) {
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(SELECT_SINCE_SQL);
+      ps.setFetchSize(FETCH_SIZE);
+      ps.setObject(1, since.atOffset(ZoneOffset.UTC));
+      return ps;
+    }, (RowCallbackHandler) rs -> action.accept(rs.getString(1)));
+  }
+}
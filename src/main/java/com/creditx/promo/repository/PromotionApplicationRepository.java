@@ -1,12 +1,11 @@
 package com.creditx.promo.repository;
 
 import com.creditx.promo.model.PromotionApplication;
+import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface PromotionApplicationRepository extends
-    JpaRepository<PromotionApplication, String> {
+    JpaRepository<PromotionApplication, UUID>, PromotionApplicationRepositoryCustom {
 
   boolean existsByTransactionIdAndPromoId(Long transactionId, String promoId);
-
-  boolean existsByIdempotencyKey(String idempotencyKey);
 }
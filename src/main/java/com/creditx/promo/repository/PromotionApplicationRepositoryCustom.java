@@ -0,0 +1,65 @@
+package com.creditx.promo.repository;
+
+import com.creditx.promo.model.PromotionApplication;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+public interface PromotionApplicationRepositoryCustom {
+
+  /**
+   * Insert the application unless its idempotency key is already taken, in one statement.
+   *
+   * @return true if the application was inserted, false if the key was taken
+   */
+  boolean insertIfAbsent(PromotionApplication application);
+
+  /**
+   * Insert the given applications with a single JDBC batch, skipping those whose idempotency key
+   * is already taken.
+   *
+   * @param applications applications to insert
+   * @return for each application, whether it was inserted
+   */
+  boolean[] insertIfAbsent(List<PromotionApplication> applications);
+
+  /**
+   * Claim up to {@code limit} PENDING applications that are unclaimed or, if
+   * {@code reclaimExpired}, whose claim expired, oldest first. Rows locked by a concurrent claim
+   * are skipped.
+   *
+   * @param owner claim owner recorded in {@code CLAIMED_BY}
+   * @param lease how long the claim keeps other owners away
+   * @param limit maximum number of applications to claim
+   * @param reclaimExpired whether applications whose claim expired may be claimed again
+   * @return IDs of the claimed applications
+   */
+  List<UUID> claimPending(String owner, Duration lease, int limit, boolean reclaimExpired);
+
+  /**
+   * Claim up to {@code limit} FAILED applications whose next retry is due, like
+   * {@link #claimPending}.
+   *
+   * @return IDs of the claimed applications, longest overdue first
+   */
+  List<UUID> claimRetryable(String owner, Duration lease, int limit, boolean reclaimExpired);
+
+  /**
+   * Move up to {@code limit} PENDING and FAILED applications whose claim expired to UNCONFIRMED:
+   * their owner may have sent the cashback before it died, so whether credit-main applied it has
+   * to be confirmed before it is sent again. The owner's claim is kept and a late outcome from it
+   * still counts.
+   *
+   * @return number of applications moved
+   */
+  int markExpiredClaimsUnconfirmed(int limit);
+
+  /**
+   * Record the dispatch outcome held in each application's {@code status}, {@code reason},
+   * {@code attempts} and {@code nextRetryAt} and release its claim, for the applications
+   * {@code owner} still holds.
+   *
+   * @return number of applications updated
+   */
+  int completeDispatches(List<PromotionApplication> applications, String owner);
+}
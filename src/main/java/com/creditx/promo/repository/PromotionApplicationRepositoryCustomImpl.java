@@ -0,0 +1,209 @@
+package com.creditx.promo.repository;
+
+import com.creditx.promo.id.UuidV7Generator;
+import com.creditx.promo.model.PromotionApplication;
+import com.creditx.promo.util.BatchUtils;
+import jakarta.transaction.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class PromotionApplicationRepositoryCustomImpl implements
+    PromotionApplicationRepositoryCustom {
+
+  // With IGNORE_ROW_ON_DUPKEY_INDEX a row whose idempotency key is taken is skipped with an update
+  // count of 0, instead of failing the statement with ORA-00001. Concurrent deliveries of the same
+  // transaction therefore need neither an existence check nor a retry
+  private static final String INSERT_IF_ABSENT_SQL = """
+      INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(CPRS_PROMO_APPLICATIONS,
+          UQ_CPRS_PROMO_APPL_IDEMPOTENCY) */
+      INTO CPRS_PROMO_APPLICATIONS (APPLICATION_ID, PROMO_ID, TRANSACTION_ID, ISSUER_ID,
+          MERCHANT_ID, CASHBACK_AMOUNT, CURRENCY, STATUS, REASON, IDEMPOTENCY_KEY)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      """;
+
+  private static final String SELECT_EXISTING_IDS_SQL = """
+      SELECT APPLICATION_ID FROM CPRS_PROMO_APPLICATIONS WHERE APPLICATION_ID IN (%s)
+      """;
+
+  // FETCH FIRST cannot be combined with FOR UPDATE (ORA-02014); the row limit is applied with
+  // setMaxRows so that only the fetched rows are locked
+  private static final String SELECT_CLAIMABLE_SQL = """
+      SELECT APPLICATION_ID FROM CPRS_PROMO_APPLICATIONS
+      WHERE STATUS = 'PENDING'
+        AND (CLAIM_EXPIRES_AT IS NULL OR (? = 1 AND CLAIM_EXPIRES_AT < SYSTIMESTAMP))
+      ORDER BY APPLIED_AT
+      FOR UPDATE SKIP LOCKED
+      """;
+
+  private static final String SELECT_RETRYABLE_SQL = """
+      SELECT APPLICATION_ID FROM CPRS_PROMO_APPLICATIONS
+      WHERE STATUS = 'FAILED' AND NEXT_RETRY_AT <= SYSTIMESTAMP
+        AND (CLAIM_EXPIRES_AT IS NULL OR (? = 1 AND CLAIM_EXPIRES_AT < SYSTIMESTAMP))
+      ORDER BY NEXT_RETRY_AT
+      FOR UPDATE SKIP LOCKED
+      """;
+
+  private static final String CLAIM_SQL = """
+      UPDATE CPRS_PROMO_APPLICATIONS
+      SET CLAIMED_BY = ?, CLAIM_EXPIRES_AT = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND')
+      WHERE APPLICATION_ID = ?
+      """;
+
+  // CLAIMED_BY is kept so that a late outcome from the original owner is still recorded. Served by
+  // IDX_CPRS_APP_STATUS_CLAIM and bounded, so a large backlog is parked over several rounds
+  private static final String MARK_EXPIRED_UNCONFIRMED_SQL = """
+      UPDATE CPRS_PROMO_APPLICATIONS
+      SET STATUS = 'UNCONFIRMED', REASON = 'ClaimExpired:' || STATUS, CLAIM_EXPIRES_AT = NULL
+      WHERE STATUS IN ('PENDING', 'FAILED') AND CLAIMED_BY IS NOT NULL
+        AND CLAIM_EXPIRES_AT < SYSTIMESTAMP AND ROWNUM <= ?
+      """;
+
+  private static final String COMPLETE_SQL = """
+      UPDATE CPRS_PROMO_APPLICATIONS
+      SET STATUS = ?, REASON = ?, POSTED_AT = CASE WHEN ? = 'APPLIED' THEN SYSTIMESTAMP END,
+          ATTEMPTS = ?, NEXT_RETRY_AT = ?, CLAIMED_BY = NULL, CLAIM_EXPIRES_AT = NULL
+      WHERE APPLICATION_ID = ? AND CLAIMED_BY = ?
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public boolean insertIfAbsent(PromotionApplication application) {
+    return jdbcTemplate.update(INSERT_IF_ABSENT_SQL, ps -> bind(ps, application)) > 0;
+  }
+
+  @Override
+  public boolean[] insertIfAbsent(List<PromotionApplication> applications) {
+    boolean[] inserted = new boolean[applications.size()];
+    if (applications.isEmpty()) {
+      return inserted;
+    }
+    int[][] counts = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, applications,
+        applications.size(), PromotionApplicationRepositoryCustomImpl::bind);
+    List<UUID> unreported = new ArrayList<>();
+    int i = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        if (count == Statement.SUCCESS_NO_INFO) {
+          unreported.add(applications.get(i).getApplicationId());
+        }
+        inserted[i++] = count > 0;
+      }
+    }
+    if (!unreported.isEmpty()) {
+      // SUCCESS_NO_INFO does not tell a skipped row apart: the IDs are fresh, so a row carrying
+      // one was inserted by this statement
+      Set<UUID> existing = findExistingIds(unreported);
+      for (int j = 0; j < inserted.length; j++) {
+        inserted[j] |= existing.contains(applications.get(j).getApplicationId());
+      }
+    }
+    return inserted;
+  }
+
+  private Set<UUID> findExistingIds(List<UUID> ids) {
+    Set<UUID> existing = new HashSet<>();
+    for (List<UUID> chunk : BatchUtils.partition(ids, BatchUtils.MAX_IN_LIST_SIZE)) {
+      String sql = SELECT_EXISTING_IDS_SQL.formatted(
+          String.join(",", Collections.nCopies(chunk.size(), "?")));
+      Object[] args = chunk.stream().map(UuidV7Generator::toBytes).toArray();
+      existing.addAll(jdbcTemplate.query(sql,
+          (rs, rowNum) -> UuidV7Generator.fromBytes(rs.getBytes(1)), args));
+    }
+    return existing;
+  }
+
+  @Override
+  @Transactional
+  public List<UUID> claimPending(String owner, Duration lease, int limit,
+      boolean reclaimExpired) {
+    return claim(SELECT_CLAIMABLE_SQL, owner, lease, limit, reclaimExpired);
+  }
+
+  @Override
+  @Transactional
+  public List<UUID> claimRetryable(String owner, Duration lease, int limit,
+      boolean reclaimExpired) {
+    return claim(SELECT_RETRYABLE_SQL, owner, lease, limit, reclaimExpired);
+  }
+
+  @Override
+  public int markExpiredClaimsUnconfirmed(int limit) {
+    return jdbcTemplate.update(MARK_EXPIRED_UNCONFIRMED_SQL, limit);
+  }
+
+  private List<UUID> claim(String selectSql, String owner, Duration lease, int limit,
+      boolean reclaimExpired) {
+    List<UUID> ids = jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(selectSql);
+      ps.setInt(1, reclaimExpired ? 1 : 0);
+      ps.setMaxRows(limit);
+      ps.setFetchSize(limit);
+      return ps;
+    }, (rs, rowNum) -> UuidV7Generator.fromBytes(rs.getBytes(1)));
+    if (ids.isEmpty()) {
+      return ids;
+    }
+    jdbcTemplate.batchUpdate(CLAIM_SQL, ids, ids.size(), (ps, id) -> {
+      ps.setString(1, owner);
+      ps.setLong(2, lease.toSeconds());
+      ps.setBytes(3, UuidV7Generator.toBytes(id));
+    });
+    return ids;
+  }
+
+  @Override
+  public int completeDispatches(List<PromotionApplication> applications, String owner) {
+    if (applications.isEmpty()) {
+      return 0;
+    }
+    int[][] counts = jdbcTemplate.batchUpdate(COMPLETE_SQL, applications, applications.size(),
+        (ps, app) -> {
+          ps.setString(1, app.getStatus().name());
+          ps.setString(2, app.getReason());
+          ps.setString(3, app.getStatus().name());
+          ps.setInt(4, app.getAttempts() == null ? 0 : app.getAttempts());
+          ps.setTimestamp(5, app.getNextRetryAt() == null ? null
+              : Timestamp.from(app.getNextRetryAt()));
+          ps.setBytes(6, UuidV7Generator.toBytes(app.getApplicationId()));
+          ps.setString(7, owner);
+        });
+    int updated = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+      }
+    }
+    return updated;
+  }
+
+  private static void bind(PreparedStatement ps, PromotionApplication app) throws SQLException {
+    ps.setBytes(1, UuidV7Generator.toBytes(app.getApplicationId()));
+    ps.setString(2, app.getPromoId());
+    ps.setLong(3, app.getTransactionId());
+    ps.setLong(4, app.getIssuerId());
+    if (app.getMerchantId() != null) {
+      ps.setLong(5, app.getMerchantId());
+    } else {
+      ps.setNull(5, Types.NUMERIC);
+    }
+    ps.setBigDecimal(6, app.getCashbackAmount());
+    ps.setString(7, app.getCurrency());
+    ps.setString(8, app.getStatus().name());
+    ps.setString(9, app.getReason());
+    ps.setString(10, app.getIdempotencyKey());
+  }
+}
@@ -13,4 +13,6 @@ public interface PromotionRepository extends JpaRepository<Promotion, String> {
 
   List<Promotion> findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(Instant start,
       Instant end);
+
+  List<Promotion> findByUpdatedAtGreaterThan(Instant updatedAt);
 }
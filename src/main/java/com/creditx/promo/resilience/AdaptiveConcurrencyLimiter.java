@@ -0,0 +1,111 @@
+package com.creditx.promo.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows the downstream service's health (AIMD). A call that is dropped
+ * or slower than the latency threshold shrinks the limit by the backoff ratio; a fast call made
+ * while at least half the limit is in use grows it by one. The limit stays within
+ * {@code [minLimit, maxLimit]}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long latencyThresholdNanos;
+  private final ReentrantLock lock = new ReentrantLock(true);
+  private final Condition released = lock.newCondition();
+
+  private volatile int limit;
+  private volatile int inflight;
+  private volatile int waiting;
+
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+      double backoffRatio, Duration latencyThreshold) {
+    if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("Invalid concurrency limits: " + minLimit + ".."
+          + maxLimit + " with backoff " + backoffRatio);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+  }
+
+  /**
+   * Take a slot, waiting up to {@code timeout} for one. Every successful call must be paired with
+   * {@link #release()}.
+   */
+  public boolean tryAcquire(Duration timeout) throws InterruptedException {
+    long remaining = timeout.toNanos();
+    lock.lockInterruptibly();
+    try {
+      waiting++;
+      try {
+        while (inflight >= limit) {
+          if (remaining <= 0) {
+            return false;
+          }
+          remaining = released.awaitNanos(remaining);
+        }
+      } finally {
+        waiting--;
+      }
+      inflight++;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void release() {
+    lock.lock();
+    try {
+      inflight--;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adjust the limit to the outcome of a call.
+   *
+   * @param rttNanos time until the response arrived
+   * @param dropped whether the call failed because the service was overloaded or unavailable
+   */
+  public void onSample(long rttNanos, boolean dropped) {
+    lock.lock();
+    try {
+      if (dropped || rttNanos > latencyThresholdNanos) {
+        limit = Math.max(minLimit, (int) (limit * backoffRatio));
+      } else if (inflight * 2 >= limit && limit < maxLimit) {
+        limit++;
+        released.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int limit() {
+    return limit;
+  }
+
+  public int inflight() {
+    return inflight;
+  }
+
+  public int waiting() {
+    return waiting;
+  }
+
+  public int maxLimit() {
+    return maxLimit;
+  }
+}
@@ -0,0 +1,14 @@
+package com.creditx.promo.resilience;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * A call that was rejected before being sent, because the circuit is open or no concurrency slot
+ * became free in time. The downstream service never saw the request.
+ */
+public class CallNotPermittedException extends ResourceAccessException {
+
+  public CallNotPermittedException(String message) {
+    super(message);
+  }
+}
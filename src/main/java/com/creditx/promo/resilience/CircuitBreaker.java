@@ -0,0 +1,146 @@
+package com.creditx.promo.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count-based circuit breaker. It opens once at least {@code minimumCalls} of the last
+ * {@code windowSize} calls have been recorded and the share of failures among them reaches the
+ * threshold. After {@code openDuration} it lets {@code halfOpenCalls} probes through: all of them
+ * succeeding closes it, any of them failing opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+  // Ordered by severity; the ordinal is the value of the state gauge
+  public enum State {
+    CLOSED, HALF_OPEN, OPEN
+  }
+
+  private final String name;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final long openDurationNanos;
+  private final int halfOpenCalls;
+  private final LongSupplier nanoClock;
+
+  // Outcomes of the last calls while closed, true for a failure
+  private final boolean[] window;
+  private int windowIndex;
+  private int recordedCalls;
+  private int failedCalls;
+
+  private volatile State state = State.CLOSED;
+  private long openedAt;
+  private int halfOpenPermitted;
+  private int halfOpenSucceeded;
+
+  public CircuitBreaker(String name, int windowSize, int minimumCalls,
+      double failureRateThreshold, Duration openDuration, int halfOpenCalls) {
+    this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls,
+        System::nanoTime);
+  }
+
+  CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+      Duration openDuration, int halfOpenCalls, LongSupplier nanoClock) {
+    if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenCalls < 1
+        || failureRateThreshold <= 0 || failureRateThreshold > 1) {
+      throw new IllegalArgumentException("Invalid circuit breaker settings for " + name);
+    }
+    this.name = name;
+    this.window = new boolean[windowSize];
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDurationNanos = openDuration.toNanos();
+    this.halfOpenCalls = halfOpenCalls;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Ask to make a call. A granted call must report its outcome through {@link #onSuccess()} or
+   * {@link #onFailure()}.
+   */
+  public synchronized boolean tryAcquirePermission() {
+    if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos) {
+      transition(State.HALF_OPEN);
+    }
+    if (state == State.HALF_OPEN) {
+      boolean permitted = halfOpenPermitted < halfOpenCalls;
+      if (permitted) {
+        halfOpenPermitted++;
+      }
+      return permitted;
+    }
+    return state == State.CLOSED;
+  }
+
+  /**
+   * @return whether calls may currently be attempted, without taking a permission
+   */
+  public boolean isCallPermitted() {
+    State current = state;
+    if (current != State.OPEN) {
+      return true;
+    }
+    synchronized (this) {
+      return nanoClock.getAsLong() - openedAt >= openDurationNanos;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    if (state == State.CLOSED) {
+      record(false);
+    } else if (state == State.HALF_OPEN && ++halfOpenSucceeded >= halfOpenCalls) {
+      transition(State.CLOSED);
+    }
+  }
+
+  public synchronized void onFailure() {
+    if (state == State.CLOSED) {
+      record(true);
+      if (recordedCalls >= minimumCalls
+          && failedCalls >= failureRateThreshold * recordedCalls) {
+        transition(State.OPEN);
+      }
+    } else if (state == State.HALF_OPEN) {
+      transition(State.OPEN);
+    }
+  }
+
+  public State state() {
+    return state;
+  }
+
+  private void record(boolean failed) {
+    if (recordedCalls == window.length) {
+      if (window[windowIndex]) {
+        failedCalls--;
+      }
+    } else {
+      recordedCalls++;
+    }
+    window[windowIndex] = failed;
+    if (failed) {
+      failedCalls++;
+    }
+    windowIndex = (windowIndex + 1) % window.length;
+  }
+
+  private void transition(State next) {
+    log.warn("Circuit breaker {} changed from {} to {}", name, state, next);
+    state = next;
+    switch (next) {
+      case OPEN -> openedAt = nanoClock.getAsLong();
+      case HALF_OPEN -> {
+        halfOpenPermitted = 0;
+        halfOpenSucceeded = 0;
+      }
+      case CLOSED -> {
+        windowIndex = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.creditx.promo.rules;
+
+import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.model.Promotion;
+import com.creditx.promo.util.LongHashSet;
+import com.creditx.promo.util.MinorUnits;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable, pre-parsed form of a promotion's {@code eligibilityRules} and {@code rewardFormula}.
+ * Behaves exactly like evaluating the JSON on every call: a rule or formula that does not parse
+ * never matches and never pays cashback.
+ */
+@Slf4j
+public final class CompiledPromotion {
+
+  private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+  // Scale of event amounts; minimums are stored at this scale when that loses nothing
+  private static final int AMOUNT_SCALE = 2;
+
+  private final String promoId;
+  private final Instant updatedAt;
+  private final String eligibilitySource;
+  private final String rewardSource;
+
+  private final boolean eligibilityValid;
+  private final BigDecimal minAmount;
+  private final LongHashSet merchantIds;
+
+  private final boolean rewardValid;
+  private final BigDecimal cashbackPercent;
+  private final BigDecimal maxCashback;
+  // Fixed-point form of the reward: cashback = amount * percentUnscaled / percentDivisor
+  private final boolean fixedPoint;
+  private final long percentUnscaled;
+  private final long percentDivisor;
+  private final long maxUnscaled;
+  private final int maxScale;
+
+  private CompiledPromotion(Promotion promotion, ObjectMapper objectMapper) {
+    this.promoId = promotion.getPromoId();
+    this.updatedAt = promotion.getUpdatedAt();
+    this.eligibilitySource = promotion.getEligibilityRules();
+    this.rewardSource = promotion.getRewardFormula();
+
+    boolean valid = false;
+    BigDecimal min = null;
+    LongHashSet merchants = null;
+    try {
+      JsonNode root = objectMapper.readTree(eligibilitySource);
+      if (root.has("minAmount")) {
+        min = prescale(root.get("minAmount").decimalValue());
+      }
+      if (root.has("merchantIds")) {
+        JsonNode ids = root.get("merchantIds");
+        long[] values = new long[ids.size()];
+        int i = 0;
+        for (JsonNode n : ids) {
+          values[i++] = n.asLong();
+        }
+        merchants = LongHashSet.of(values);
+      }
+      valid = true;
+    } catch (Exception e) {
+      log.warn("Eligibility parse failed for promo {}: {}", promoId, e.getMessage());
+    }
+    this.eligibilityValid = valid;
+    this.minAmount = min;
+    this.merchantIds = merchants;
+
+    valid = false;
+    BigDecimal percent = BigDecimal.ZERO;
+    BigDecimal max = BigDecimal.ZERO;
+    try {
+      JsonNode root = objectMapper.readTree(rewardSource);
+      percent = root.path("cashbackPercent").decimalValue();
+      max = root.path("maxCashback").decimalValue();
+      valid = true;
+    } catch (Exception e) {
+      log.warn("Reward formula parse failed for promo {}: {}", promoId, e.getMessage());
+    }
+    this.rewardValid = valid;
+    this.cashbackPercent = percent;
+    this.maxCashback = max;
+
+    boolean fits = false;
+    long unscaledPercent = 0;
+    long divisor = 1;
+    long unscaledMax = 0;
+    int scaleOfMax = 0;
+    try {
+      BigDecimal p = percent.scale() < 0 ? percent.setScale(0) : percent;
+      BigDecimal m = max.scale() < 0 ? max.setScale(0) : max;
+      unscaledPercent = p.unscaledValue().longValueExact();
+      divisor = Math.multiplyExact(100L, MinorUnits.pow10(p.scale()));
+      unscaledMax = m.unscaledValue().longValueExact();
+      scaleOfMax = m.scale();
+      fits = true;
+    } catch (ArithmeticException e) {
+      log.debug("Reward formula of promo {} does not fit fixed-point arithmetic", promoId);
+    }
+    this.fixedPoint = fits;
+    this.percentUnscaled = unscaledPercent;
+    this.percentDivisor = divisor;
+    this.maxUnscaled = unscaledMax;
+    this.maxScale = scaleOfMax;
+  }
+
+  public static CompiledPromotion compile(Promotion promotion, ObjectMapper objectMapper) {
+    return new CompiledPromotion(promotion, objectMapper);
+  }
+
+  public String getPromoId() {
+    return promoId;
+  }
+
+  /**
+   * @return merchants the promotion is restricted to, or {@code null} if it applies to any merchant
+   */
+  public LongHashSet getMerchantIds() {
+    return merchantIds;
+  }
+
+  public boolean isEligibilityValid() {
+    return eligibilityValid;
+  }
+
+  public boolean isEligible(TransactionPostedEvent event) {
+    if (!eligibilityValid) {
+      return false;
+    }
+    if (minAmount != null
+        && (event.getAmount() == null || event.getAmount().compareTo(minAmount) < 0)) {
+      return false;
+    }
+    if (merchantIds != null) {
+      return event.getMerchantAccountId() != null
+          && merchantIds.contains(event.getMerchantAccountId());
+    }
+    return true;
+  }
+
+  /**
+   * Cashback in minor units: {@code amount * cashbackPercent / 100} rounded to a whole minor unit,
+   * capped at {@code maxCashback} (truncated to the currency's digits) and floored at zero.
+   *
+   * @throws ArithmeticException if an intermediate result overflows a long
+   */
+  public long cashbackMinorUnits(long amount, int fractionDigits, RoundingMode roundingMode) {
+    if (!rewardValid) {
+      return 0;
+    }
+    if (!fixedPoint) {
+      throw new ArithmeticException("Reward formula of promo " + promoId + " is not fixed-point");
+    }
+    long cashback = MinorUnits.divide(Math.multiplyExact(amount, percentUnscaled),
+        percentDivisor, roundingMode);
+    return Math.max(0, Math.min(cashback, capMinorUnits(fractionDigits)));
+  }
+
+  /**
+   * Same as {@link #cashbackMinorUnits} for a decimal amount, falling back to {@link BigDecimal}
+   * arithmetic when the amount has more digits than the currency or overflows a long.
+   */
+  public BigDecimal cashback(BigDecimal amount, int fractionDigits, RoundingMode roundingMode) {
+    if (!rewardValid || amount == null) {
+      return BigDecimal.ZERO;
+    }
+    try {
+      long minorUnits = MinorUnits.toMinorUnits(amount, fractionDigits);
+      return MinorUnits.toBigDecimal(
+          cashbackMinorUnits(minorUnits, fractionDigits, roundingMode), fractionDigits);
+    } catch (ArithmeticException e) {
+      BigDecimal cashback = amount.multiply(cashbackPercent)
+          .divide(ONE_HUNDRED, fractionDigits, roundingMode)
+          .min(maxCashback.setScale(fractionDigits, RoundingMode.DOWN));
+      return cashback.signum() < 0 ? BigDecimal.ZERO.setScale(fractionDigits) : cashback;
+    }
+  }
+
+  boolean isCompiledFrom(Promotion promotion) {
+    if (promotion.getUpdatedAt() != null) {
+      return promotion.getUpdatedAt().equals(updatedAt);
+    }
+    // Not yet persisted or loaded without UPDATED_AT: fall back to comparing the sources
+    return updatedAt == null
+        && Objects.equals(promotion.getEligibilityRules(), eligibilitySource)
+        && Objects.equals(promotion.getRewardFormula(), rewardSource);
+  }
+
+  private long capMinorUnits(int fractionDigits) {
+    try {
+      return MinorUnits.rescaleDown(maxUnscaled, maxScale, fractionDigits);
+    } catch (ArithmeticException e) {
+      // A cap beyond the long range does not limit anything
+      return maxUnscaled > 0 ? Long.MAX_VALUE : 0;
+    }
+  }
+
+  // Comparing amounts of equal scale skips BigDecimal's rescaling
+  private static BigDecimal prescale(BigDecimal value) {
+    try {
+      return value.setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY);
+    } catch (ArithmeticException e) {
+      return value;
+    }
+  }
+}
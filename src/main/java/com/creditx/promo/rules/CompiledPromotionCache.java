@@ -0,0 +1,47 @@
+package com.creditx.promo.rules;
+
+import com.creditx.promo.model.Promotion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiled promotions keyed by {@code promoId}. An entry is reused while the promotion's
+ * {@code updatedAt} is unchanged and recompiled as soon as a newer version is seen.
+ */
+@Component
+public class CompiledPromotionCache {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<String, CompiledPromotion> compiled = new ConcurrentHashMap<>();
+
+  public CompiledPromotion get(Promotion promotion) {
+    if (promotion.getPromoId() == null) {
+      return CompiledPromotion.compile(promotion, objectMapper);
+    }
+    CompiledPromotion current = compiled.get(promotion.getPromoId());
+    if (current != null && current.isCompiledFrom(promotion)) {
+      return current;
+    }
+    CompiledPromotion fresh = CompiledPromotion.compile(promotion, objectMapper);
+    compiled.put(promotion.getPromoId(), fresh);
+    return fresh;
+  }
+
+  public void invalidate(String promoId) {
+    compiled.remove(promoId);
+  }
+
+  /**
+   * Drop every entry whose promotion is not in {@code livePromoIds}, e.g. after a catalog reload.
+   */
+  public void retainAll(Collection<String> livePromoIds) {
+    compiled.keySet().retainAll(livePromoIds);
+  }
+
+  int size() {
+    return compiled.size();
+  }
+}
@@ -0,0 +1,50 @@
+package com.creditx.promo.scheduler;
+
+import com.creditx.promo.service.CashbackDispatchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CashbackDispatchScheduler {
+
+  private final CashbackDispatchService cashbackDispatchService;
+
+  @Value("${app.cashback.dispatch.batch-size:100}")
+  private int batchSize;
+
+  /**
+   * Deliver pending cashbacks, batch after batch until the backlog is drained.
+   */
+  @Scheduled(fixedDelayString = "${app.cashback.dispatch.interval-ms:200}")
+  public void dispatchPendingCashbacks() {
+    try {
+      int claimed;
+      do {
+        claimed = cashbackDispatchService.dispatchPending(batchSize);
+      } while (claimed >= batchSize);
+    } catch (Exception e) {
+      log.error("Failed to dispatch pending cashbacks: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Park cashbacks whose dispatch claim expired as UNCONFIRMED. Claims only expire when their
+   * owner died or overran the lease, so this runs far less often than the dispatch.
+   */
+  @Scheduled(fixedDelayString = "${app.cashback.dispatch.park-interval-ms:10000}")
+  public void parkExpiredClaims() {
+    try {
+      int parked;
+      do {
+        parked = cashbackDispatchService.parkExpiredClaims(batchSize);
+      } while (parked >= batchSize);
+    } catch (Exception e) {
+      log.error("Failed to park expired cashback claims: {}", e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.creditx.promo.scheduler;
+
+import com.creditx.promo.service.CashbackDispatchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FailedCashbackRetryScheduler {
+
+  private final CashbackDispatchService cashbackDispatchService;
+
+  @Value("${app.cashback.retry.batch-size:100}")
+  private int batchSize;
+
+  /**
+   * Retry failed cashbacks whose backoff has elapsed, batch after batch until none is due.
+   */
+  @Scheduled(fixedDelayString = "${app.cashback.retry.interval-ms:5000}")
+  public void retryFailedCashbacks() {
+    try {
+      int claimed;
+      do {
+        claimed = cashbackDispatchService.retryFailed(batchSize);
+      } while (claimed >= batchSize);
+    } catch (Exception e) {
+      log.error("Failed to retry failed cashbacks: {}", e.getMessage(), e);
+    }
+  }
+}
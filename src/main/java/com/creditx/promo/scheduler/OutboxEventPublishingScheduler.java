@@ -1,55 +1,305 @@
 package com.creditx.promo.scheduler;
 
 import com.creditx.promo.messaging.OutboxStreamPublisher;
+import com.creditx.promo.messaging.OutboxWakeup;
 import com.creditx.promo.model.OutboxEvent;
 import com.creditx.promo.service.OutboxEventService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
 
+/**
+ * Publishes the outbox lanes this instance holds, each from its own thread, so that a lane is
+ * published in order and lanes are published in parallel. Lanes are handed out by
+ * {@link OutboxLaneCoordinator}; a lane whose lease is no longer known to be valid is not
+ * published until it is renewed.
+ *
+ * <p>A lane's worker is woken through {@link OutboxWakeup} as soon as an event of the lane is
+ * committed, and otherwise polls as a safety net for events committed by other instances: at once
+ * after a full batch, after {@code app.outbox.poll.min-interval-ms} after a partial one, and with
+ * the interval doubling up to {@code app.outbox.publish-interval} while the lane stays empty.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-public class OutboxEventPublishingScheduler {
+public class OutboxEventPublishingScheduler implements SmartLifecycle {
 
   private final OutboxEventService outboxEventService;
   private final OutboxStreamPublisher outboxStreamPublisher;
+  private final OutboxWakeup outboxWakeup;
+  private final Timer publishLatency;
 
   @Value("${app.outbox.batch-size}")
   private int batchSize;
 
-  @Scheduled(fixedDelayString = "${app.outbox.publish-interval}")
-  public void publishPendingEvents() {
-    log.debug("Starting outbox event publishing cycle");
-    List<OutboxEvent> events = outboxEventService.fetchPendingEvents(batchSize);
+  @Value("${app.outbox.ack-timeout-ms:10000}")
+  private long ackTimeoutMs = 10_000;
+
+  @Value("${app.outbox.poll.min-interval-ms:50}")
+  private long minIntervalMs = 50;
+
+  @Value("${app.outbox.publish-interval}")
+  private long maxIntervalMs;
+
+  private final Map<Integer, Thread> laneWorkers = new ConcurrentHashMap<>();
+  private final Object lanesLock = new Object();
+  private Set<Integer> assignedLanes = Set.of();
+  private volatile long leasesValidUntilNanos;
+  private volatile boolean running;
+
+  public OutboxEventPublishingScheduler(OutboxEventService outboxEventService,
+      OutboxStreamPublisher outboxStreamPublisher, OutboxWakeup outboxWakeup,
+      MeterRegistry meterRegistry) {
+    this.outboxEventService = outboxEventService;
+    this.outboxStreamPublisher = outboxStreamPublisher;
+    this.outboxWakeup = outboxWakeup;
+    // Measured from CREATED_AT, which the database stamps, to the broker's acknowledgement
+    this.publishLatency = Timer.builder("outbox.publish.latency")
+        .description("Time from outbox insert to broker acknowledgement")
+        .publishPercentileHistogram().register(meterRegistry);
+    this.leasesValidUntilNanos = System.nanoTime();
+    Gauge.builder("outbox.lanes.owned", laneWorkers, Map::size)
+        .description("Outbox lanes published by this instance").register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+    synchronized (lanesLock) {
+      running = true;
+      reconcileWorkers();
+    }
+  }
+
+  @Override
+  public void stop() {
+    synchronized (lanesLock) {
+      running = false;
+      reconcileWorkers();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Publish exactly the given lanes from now on. Workers of lanes no longer assigned finish their
+   * current cycle before this returns, so a lane can be released once it has been unassigned.
+   *
+   * @param validUntilNanos {@link System#nanoTime()} until which the leases are known to be held
+   */
+  public void assignLanes(Collection<Integer> lanes, long validUntilNanos) {
+    synchronized (lanesLock) {
+      // Workers idle while the leases are unconfirmed; let them pick up straight away
+      Set<Integer> idle = System.nanoTime() - leasesValidUntilNanos >= 0
+          ? Set.copyOf(laneWorkers.keySet()) : Set.of();
+      leasesValidUntilNanos = validUntilNanos;
+      assignedLanes = Set.copyOf(lanes);
+      reconcileWorkers();
+      idle.stream().filter(laneWorkers::containsKey).forEach(outboxWakeup::signal);
+    }
+  }
+
+  /**
+   * @return lanes currently being published by this instance
+   */
+  public Set<Integer> activeLanes() {
+    return Set.copyOf(laneWorkers.keySet());
+  }
+
+  private void reconcileWorkers() {
+    Set<Integer> wanted = running ? assignedLanes : Set.of();
+    List<Thread> stopping = new ArrayList<>();
+    for (Integer lane : List.copyOf(laneWorkers.keySet())) {
+      if (!wanted.contains(lane)) {
+        // Removed before the signal, so that the woken worker sees it has to stop
+        stopping.add(laneWorkers.remove(lane));
+        outboxWakeup.signal(lane);
+      }
+    }
+    stopping.forEach(this::awaitTermination);
+    boolean changed = !stopping.isEmpty();
+    for (Integer lane : wanted) {
+      if (!laneWorkers.containsKey(lane)) {
+        Thread worker = Thread.ofPlatform().name("outbox-lane-" + lane).daemon()
+            .unstarted(() -> runPublishLoop(lane));
+        laneWorkers.put(lane, worker);
+        worker.start();
+        changed = true;
+      }
+    }
+    if (changed) {
+      log.info("Publishing outbox lanes {}", new TreeSet<>(laneWorkers.keySet()));
+    }
+  }
+
+  private void awaitTermination(Thread worker) {
+    try {
+      worker.join(Duration.ofMillis(ackTimeoutMs + maxIntervalMs));
+      if (worker.isAlive()) {
+        // Its claims expire and are published again by the lane's next owner
+        log.warn("{} did not finish its cycle in time, interrupting it", worker.getName());
+        worker.interrupt();
+        worker.join(Duration.ofMillis(ackTimeoutMs));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  void runPublishLoop(int lane) {
+    long intervalMs = minIntervalMs;
+    while (laneWorkers.get(lane) == Thread.currentThread()) {
+      try {
+        if (System.nanoTime() - leasesValidUntilNanos >= 0) {
+          // Another instance may have taken the lane over; wait for the lease to be renewed
+          outboxWakeup.await(lane, Duration.ofMillis(maxIntervalMs));
+          continue;
+        }
+        int claimed = publishPendingEvents(lane);
+        if (claimed >= batchSize) {
+          // Backlog: publish the next batch straight away
+          continue;
+        }
+        intervalMs = nextInterval(intervalMs, claimed);
+        outboxWakeup.await(lane, Duration.ofMillis(intervalMs));
+      } catch (InterruptedException e) {
+        return;
+      } catch (Exception e) {
+        log.error("Publishing cycle of outbox lane {} failed: {}", lane, e.getMessage(), e);
+        intervalMs = maxIntervalMs;
+        try {
+          outboxWakeup.await(lane, Duration.ofMillis(intervalMs));
+        } catch (InterruptedException ie) {
+          return;
+        }
+      }
+    }
+  }
+
+  long nextInterval(long intervalMs, int claimed) {
+    if (claimed > 0) {
+      return minIntervalMs;
+    }
+    return Math.min(maxIntervalMs, Math.max(minIntervalMs, intervalMs * 2));
+  }
+
+  /**
+   * Publish a batch of claimed events with at most one unacknowledged send per aggregate. The
+   * batch goes out in rounds: each round sends the next event of every aggregate, so aggregates
+   * are published in parallel, and awaits the acknowledgements before an aggregate's following
+   * event is sent. An event that fails or is not acknowledged in time is retried after a backoff
+   * and holds back the later events of its aggregate: they are released, but not claimed again
+   * until it has been published, so they are never published ahead of it. If it runs out of
+   * attempts it is marked FAILED and they stay PENDING behind it. The outcomes are written with one
+   * update per status.
+   *
+   * @return number of events claimed
+   */
+  public int publishPendingEvents(int lane) {
+    log.debug("Starting publishing cycle of outbox lane {}", lane);
+    List<OutboxEvent> events = outboxEventService.fetchPendingEvents(lane, batchSize);
 
     if (events.isEmpty()) {
-      log.debug("No pending outbox events to publish");
-      return;
+      log.debug("No pending outbox events to publish in lane {}", lane);
+      return 0;
     }
 
-    log.info("Publishing {} pending outbox events", events.size());
-    int successCount = 0;
-    int failureCount = 0;
+    log.info("Publishing {} pending outbox events of lane {}", events.size(), lane);
+    List<Long> published = new ArrayList<>(events.size());
+    List<Long> failed = new ArrayList<>();
+    List<Long> retried = new ArrayList<>();
+    List<Long> heldBack = new ArrayList<>();
 
+    // Events still to send per aggregate, in claim order
+    Map<Long, Deque<OutboxEvent>> pending = new LinkedHashMap<>();
     for (OutboxEvent event : events) {
-      try {
+      if (event.getAggregateId() == null) {
+        // The aggregate ID is the record key; without it the event cannot be ordered
+        log.error("Outbox event {} has no aggregate ID", event.getEventId());
+        failed.add(event.getEventId());
+        continue;
+      }
+      pending.computeIfAbsent(event.getAggregateId(), id -> new ArrayDeque<>()).add(event);
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+    while (!pending.isEmpty() && !Thread.currentThread().isInterrupted()) {
+      if (System.nanoTime() - deadline >= 0) {
+        // Out of time for this cycle; the rest goes out in the next one
+        pending.values().forEach(queue -> queue.forEach(e -> heldBack.add(e.getEventId())));
+        break;
+      }
+      List<OutboxEvent> sent = new ArrayList<>(pending.size());
+      List<CompletableFuture<Void>> acks = new ArrayList<>(pending.size());
+      for (Deque<OutboxEvent> queue : pending.values()) {
+        OutboxEvent event = queue.removeFirst();
         log.debug("Publishing event {} of type {}", event.getEventId(), event.getEventType());
-        outboxStreamPublisher.publish(event.getAggregateId().toString(), event.getPayload(),
-            event.getEventType());
-        outboxEventService.markAsPublished(event);
-        successCount++;
-        log.debug("Successfully published event {}", event.getEventId());
-      } catch (Exception e) {
-        log.error("Failed to publish event {}: {}", event.getEventId(), e.getMessage(), e);
-        outboxEventService.markAsFailed(event);
-        failureCount++;
+        sent.add(event);
+        acks.add(outboxStreamPublisher.publishAsync(event.getEventId(),
+            event.getAggregateId().toString(), event.getPayload(), event.getEventType()));
+      }
+      for (int i = 0; i < sent.size(); i++) {
+        OutboxEvent event = sent.get(i);
+        CompletableFuture<Void> ack = acks.get(i);
+        try {
+          ack.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+          published.add(event.getEventId());
+          recordLatency(event);
+          if (pending.get(event.getAggregateId()).isEmpty()) {
+            pending.remove(event.getAggregateId());
+          }
+        } catch (ExecutionException | TimeoutException e) {
+          Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+          log.error("Failed to publish event {}: {}", event.getEventId(), cause.getMessage(),
+              cause);
+          ack.cancel(false);
+          retried.add(event.getEventId());
+          pending.remove(event.getAggregateId()).forEach(later -> heldBack.add(later.getEventId()));
+        } catch (InterruptedException e) {
+          // Leave the rest claimed; their lease expires and they are published again
+          Thread.currentThread().interrupt();
+          break;
+        }
       }
     }
 
-    log.info("Outbox publishing completed: {} successful, {} failed", successCount, failureCount);
+    outboxEventService.markAllAsPublished(published);
+    outboxEventService.markAllAsFailed(failed);
+    // Retried before the release, so that the held-back events are not claimable in between
+    outboxEventService.retryLater(retried);
+    outboxEventService.releaseClaims(heldBack);
+    log.info("Outbox publishing completed: {} successful, {} failed, {} to retry, {} held back",
+        published.size(), failed.size(), retried.size(), heldBack.size());
+    return events.size();
+  }
+
+  private void recordLatency(OutboxEvent event) {
+    if (event.getCreatedAt() != null) {
+      Duration latency = Duration.between(event.getCreatedAt(), Instant.now());
+      if (!latency.isNegative()) {
+        publishLatency.record(latency);
+      }
+    }
   }
 }
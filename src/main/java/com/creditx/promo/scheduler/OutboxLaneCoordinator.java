@@ -0,0 +1,98 @@
+package com.creditx.promo.scheduler;
+
+import com.creditx.promo.repository.OutboxLaneLeaseRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Spreads the outbox lanes over the running instances. Every heartbeat the instance records that
+ * it is alive, renews the leases it holds and moves towards its fair share of the lanes: surplus
+ * lanes are stopped and released, missing ones are taken from instances whose leases expired.
+ * The lanes held are handed to {@link OutboxEventPublishingScheduler}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxLaneCoordinator implements DisposableBean {
+
+  private final OutboxLaneLeaseRepository outboxLaneLeaseRepository;
+  private final OutboxEventPublishingScheduler outboxEventPublishingScheduler;
+  // Owner recorded on this instance's leases
+  private final String nodeId = UUID.randomUUID().toString();
+
+  @Value("${app.outbox.lanes.count:16}")
+  private int laneCount = 16;
+
+  @Value("${app.outbox.lanes.lease-ms:15000}")
+  private long leaseMs = 15_000;
+
+  private volatile boolean lanesCreated;
+  private volatile List<Integer> heldLanes = List.of();
+
+  @Scheduled(fixedDelayString = "${app.outbox.lanes.heartbeat-ms:3000}")
+  public void rebalance() {
+    Duration lease = Duration.ofMillis(leaseMs);
+    // Taken before the renewal so that the local deadline never outlives the database lease
+    long validUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMs);
+    try {
+      if (!lanesCreated) {
+        outboxLaneLeaseRepository.ensureLanes(laneCount);
+        lanesCreated = true;
+      }
+      outboxLaneLeaseRepository.heartbeat(nodeId, lease);
+      List<Integer> held = new ArrayList<>(
+          outboxLaneLeaseRepository.renew(nodeId, lease, laneCount));
+      int share = fairShare(laneCount, outboxLaneLeaseRepository.countLiveNodes(lease));
+      if (held.size() > share) {
+        List<Integer> surplus = List.copyOf(held.subList(share, held.size()));
+        held = new ArrayList<>(held.subList(0, share));
+        // Stop publishing the surplus before another instance can take it over
+        outboxEventPublishingScheduler.assignLanes(held, validUntil);
+        outboxLaneLeaseRepository.release(nodeId, surplus);
+        log.info("Released outbox lanes {} to rebalance", surplus);
+      } else if (held.size() < share) {
+        List<Integer> acquired = outboxLaneLeaseRepository.acquire(nodeId, lease, laneCount,
+            share - held.size());
+        if (!acquired.isEmpty()) {
+          log.info("Acquired outbox lanes {}", acquired);
+          held.addAll(acquired);
+        }
+      }
+      heldLanes = List.copyOf(held);
+      outboxEventPublishingScheduler.assignLanes(held, validUntil);
+    } catch (Exception e) {
+      // Workers stop by themselves once the last renewed leases run out
+      log.error("Failed to renew outbox lane leases: {}", e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    outboxEventPublishingScheduler.assignLanes(List.of(), System.nanoTime());
+    List<Integer> held = heldLanes;
+    heldLanes = List.of();
+    try {
+      outboxLaneLeaseRepository.release(nodeId, held);
+    } catch (Exception e) {
+      log.warn("Failed to release outbox lanes {}; they are taken over once the leases expire",
+          held, e);
+    }
+  }
+
+  /**
+   * @return lanes each of {@code liveNodes} instances should hold
+   */
+  static int fairShare(int laneCount, int liveNodes) {
+    int nodes = Math.max(1, liveNodes);
+    return (laneCount + nodes - 1) / nodes;
+  }
+}
@@ -0,0 +1,27 @@
+package com.creditx.promo.scheduler;
+
+import com.creditx.promo.cache.ProcessedEventCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedEventCacheSyncScheduler {
+
+  private final ProcessedEventCache processedEventCache;
+
+  /**
+   * Warm the dedup cache on the first run, then pull markers written by other instances.
+   */
+  @Scheduled(fixedDelayString = "${app.dedup.cache.sync-interval-ms:5000}")
+  public void synchronize() {
+    try {
+      processedEventCache.synchronize();
+    } catch (Exception e) {
+      log.error("Failed to synchronize the processed-event cache: {}", e.getMessage(), e);
+    }
+  }
+}
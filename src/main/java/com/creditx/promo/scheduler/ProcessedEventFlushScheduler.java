@@ -0,0 +1,31 @@
+package com.creditx.promo.scheduler;
+
+import com.creditx.promo.service.ProcessedEventService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Time threshold of the processed-event write-behind buffer. Registered only when write-behind
+ * is enabled; the record and batch listeners flush on their own thread, so this mostly bounds
+ * how long the parallel listener's markers stay buffered.
+ */
+@Service
+@ConditionalOnProperty(name = "app.dedup.write-behind.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedEventFlushScheduler {
+
+  private final ProcessedEventService processedEventService;
+
+  @Scheduled(fixedDelayString = "${app.dedup.write-behind.max-delay-ms:50}")
+  public void flushPendingMarkers() {
+    try {
+      processedEventService.flushPendingMarkers();
+    } catch (Exception e) {
+      log.error("Failed to flush processed-event markers: {}", e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.creditx.promo.scheduler;
+
+import com.creditx.promo.catalog.PromotionCatalog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionCatalogRefreshScheduler {
+
+  private final PromotionCatalog promotionCatalog;
+
+  /**
+   * Pull promotions created or changed since the last refresh into the in-memory catalog.
+   */
+  @Scheduled(fixedDelayString = "${app.promotions.catalog.refresh-interval-ms:5000}")
+  public void refresh() {
+    try {
+      promotionCatalog.refresh();
+    } catch (Exception e) {
+      log.error("Failed to refresh the promotion catalog: {}", e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.creditx.promo.scheduler;
+
+import com.creditx.promo.service.RetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RetentionScheduler {
+
+  private final RetentionService retentionService;
+
+  @Value("${app.retention.enabled:true}")
+  private boolean enabled = true;
+
+  /**
+   * Drop the event-table partitions that fell out of their retention window.
+   */
+  @Scheduled(fixedDelayString = "${app.retention.interval-ms:3600000}",
+      initialDelayString = "${app.retention.initial-delay-ms:60000}")
+  public void purgeExpiredPartitions() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      int purged = retentionService.purgeExpiredPartitions();
+      if (purged > 0) {
+        log.info("Reclaimed {} expired event partitions", purged);
+      }
+    } catch (Exception e) {
+      log.error("Failed to purge expired event partitions: {}", e.getMessage(), e);
+    }
+  }
+}
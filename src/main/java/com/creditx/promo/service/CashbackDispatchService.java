@@ -0,0 +1,29 @@
+package com.creditx.promo.service;
+
+public interface CashbackDispatchService {
+
+  /**
+   * Claim up to {@code limit} PENDING promotion applications, post their cashback to credit-main
+   * and record each outcome as APPLIED or FAILED.
+   *
+   * @return number of applications claimed
+   */
+  int dispatchPending(int limit);
+
+  /**
+   * Claim up to {@code limit} FAILED promotion applications whose backoff has elapsed and post
+   * their cashback again. One that still fails is scheduled for a later retry, or ABANDONED once
+   * it has used all its attempts.
+   *
+   * @return number of applications claimed
+   */
+  int retryFailed(int limit);
+
+  /**
+   * Move up to {@code limit} applications whose dispatch claim expired to UNCONFIRMED, unless
+   * expired claims are dispatched again ({@code app.cashback.dispatch.redispatch-expired-claims}).
+   *
+   * @return number of applications moved
+   */
+  int parkExpiredClaims(int limit);
+}
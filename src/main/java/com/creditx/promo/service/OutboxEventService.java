@@ -1,15 +1,53 @@
 package com.creditx.promo.service;
 
+import com.creditx.promo.dto.OutboxEventDTO;
 import com.creditx.promo.model.OutboxEvent;
+import java.util.Collection;
 import java.util.List;
 
 public interface OutboxEventService {
 
+  /**
+   * Save a PENDING event to be published by its lane. Called in the transaction that changes the
+   * aggregate, so the event is committed with the change or not at all.
+   */
   OutboxEvent saveEvent(String eventType, Long aggregateId, String payload);
 
-  List<OutboxEvent> fetchPendingEvents(int limit);
+  /**
+   * Save several PENDING events in one go: ids are taken from the pooled sequence block and the
+   * rows are inserted in JDBC batches. Only type, aggregate ID and payload of each DTO are used.
+   *
+   * @return the saved events, in the order given
+   */
+  List<OutboxEvent> saveEvents(List<OutboxEventDTO> events);
 
-  void markAsPublished(OutboxEvent event);
+  /**
+   * Claim up to {@code limit} PENDING events of {@code lane} for this instance and load them.
+   * Other instances skip claimed events until the claim lease expires.
+   *
+   * @return the claimed events, oldest first
+   */
+  List<OutboxEvent> fetchPendingEvents(int lane, int limit);
 
-  void markAsFailed(OutboxEvent event);
+  /**
+   * Mark the given events PUBLISHED with one set-based update per chunk of IDs.
+   */
+  void markAllAsPublished(Collection<Long> eventIds);
+
+  /**
+   * Mark the given events FAILED with one set-based update per chunk of IDs.
+   */
+  void markAllAsFailed(Collection<Long> eventIds);
+
+  /**
+   * Return the given claimed events to PENDING so the next cycle publishes them.
+   */
+  void releaseClaims(Collection<Long> eventIds);
+
+  /**
+   * Count a failed send for each of the given claimed events: it is published again after a
+   * backoff, with the later events of its aggregate held back until then, or marked FAILED once it
+   * used {@code app.outbox.retry.max-attempts}.
+   */
+  void retryLater(Collection<Long> eventIds);
 }
\ No newline at end of file
@@ -1,5 +1,11 @@
 package com.creditx.promo.service;
 
+import com.creditx.promo.model.ProcessedEvent;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 public interface ProcessedEventService {
 
   /**
@@ -11,19 +17,54 @@ public interface ProcessedEventService {
   boolean isEventProcessed(String eventId);
 
   /**
-   * Mark an event as processed
+   * Mark an event as processed. In write-behind mode the marker is buffered once the surrounding
+   * transaction commits and written by a later batch insert; see
+   * {@link #takePendingMarkerWrites()}.
    *
    * @param eventId     unique identifier for the event
    * @param payloadHash hash of the event payload for additional deduplication
    * @param status      status of the processed event
    */
-  void markEventAsProcessed(String eventId, String payloadHash, String status);
+  void markEventAsProcessed(String eventId, byte[] payloadHash, String status);
 
   /**
-   * Check if an event with the same payload hash has been processed
+   * Check if an event with the same payload hash has been processed, using the index on
+   * {@code PAYLOAD_HASH}
    *
-   * @param payloadHash hash of the event payload
+   * @param payloadHash hash of the event payload, as produced by
+   *                    {@link com.creditx.promo.hashing.PayloadHasher}
    * @return true if payload was already processed, false otherwise
    */
-  boolean isPayloadProcessed(String payloadHash);
+  boolean isPayloadProcessed(byte[] payloadHash);
+
+  /**
+   * Find which of the given events have already been processed, using one IN-list query per
+   * chunk of ids
+   *
+   * @param eventIds unique identifiers of the events
+   * @return the subset of {@code eventIds} that was already processed
+   */
+  Set<String> findProcessedEventIds(Collection<String> eventIds);
+
+  /**
+   * Mark several events as processed with a single batch insert
+   *
+   * @param processedEvents markers to persist
+   */
+  void markEventsAsProcessed(List<ProcessedEvent> processedEvents);
+
+  /**
+   * Write buffered markers now instead of waiting for the size or time threshold. No-op unless
+   * write-behind is enabled.
+   */
+  void flushPendingMarkers();
+
+  /**
+   * Take the markers written by the calling thread since the previous call. The offset of the
+   * record that produced them must not be acknowledged before the returned future completes.
+   *
+   * @return future completed once those markers are durable, or exceptionally if they could not
+   *     be written
+   */
+  CompletableFuture<Void> takePendingMarkerWrites();
 }
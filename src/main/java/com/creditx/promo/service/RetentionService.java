@@ -0,0 +1,14 @@
+package com.creditx.promo.service;
+
+public interface RetentionService {
+
+  /**
+   * Reclaim the day partitions of {@code CPRS_PROCESSED_EVENTS} and {@code CPRS_OUTBOX_EVENTS}
+   * that lie entirely outside their retention window, by dropping them (or truncating the initial
+   * range partition, which cannot be dropped). An outbox partition that still holds PENDING events
+   * is kept.
+   *
+   * @return number of partitions reclaimed
+   */
+  int purgeExpiredPartitions();
+}
@@ -1,8 +1,17 @@
 package com.creditx.promo.service;
 
 import com.creditx.promo.dto.TransactionPostedEvent;
+import java.util.List;
 
 public interface TransactionEventService {
 
   void processTransactionPosted(TransactionPostedEvent event);
+
+  /**
+   * Process a batch of posted transactions in one transaction: one dedup query, one promotion
+   * query and batched inserts for applications and processed-event markers.
+   *
+   * @param events events in consumption order
+   */
+  void processTransactionPostedBatch(List<TransactionPostedEvent> events);
 }
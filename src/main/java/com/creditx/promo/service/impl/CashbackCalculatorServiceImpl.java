@@ -2,32 +2,38 @@ package com.creditx.promo.service.impl;
 
 import com.creditx.promo.dto.TransactionPostedEvent;
 import com.creditx.promo.model.Promotion;
+import com.creditx.promo.rules.CompiledPromotionCache;
 import com.creditx.promo.service.CashbackCalculatorService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.creditx.promo.util.MinorUnits;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class CashbackCalculatorServiceImpl implements CashbackCalculatorService {
 
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final CompiledPromotionCache compiledPromotionCache;
 
+  @Value("${app.cashback.rounding-mode:HALF_UP}")
+  private RoundingMode roundingMode = RoundingMode.HALF_UP;
+
+  /**
+   * Computed in the currency's minor units with {@code app.cashback.rounding-mode}; the result has
+   * the currency's scale.
+   */
   @Override
   public BigDecimal calculate(TransactionPostedEvent event, Promotion promotion) {
     try {
-      JsonNode root = objectMapper.readTree(promotion.getRewardFormula());
-      BigDecimal pct = root.path("cashbackPercent").decimalValue();
-      BigDecimal max = root.path("maxCashback").decimalValue();
-      BigDecimal cashback = event.getAmount().multiply(pct).divide(new BigDecimal("100"));
-      if (cashback.compareTo(max) > 0) {
-        cashback = max;
-      }
-      if (cashback.compareTo(BigDecimal.ZERO) < 0) {
-        cashback = BigDecimal.ZERO;
-      }
-      return cashback;
-    } catch (Exception e) {
+      return compiledPromotionCache.get(promotion).cashback(event.getAmount(),
+          MinorUnits.fractionDigits(event.getCurrency()), roundingMode);
+    } catch (ArithmeticException e) {
+      log.warn("Cashback calculation failed for promo {} txn {}: {}", promotion.getPromoId(),
+          event.getTransactionId(), e.getMessage());
       return BigDecimal.ZERO;
     }
   }
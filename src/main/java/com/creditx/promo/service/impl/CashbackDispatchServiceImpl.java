@@ -0,0 +1,357 @@
+package com.creditx.promo.service.impl;
+
+import com.creditx.promo.model.PromotionApplication;
+import com.creditx.promo.model.PromotionApplicationStatus;
+import com.creditx.promo.repository.PromotionApplicationRepository;
+import com.creditx.promo.resilience.CallNotPermittedException;
+import com.creditx.promo.resilience.CircuitBreaker;
+import com.creditx.promo.service.CashbackDispatchService;
+import com.creditx.promo.util.BatchUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Delivers cashbacks recorded as PENDING applications. No database connection is held while
+ * credit-main is called: rows are claimed with a short lease in one transaction and the outcomes
+ * are written afterwards in one batch, guarded by the claim.
+ *
+ * <p>A claim whose owner dies expires, possibly after its cashback was posted. Sending it again
+ * is only safe if credit-main drops a repeated request carrying the same {@code Idempotency-Key}
+ * header, so by default such applications are moved to UNCONFIRMED for confirmation instead.
+ * {@code app.cashback.dispatch.redispatch-expired-claims} claims and sends them again.
+ *
+ * <p>With {@code app.cashback.dispatch.bulk-enabled}, each poll's claim is the batching window:
+ * its applications are sent to {@code bulk-path} in chunks of {@code bulk-max-items}. credit-main
+ * does not offer a bulk endpoint yet, so this is off by default. If the endpoint is missing (404,
+ * 405 or 501), single calls are used until {@code bulk-retry-ms} has passed.
+ *
+ * <p>A FAILED application is retried by {@link #retryFailed} with exponential backoff until it
+ * is APPLIED or has used {@code app.cashback.retry.max-attempts}, after which it is ABANDONED.
+ *
+ * <p>While the credit-main circuit is open nothing is claimed, and calls rejected by the circuit
+ * breaker or the concurrency limiter return their applications to PENDING rather than FAILED.
+ * The Kafka consumer keeps recording applications meanwhile; they wait here as PENDING.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CashbackDispatchServiceImpl implements CashbackDispatchService {
+
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  static final String CASHBACK_PATH = "/api/transactions/cashback";
+
+  private final RestTemplate restTemplate;
+  private final PromotionApplicationRepository promotionApplicationRepository;
+  private final CircuitBreaker creditMainCircuitBreaker;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  // Owner recorded on this instance's claims
+  private final String dispatcherId = UUID.randomUUID().toString();
+
+  @Value("${app.cashback.dispatch.lease-ms:60000}")
+  private long leaseMs;
+
+  // Relies on credit-main deduplicating on the Idempotency-Key header
+  @Value("${app.cashback.dispatch.redispatch-expired-claims:false}")
+  private boolean redispatchExpiredClaims;
+
+  @Value("${app.cashback.dispatch.bulk-enabled:false}")
+  private boolean bulkEnabled;
+
+  @Value("${app.cashback.dispatch.bulk-path:/api/transactions/cashback/bulk}")
+  private String bulkPath = "/api/transactions/cashback/bulk";
+
+  @Value("${app.cashback.dispatch.bulk-max-items:100}")
+  private int bulkMaxItems = 100;
+
+  @Value("${app.cashback.dispatch.bulk-retry-ms:600000}")
+  private long bulkRetryMs = 600_000;
+
+  @Value("${app.cashback.retry.max-attempts:8}")
+  private int maxAttempts = 8;
+
+  @Value("${app.cashback.retry.initial-backoff-ms:5000}")
+  private long initialBackoffMs = 5_000;
+
+  @Value("${app.cashback.retry.max-backoff-ms:3600000}")
+  private long maxBackoffMs = 3_600_000;
+
+  // System.nanoTime() before which the bulk endpoint is not tried again
+  private volatile long bulkUnavailableUntil;
+  private volatile boolean bulkUnavailable;
+
+  @Override
+  public int dispatchPending(int limit) {
+    if (!creditMainCircuitBreaker.isCallPermitted()) {
+      // Leave the backlog PENDING instead of failing it against a service known to be down
+      log.debug("Circuit to credit-main is open; not dispatching");
+      return 0;
+    }
+    List<UUID> claimed = promotionApplicationRepository.claimPending(dispatcherId,
+        Duration.ofMillis(leaseMs), limit, redispatchExpiredClaims);
+    dispatchClaimed(claimed);
+    return claimed.size();
+  }
+
+  @Override
+  public int retryFailed(int limit) {
+    if (!creditMainCircuitBreaker.isCallPermitted()) {
+      log.debug("Circuit to credit-main is open; not retrying");
+      return 0;
+    }
+    List<UUID> claimed = promotionApplicationRepository.claimRetryable(dispatcherId,
+        Duration.ofMillis(leaseMs), limit, redispatchExpiredClaims);
+    if (!claimed.isEmpty()) {
+      log.info("Retrying {} failed cashbacks", claimed.size());
+    }
+    dispatchClaimed(claimed);
+    return claimed.size();
+  }
+
+  @Override
+  public int parkExpiredClaims(int limit) {
+    if (redispatchExpiredClaims) {
+      // Expired claims are claimed again by dispatchPending and retryFailed instead
+      return 0;
+    }
+    int parked = promotionApplicationRepository.markExpiredClaimsUnconfirmed(limit);
+    if (parked > 0) {
+      log.warn("{} cashbacks whose dispatch claim expired moved to UNCONFIRMED; confirm them with"
+          + " credit-main before dispatching them again", parked);
+    }
+    return parked;
+  }
+
+  private void dispatchClaimed(List<UUID> claimed) {
+    if (claimed.isEmpty()) {
+      return;
+    }
+    List<PromotionApplication> applications = promotionApplicationRepository.findAllById(claimed);
+    log.debug("Dispatching {} claimed cashbacks", applications.size());
+    // Calls only wait on credit-main, so each gets its own virtual thread
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      if (useBulk(applications.size())) {
+        for (List<PromotionApplication> chunk : BatchUtils.partition(applications,
+            bulkMaxItems)) {
+          executor.execute(() -> dispatchBulk(chunk));
+        }
+      } else {
+        dispatchEach(executor, applications);
+      }
+    }
+  }
+
+  private void dispatchEach(ExecutorService executor, List<PromotionApplication> applications) {
+    for (PromotionApplication application : applications) {
+      executor.execute(() -> {
+        dispatch(application);
+        complete(List.of(application));
+      });
+    }
+  }
+
+  private boolean useBulk(int count) {
+    if (!bulkEnabled || count < 2) {
+      return false;
+    }
+    if (bulkUnavailable && System.nanoTime() - bulkUnavailableUntil < 0) {
+      return false;
+    }
+    bulkUnavailable = false;
+    return true;
+  }
+
+  private void dispatchBulk(List<PromotionApplication> chunk) {
+    try {
+      Map<String, JsonNode> results = postBulkCashback(chunk);
+      for (PromotionApplication application : chunk) {
+        JsonNode result = results.get(application.getIdempotencyKey());
+        if (result != null && result.path("success").asBoolean(false)) {
+          application.setStatus(PromotionApplicationStatus.APPLIED);
+          application.setReason(null);
+        } else {
+          application.setStatus(PromotionApplicationStatus.FAILED);
+          application.setReason(result == null ? "BulkResult:missing"
+              : "BulkResult:" + result.path("error").asText("failed"));
+        }
+      }
+    } catch (CallNotPermittedException e) {
+      chunk.forEach(application -> releaseForRetry(application, e));
+    } catch (HttpStatusCodeException e) {
+      if (!isBulkUnsupported(e)) {
+        failAll(chunk, e);
+      } else {
+        log.warn("Bulk cashback endpoint unavailable ({}), using single calls for {} ms",
+            e.getStatusCode(), bulkRetryMs);
+        bulkUnavailableUntil = System.nanoTime() + Duration.ofMillis(bulkRetryMs).toNanos();
+        bulkUnavailable = true;
+        // Concurrently, like any single calls: one after another they could outlast the lease
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+          dispatchEach(executor, chunk);
+        }
+        return;
+      }
+    } catch (Exception e) {
+      failAll(chunk, e);
+    }
+    complete(chunk);
+  }
+
+  private void dispatch(PromotionApplication application) {
+    try {
+      postCashback(application);
+      application.setStatus(PromotionApplicationStatus.APPLIED);
+      application.setReason(null);
+    } catch (CallNotPermittedException e) {
+      releaseForRetry(application, e);
+    } catch (Exception e) {
+      log.error("Cashback creation failed for promo {} txn {}", application.getPromoId(),
+          application.getTransactionId(), e);
+      application.setStatus(PromotionApplicationStatus.FAILED);
+      application.setReason(e.getClass().getSimpleName() + ":" + e.getMessage());
+    }
+  }
+
+  // Not sent: back to PENDING, to be claimed again by a later round
+  private void releaseForRetry(PromotionApplication application, CallNotPermittedException e) {
+    log.debug("Cashback for promo {} txn {} not sent: {}", application.getPromoId(),
+        application.getTransactionId(), e.getMessage());
+    application.setStatus(PromotionApplicationStatus.PENDING);
+    application.setReason(null);
+  }
+
+  private void failAll(List<PromotionApplication> chunk, Exception e) {
+    log.error("Bulk cashback creation failed for {} applications", chunk.size(), e);
+    for (PromotionApplication application : chunk) {
+      application.setStatus(PromotionApplicationStatus.FAILED);
+      application.setReason(e.getClass().getSimpleName() + ":" + e.getMessage());
+    }
+  }
+
+  private void complete(List<PromotionApplication> applications) {
+    applications.forEach(this::recordAttempt);
+    try {
+      int recorded = promotionApplicationRepository.completeDispatches(applications,
+          dispatcherId);
+      if (recorded < applications.size()) {
+        log.warn("{} of {} dispatch outcomes not recorded: claim expired",
+            applications.size() - recorded, applications.size());
+      }
+    } catch (Exception e) {
+      // The claims expire and the applications become UNCONFIRMED, or are dispatched again
+      // under the same keys if redispatch-expired-claims is set
+      log.error("Failed to record the outcome of {} dispatched applications",
+          applications.size(), e);
+    }
+  }
+
+  // A call that was made counts as an attempt; a failed one is retried until maxAttempts
+  private void recordAttempt(PromotionApplication application) {
+    if (application.getStatus() == PromotionApplicationStatus.PENDING) {
+      return;
+    }
+    int attempts = (application.getAttempts() == null ? 0 : application.getAttempts()) + 1;
+    application.setAttempts(attempts);
+    application.setNextRetryAt(null);
+    if (application.getStatus() != PromotionApplicationStatus.FAILED) {
+      return;
+    }
+    if (attempts >= maxAttempts) {
+      log.warn("Abandoning cashback for promo {} txn {} after {} attempts: {}",
+          application.getPromoId(), application.getTransactionId(), attempts,
+          application.getReason());
+      application.setStatus(PromotionApplicationStatus.ABANDONED);
+    } else {
+      application.setNextRetryAt(Instant.now().plusMillis(backoffMs(attempts)));
+    }
+  }
+
+  /**
+   * Exponential backoff with equal jitter: half of the delay is fixed, the other half random, so
+   * retries of applications that failed together spread out without ever coming early.
+   */
+  long backoffMs(int attempts) {
+    long delay = initialBackoffMs << Math.min(attempts - 1, 30);
+    if (delay <= 0 || delay > maxBackoffMs) {
+      delay = maxBackoffMs;
+    }
+    long half = delay / 2;
+    return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+  }
+
+  private static boolean isBulkUnsupported(HttpStatusCodeException e) {
+    return e.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)
+        || e.getStatusCode().isSameCodeAs(HttpStatus.METHOD_NOT_ALLOWED)
+        || e.getStatusCode().isSameCodeAs(HttpStatus.NOT_IMPLEMENTED);
+  }
+
+  private void postCashback(PromotionApplication application) throws JsonProcessingException {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set(IDEMPOTENCY_KEY_HEADER, application.getIdempotencyKey());
+    var entity = new HttpEntity<>(objectMapper.writeValueAsString(request(application)),
+        headers);
+    // Relative to app.creditmain.url, the root URI of the credit-main RestTemplate
+    restTemplate.postForEntity(CASHBACK_PATH, entity, String.class);
+  }
+
+  /**
+   * Proposed bulk contract, not yet provided by credit-main:
+   * {@code {"items":[{"idempotencyKey":..., <single request fields>}]}} answered by
+   * {@code {"results":[{"idempotencyKey":..., "success":true|false, "error":...}]}}.
+   *
+   * @return results keyed by idempotency key
+   */
+  private Map<String, JsonNode> postBulkCashback(List<PromotionApplication> chunk)
+      throws JsonProcessingException {
+    List<Map<String, Object>> items = new ArrayList<>(chunk.size());
+    for (PromotionApplication application : chunk) {
+      Map<String, Object> item = request(application);
+      item.put("idempotencyKey", application.getIdempotencyKey());
+      items.add(item);
+    }
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    var entity = new HttpEntity<>(objectMapper.writeValueAsString(Map.of("items", items)),
+        headers);
+    String response = restTemplate.postForObject(bulkPath, entity, String.class);
+    Map<String, JsonNode> results = new HashMap<>();
+    if (response != null) {
+      for (JsonNode result : objectMapper.readTree(response).path("results")) {
+        results.put(result.path("idempotencyKey").asText(), result);
+      }
+    }
+    return results;
+  }
+
+  // Matches CreateCashbackTransactionRequest in main service
+  private static Map<String, Object> request(PromotionApplication application) {
+    var request = new HashMap<String, Object>();
+    // We invert issuer/merchant to credit original issuer (customer) and debit merchant
+    request.put("issuerAccountId", application.getMerchantId());
+    request.put("merchantAccountId", application.getIssuerId());
+    request.put("amount", application.getCashbackAmount());
+    request.put("currency", application.getCurrency());
+    return request;
+  }
+}
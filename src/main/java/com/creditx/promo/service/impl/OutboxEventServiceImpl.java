@@ -1,15 +1,27 @@
 package com.creditx.promo.service.impl;
 
+import com.creditx.promo.dto.OutboxEventDTO;
+import com.creditx.promo.messaging.OutboxWakeup;
 import com.creditx.promo.model.OutboxEvent;
 import com.creditx.promo.model.OutboxEventStatus;
 import com.creditx.promo.repository.OutboxEventRepository;
 import com.creditx.promo.service.OutboxEventService;
 import jakarta.transaction.Transactional;
-import java.time.Instant;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @RequiredArgsConstructor
@@ -17,43 +29,129 @@ import org.springframework.stereotype.Service;
 public class OutboxEventServiceImpl implements OutboxEventService {
 
   private final OutboxEventRepository repository;
+  private final OutboxWakeup outboxWakeup;
+  // Owner recorded on this instance's claims
+  private final String publisherId = UUID.randomUUID().toString();
+
+  @Value("${app.outbox.claim-lease-ms:30000}")
+  private long claimLeaseMs;
+
+  @Value("${app.outbox.lanes.count:16}")
+  private int laneCount = 16;
+
+  @Value("${app.outbox.retry.max-attempts:8}")
+  private int maxAttempts = 8;
+
+  @Value("${app.outbox.retry.initial-backoff-ms:1000}")
+  private long initialBackoffMs = 1_000;
+
+  @Value("${app.outbox.retry.max-backoff-ms:300000}")
+  private long maxBackoffMs = 300_000;
 
   @Override
   @Transactional
   public OutboxEvent saveEvent(String eventType, Long aggregateId, String payload) {
     log.debug("Saving outbox event: type={}, aggregateId={}", eventType, aggregateId);
+    int lane = laneOf(aggregateId, laneCount);
     OutboxEvent event = OutboxEvent.builder().eventType(eventType).aggregateId(aggregateId)
-        .payload(payload).status(OutboxEventStatus.PENDING).build();
+        .lane(lane).payload(payload).status(OutboxEventStatus.PENDING).build();
     OutboxEvent savedEvent = repository.save(event);
+    wakePublisherAfterCommit(Set.of(lane));
     log.info("Outbox event saved with ID: {}", savedEvent.getEventId());
     return savedEvent;
   }
 
   @Override
-  public List<OutboxEvent> fetchPendingEvents(int limit) {
-    log.debug("Fetching pending outbox events with limit: {}", limit);
-    List<OutboxEvent> pendingEvents = repository.findAll().stream()
-        .filter(e -> OutboxEventStatus.PENDING.equals(e.getStatus())).limit(limit).toList();
-    log.debug("Found {} pending outbox events", pendingEvents.size());
+  @Transactional
+  public List<OutboxEvent> saveEvents(List<OutboxEventDTO> events) {
+    if (events.isEmpty()) {
+      return List.of();
+    }
+    List<OutboxEvent> entities = events.stream().map(e -> OutboxEvent.builder()
+        .eventType(e.getEventType()).aggregateId(e.getAggregateId())
+        .lane(laneOf(e.getAggregateId(), laneCount)).payload(e.getPayload())
+        .status(OutboxEventStatus.PENDING).build()).toList();
+    // Ids come from the pooled sequence block and the rows are flushed in JDBC batches
+    List<OutboxEvent> savedEvents = repository.saveAll(entities);
+    wakePublisherAfterCommit(savedEvents.stream().map(OutboxEvent::getLane)
+        .collect(Collectors.toSet()));
+    log.info("Saved {} outbox events", savedEvents.size());
+    return savedEvents;
+  }
+
+  @Override
+  public List<OutboxEvent> fetchPendingEvents(int lane, int limit) {
+    log.debug("Fetching pending outbox events of lane {} with limit: {}", lane, limit);
+    List<Long> claimed = repository.claimPending(lane, publisherId,
+        Duration.ofMillis(claimLeaseMs), limit);
+    if (claimed.isEmpty()) {
+      return List.of();
+    }
+    // findAllById does not keep the claim order, which is the order events are published in
+    Map<Long, OutboxEvent> byId = repository.findAllById(claimed).stream()
+        .collect(Collectors.toMap(OutboxEvent::getEventId, Function.identity()));
+    List<OutboxEvent> pendingEvents = claimed.stream().map(byId::get).filter(Objects::nonNull)
+        .toList();
+    log.debug("Claimed {} pending outbox events", pendingEvents.size());
     return pendingEvents;
   }
 
   @Override
   @Transactional
-  public void markAsPublished(OutboxEvent event) {
-    log.debug("Marking outbox event {} as published", event.getEventId());
-    event.setStatus(OutboxEventStatus.PUBLISHED);
-    event.setPublishedAt(Instant.now());
-    repository.save(event);
-    log.info("Outbox event {} marked as published", event.getEventId());
+  public void markAllAsPublished(Collection<Long> eventIds) {
+    updateStatus(eventIds, OutboxEventStatus.PUBLISHED);
   }
 
   @Override
   @Transactional
-  public void markAsFailed(OutboxEvent event) {
-    log.warn("Marking outbox event {} as failed", event.getEventId());
-    event.setStatus(OutboxEventStatus.FAILED);
-    repository.save(event);
-    log.debug("Outbox event {} marked as failed", event.getEventId());
+  public void markAllAsFailed(Collection<Long> eventIds) {
+    updateStatus(eventIds, OutboxEventStatus.FAILED);
+  }
+
+  @Override
+  @Transactional
+  public void releaseClaims(Collection<Long> eventIds) {
+    updateStatus(eventIds, OutboxEventStatus.PENDING);
+  }
+
+  @Override
+  @Transactional
+  public void retryLater(Collection<Long> eventIds) {
+    if (eventIds.isEmpty()) {
+      return;
+    }
+    int updated = repository.retryLater(eventIds, maxAttempts, Duration.ofMillis(initialBackoffMs),
+        Duration.ofMillis(maxBackoffMs));
+    log.debug("Scheduled {} of {} outbox events for a retry", updated, eventIds.size());
+  }
+
+  /**
+   * Lane of an aggregate's events. Must match the backfill in {@code V8__outbox_lanes.sql}; events
+   * without an aggregate go to lane 0.
+   */
+  static int laneOf(Long aggregateId, int laneCount) {
+    return aggregateId == null ? 0 : (int) Math.floorMod(aggregateId, (long) laneCount);
+  }
+
+  // The publisher cannot see the events before the commit, so only wake it then
+  private void wakePublisherAfterCommit(Set<Integer> lanes) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      lanes.forEach(outboxWakeup::signal);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        lanes.forEach(outboxWakeup::signal);
+      }
+    });
+  }
+
+  private void updateStatus(Collection<Long> eventIds, OutboxEventStatus status) {
+    if (eventIds.isEmpty()) {
+      return;
+    }
+    int updated = repository.updateStatus(eventIds, status);
+    log.debug("Marked {} of {} outbox events {}", updated, eventIds.size(), status);
   }
-}
\ No newline at end of file
+}
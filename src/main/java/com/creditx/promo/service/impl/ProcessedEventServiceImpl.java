@@ -1,45 +1,245 @@
 package com.creditx.promo.service.impl;
 
+import com.creditx.promo.cache.ProcessedEventCache;
 import com.creditx.promo.model.ProcessedEvent;
 import com.creditx.promo.repository.ProcessedEventRepository;
 import com.creditx.promo.service.ProcessedEventService;
+import com.creditx.promo.util.BatchUtils;
 import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class ProcessedEventServiceImpl implements ProcessedEventService {
+public class ProcessedEventServiceImpl implements ProcessedEventService, DisposableBean {
 
   private final ProcessedEventRepository processedEventRepository;
+  private final ProcessedEventCache processedEventCache;
+
+  @Value("${app.dedup.write-behind.enabled:false}")
+  private boolean writeBehindEnabled;
+
+  @Value("${app.dedup.write-behind.batch-size:500}")
+  private int writeBehindBatchSize;
+
+  // Write-behind state: markers waiting for the next flush and the future that flush completes
+  private final Object bufferLock = new Object();
+  private final Set<String> bufferedEventIds = ConcurrentHashMap.newKeySet();
+  private final ThreadLocal<List<CompletableFuture<Void>>> pendingWrites =
+      ThreadLocal.withInitial(ArrayList::new);
+  private List<ProcessedEvent> buffer = new ArrayList<>();
+  private CompletableFuture<Void> bufferDurable = new CompletableFuture<>();
 
   @Override
   public boolean isEventProcessed(String eventId) {
-    boolean exists = processedEventRepository.existsByEventId(eventId);
-    if (exists) {
-      log.debug("Event {} has already been processed", eventId);
+    if (bufferedEventIds.contains(eventId)) {
+      log.debug("Event {} has already been processed (marker not flushed yet)", eventId);
+      return true;
+    }
+    switch (processedEventCache.lookup(eventId)) {
+      case PROCESSED -> {
+        log.debug("Event {} has already been processed (cached)", eventId);
+        return true;
+      }
+      case NOT_PROCESSED -> {
+        return false;
+      }
+      default -> {
+        boolean exists = processedEventRepository.existsByEventId(eventId);
+        if (exists) {
+          log.debug("Event {} has already been processed", eventId);
+          processedEventCache.record(eventId);
+        }
+        return exists;
+      }
     }
-    return exists;
   }
 
   @Override
   @Transactional
-  public void markEventAsProcessed(String eventId, String payloadHash, String status) {
+  public void markEventAsProcessed(String eventId, byte[] payloadHash, String status) {
     ProcessedEvent processedEvent = ProcessedEvent.builder().eventId(eventId)
         .payloadHash(payloadHash).status(status).build();
 
-    processedEventRepository.save(processedEvent);
-    log.debug("Marked event {} as processed with status {}", eventId, status);
+    if (writeBehindEnabled) {
+      pendingWrites.get().add(enqueueAfterCommit(processedEvent));
+      log.debug("Buffered marker for event {} with status {}", eventId, status);
+      return;
+    }
+    // One INSERT; a concurrent delivery that marked the event first makes it a no-op
+    if (processedEventRepository.insertIfAbsent(List.of(processedEvent)) == 0) {
+      log.debug("Event {} was already marked as processed", eventId);
+    } else {
+      log.debug("Marked event {} as processed with status {}", eventId, status);
+    }
+    recordAfterCommit(List.of(eventId));
   }
 
   @Override
-  public boolean isPayloadProcessed(String payloadHash) {
+  public boolean isPayloadProcessed(byte[] payloadHash) {
     boolean exists = processedEventRepository.existsByPayloadHash(payloadHash);
     if (exists) {
-      log.debug("Payload with hash {} has already been processed", payloadHash);
+      log.debug("Payload with hash {} has already been processed",
+          HexFormat.of().formatHex(payloadHash));
     }
     return exists;
   }
+
+  @Override
+  public Set<String> findProcessedEventIds(Collection<String> eventIds) {
+    Set<String> processed = new HashSet<>();
+    List<String> unknown = new ArrayList<>();
+    for (String eventId : eventIds) {
+      if (bufferedEventIds.contains(eventId)) {
+        processed.add(eventId);
+        continue;
+      }
+      switch (processedEventCache.lookup(eventId)) {
+        case PROCESSED -> processed.add(eventId);
+        case NOT_PROCESSED -> { }
+        default -> unknown.add(eventId);
+      }
+    }
+    for (List<String> chunk : BatchUtils.partition(unknown, BatchUtils.MAX_IN_LIST_SIZE)) {
+      List<String> existing = processedEventRepository.findExistingEventIds(chunk);
+      existing.forEach(processedEventCache::record);
+      processed.addAll(existing);
+    }
+    if (!processed.isEmpty()) {
+      log.debug("{} of {} events have already been processed", processed.size(),
+          eventIds.size());
+    }
+    return processed;
+  }
+
+  @Override
+  @Transactional
+  public void markEventsAsProcessed(List<ProcessedEvent> processedEvents) {
+    int inserted = processedEventRepository.insertIfAbsent(processedEvents);
+    recordAfterCommit(processedEvents.stream().map(ProcessedEvent::getEventId).toList());
+    log.debug("Marked {} events as processed, {} were already marked", inserted,
+        processedEvents.size() - inserted);
+  }
+
+  @Override
+  public void flushPendingMarkers() {
+    List<ProcessedEvent> batch;
+    CompletableFuture<Void> durable;
+    synchronized (bufferLock) {
+      if (buffer.isEmpty()) {
+        return;
+      }
+      batch = buffer;
+      durable = bufferDurable;
+      buffer = new ArrayList<>();
+      bufferDurable = new CompletableFuture<>();
+    }
+    write(batch, durable);
+  }
+
+  @Override
+  public CompletableFuture<Void> takePendingMarkerWrites() {
+    List<CompletableFuture<Void>> writes = pendingWrites.get();
+    pendingWrites.remove();
+    if (writes.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new));
+  }
+
+  @Override
+  public void destroy() {
+    flushPendingMarkers();
+  }
+
+  // The cache may only learn about a marker once it is durable
+  private void recordAfterCommit(List<String> eventIds) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eventIds.forEach(processedEventCache::record);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        eventIds.forEach(processedEventCache::record);
+      }
+    });
+  }
+
+  // A marker must not be written for work that is rolled back, so buffer it only on commit
+  private CompletableFuture<Void> enqueueAfterCommit(ProcessedEvent marker) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return enqueue(marker);
+    }
+    CompletableFuture<Void> durable = new CompletableFuture<>();
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_COMMITTED) {
+          durable.complete(null);
+          return;
+        }
+        enqueue(marker).whenComplete((v, ex) -> {
+          if (ex != null) {
+            durable.completeExceptionally(ex);
+          } else {
+            durable.complete(null);
+          }
+        });
+      }
+    });
+    return durable;
+  }
+
+  private CompletableFuture<Void> enqueue(ProcessedEvent marker) {
+    List<ProcessedEvent> full = null;
+    CompletableFuture<Void> fullDurable = null;
+    CompletableFuture<Void> durable;
+    synchronized (bufferLock) {
+      bufferedEventIds.add(marker.getEventId());
+      buffer.add(marker);
+      durable = bufferDurable;
+      if (buffer.size() >= writeBehindBatchSize) {
+        full = buffer;
+        fullDurable = bufferDurable;
+        buffer = new ArrayList<>();
+        bufferDurable = new CompletableFuture<>();
+      }
+    }
+    if (full != null) {
+      write(full, fullDurable);
+    }
+    return durable;
+  }
+
+  private void write(List<ProcessedEvent> batch, CompletableFuture<Void> durable) {
+    List<String> eventIds = batch.stream().map(ProcessedEvent::getEventId).toList();
+    try {
+      // A redelivered event can be marked twice; the second marker is skipped
+      processedEventRepository.insertIfAbsent(batch);
+      eventIds.forEach(processedEventCache::record);
+      durable.complete(null);
+      log.debug("Flushed {} processed-event markers", batch.size());
+    } catch (RuntimeException e) {
+      // Any failure must complete the future, or the listeners waiting on it would block
+      log.error("Failed to flush {} processed-event markers", batch.size(), e);
+      durable.completeExceptionally(e);
+    } finally {
+      eventIds.forEach(bufferedEventIds::remove);
+    }
+  }
 }
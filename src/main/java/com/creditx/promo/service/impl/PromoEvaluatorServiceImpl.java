@@ -1,53 +1,33 @@
 package com.creditx.promo.service.impl;
 
+import com.creditx.promo.catalog.PromotionCandidates;
 import com.creditx.promo.dto.TransactionPostedEvent;
 import com.creditx.promo.model.Promotion;
 import com.creditx.promo.model.PromotionStatus;
+import com.creditx.promo.rules.CompiledPromotionCache;
 import com.creditx.promo.service.PromoEvaluatorService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
-@Slf4j
+@RequiredArgsConstructor
 public class PromoEvaluatorServiceImpl implements PromoEvaluatorService {
 
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final CompiledPromotionCache compiledPromotionCache;
 
   @Override
   public List<Promotion> evaluate(TransactionPostedEvent event, List<Promotion> activePromotions) {
     Instant txnTime = event.getCreatedAt();
-    return activePromotions.stream().filter(
+    // Catalog results are indexed by merchant: only look at promotions that can apply to it
+    List<Promotion> candidates = activePromotions instanceof PromotionCandidates indexed
+        ? indexed.forMerchant(event.getMerchantAccountId()) : activePromotions;
+    return candidates.stream().filter(
             p -> p.getStatus() != PromotionStatus.INACTIVE && !txnTime.isBefore(p.getStartDate())
-                && txnTime.isBefore(p.getExpiryDate())).filter(p -> matches(event, p))
+                && txnTime.isBefore(p.getExpiryDate()))
+        .filter(p -> compiledPromotionCache.get(p).isEligible(event))
         .collect(Collectors.toList());
   }
-
-  private boolean matches(TransactionPostedEvent event, Promotion promo) {
-    try {
-      JsonNode root = objectMapper.readTree(promo.getEligibilityRules());
-      if (root.has("minAmount")
-          && event.getAmount().compareTo(root.get("minAmount").decimalValue()) < 0) {
-        return false;
-      }
-      if (root.has("merchantIds")) {
-        boolean ok = false;
-        for (JsonNode n : root.get("merchantIds")) {
-          if (n.asLong() == event.getMerchantAccountId()) {
-            ok = true;
-            break;
-          }
-        }
-        return ok;
-      }
-      return true;
-    } catch (Exception e) {
-      log.warn("Eligibility parse failed for promo {}: {}", promo.getPromoId(), e.getMessage());
-      return false;
-    }
-  }
 }
@@ -0,0 +1,99 @@
+package com.creditx.promo.service.impl;
+
+import com.creditx.promo.repository.PartitionMaintenanceRepository;
+import com.creditx.promo.repository.PartitionMaintenanceRepository.TablePartition;
+import com.creditx.promo.service.RetentionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RetentionServiceImpl implements RetentionService {
+
+  static final String PROCESSED_EVENTS_TABLE = "CPRS_PROCESSED_EVENTS";
+  static final String OUTBOX_TABLE = "CPRS_OUTBOX_EVENTS";
+  // Outbox events that were never delivered keep their partition alive: PENDING ones still have to
+  // be published, and a FAILED one is the only copy of its event and holds back its aggregate
+  static final List<String> UNPUBLISHED_STATUSES = List.of("PENDING", "FAILED");
+
+  private final PartitionMaintenanceRepository partitionMaintenanceRepository;
+  private final MeterRegistry meterRegistry;
+
+  // A marker may only go once its event can no longer be redelivered from the source topic
+  @Value("${app.retention.source-topic-retention-hours:168}")
+  private long sourceTopicRetentionHours = 168;
+
+  @Value("${app.retention.processed-events.grace-hours:24}")
+  private long processedEventsGraceHours = 24;
+
+  @Value("${app.retention.outbox.retention-hours:72}")
+  private long outboxRetentionHours = 72;
+
+  @Override
+  public int purgeExpiredPartitions() {
+    Instant now = Instant.now();
+    int purged = purge(PROCESSED_EVENTS_TABLE,
+        now.minus(Duration.ofHours(sourceTopicRetentionHours + processedEventsGraceHours)),
+        List.of());
+    purged += purge(OUTBOX_TABLE, now.minus(Duration.ofHours(outboxRetentionHours)),
+        UNPUBLISHED_STATUSES);
+    return purged;
+  }
+
+  private int purge(String table, Instant cutoff, List<String> retainedStatuses) {
+    int purged = 0;
+    for (TablePartition partition : partitionMaintenanceRepository.findPartitions(table)) {
+      if (partition.highValue().isAfter(cutoff)) {
+        // Partitions are in key order; everything from here on is still retained
+        break;
+      }
+      try {
+        if (reclaim(table, partition, retainedStatuses)) {
+          purged++;
+        }
+      } catch (DataAccessException e) {
+        // Typically another instance reclaimed the same partition first
+        log.warn("Failed to reclaim partition {} of {}: {}", partition.name(), table,
+            e.getMessage());
+      }
+    }
+    return purged;
+  }
+
+  private boolean reclaim(String table, TablePartition partition, List<String> retainedStatuses) {
+    String name = partition.name();
+    if (!retainedStatuses.isEmpty() && partitionMaintenanceRepository.countRowsWithStatus(table,
+        name, retainedStatuses) > 0) {
+      log.warn("Keeping expired partition {} of {}: it still holds {} events", name, table,
+          retainedStatuses);
+      return false;
+    }
+    long rows = partitionMaintenanceRepository.countRows(table, name);
+    if (!partition.interval() && rows == 0) {
+      return false;
+    }
+    long bytes = partitionMaintenanceRepository.segmentBytes(table, name);
+    if (partition.interval()) {
+      partitionMaintenanceRepository.dropPartition(table, name);
+    } else {
+      partitionMaintenanceRepository.truncatePartition(table, name);
+    }
+    Counter.builder("retention.reclaimed.rows").description("Rows removed by partition retention")
+        .tag("table", table).register(meterRegistry).increment(rows);
+    Counter.builder("retention.reclaimed.bytes").baseUnit("bytes")
+        .description("Segment bytes released by partition retention").tag("table", table)
+        .register(meterRegistry).increment(bytes);
+    log.info("Reclaimed partition {} of {} (below {}): {} rows, {} bytes", name, table,
+        partition.highValue(), rows, bytes);
+    return true;
+  }
+}
@@ -1,48 +1,48 @@
 package com.creditx.promo.service.impl;
 
+import com.creditx.promo.catalog.PromotionCatalog;
+import com.creditx.promo.constants.EventTypes;
 import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.id.UuidV7Generator;
+import com.creditx.promo.model.ProcessedEvent;
 import com.creditx.promo.model.Promotion;
 import com.creditx.promo.model.PromotionApplication;
 import com.creditx.promo.model.PromotionApplicationStatus;
-import com.creditx.promo.model.PromotionStatus;
+import com.creditx.promo.model.TransactionType;
 import com.creditx.promo.repository.PromotionApplicationRepository;
-import com.creditx.promo.repository.PromotionRepository;
 import com.creditx.promo.service.CashbackCalculatorService;
 import com.creditx.promo.service.ProcessedEventService;
 import com.creditx.promo.service.PromoEvaluatorService;
 import com.creditx.promo.service.TransactionEventService;
 import com.creditx.promo.util.EventIdGenerator;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionEventServiceImpl implements TransactionEventService {
 
-  private final RestTemplate restTemplate;
   private final ProcessedEventService processedEventService;
-  private final ObjectMapper objectMapper = new ObjectMapper();
   private final PromoEvaluatorService promoEvaluatorService;
   private final CashbackCalculatorService cashbackCalculatorService;
-  private final PromotionRepository promotionRepository;
+  private final PromotionCatalog promotionCatalog;
   private final PromotionApplicationRepository promotionApplicationRepository;
-
-  @Value("${app.creditmain.url:http://localhost:8080}")
-  private String creditMainServiceUrl;
+  private final UuidV7Generator uuidV7Generator;
 
   @Override
   @Transactional
   public void processTransactionPosted(TransactionPostedEvent event) {
-    String eventId = EventIdGenerator.generateEventId("transaction.posted",
+    String eventId = EventIdGenerator.generateEventId(EventTypes.TRANSACTION_POSTED,
         event.getTransactionId());
     if (processedEventService.isEventProcessed(eventId)) {
       log.debug("Event {} already processed", eventId);
@@ -52,71 +52,153 @@ public class TransactionEventServiceImpl implements TransactionEventService {
     switch (event.getType()) {
       case INBOUND -> handleInbound(event, eventId);
       case CASHBACK -> handleCashbackPosted(event, eventId);
-      default -> processedEventService.markEventAsProcessed(eventId, null, "IGNORED_TYPE");
+      default -> processedEventService.markEventAsProcessed(eventId, event.getPayloadHash(),
+          "IGNORED_TYPE");
+    }
+  }
+
+  @Override
+  @Transactional
+  public void processTransactionPostedBatch(List<TransactionPostedEvent> events) {
+    if (events.isEmpty()) {
+      return;
     }
+    // Redeliveries of the same transaction inside one batch collapse onto the first occurrence
+    Map<String, TransactionPostedEvent> eventsById = new LinkedHashMap<>();
+    for (TransactionPostedEvent event : events) {
+      eventsById.putIfAbsent(
+          EventIdGenerator.generateEventId(EventTypes.TRANSACTION_POSTED,
+              event.getTransactionId()), event);
+    }
+    Set<String> alreadyProcessed = processedEventService.findProcessedEventIds(
+        eventsById.keySet());
+
+    List<ProcessedEvent> markers = new ArrayList<>(eventsById.size());
+    Map<String, TransactionPostedEvent> inbound = new LinkedHashMap<>();
+    for (var entry : eventsById.entrySet()) {
+      String eventId = entry.getKey();
+      TransactionPostedEvent event = entry.getValue();
+      if (alreadyProcessed.contains(eventId)) {
+        log.debug("Event {} already processed", eventId);
+        continue;
+      }
+      if (event.getType() == TransactionType.INBOUND) {
+        inbound.put(eventId, event);
+      } else if (event.getType() == TransactionType.CASHBACK) {
+        markers.add(marker(eventId, event, "CASHBACK_CONFIRMED"));
+      } else {
+        markers.add(marker(eventId, event, "IGNORED_TYPE"));
+      }
+    }
+
+    List<PromotionApplication> applications = new ArrayList<>();
+    if (!inbound.isEmpty()) {
+      handleInboundBatch(inbound, applications, markers);
+    }
+    processedEventService.markEventsAsProcessed(markers);
+    log.info("Processed batch of {} transaction.posted events: {} new, {} applications",
+        events.size(), markers.size(), applications.size());
   }
 
   private void handleInbound(TransactionPostedEvent event, String eventId) {
-    // Fetch promotions whose validity window includes the transaction createdAt (status ignored except INACTIVE)
-    var promos = promotionRepository.findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(
-            event.getCreatedAt(), event.getCreatedAt()).stream().filter(
-            p -> p.getStatus() != PromotionStatus.INACTIVE) // allow ACTIVE or EXPIRED (retroactive)
-        .toList();
+    // Promotions whose validity window includes the transaction createdAt; the catalog leaves out
+    // INACTIVE ones and keeps EXPIRED ones for retroactive evaluation
+    var promos = promotionCatalog.findValidBetween(event.getCreatedAt(), event.getCreatedAt());
     var matching = promoEvaluatorService.evaluate(event, promos);
     if (matching.isEmpty()) {
-      processedEventService.markEventAsProcessed(eventId, null, "NO_PROMO");
+      processedEventService.markEventAsProcessed(eventId, event.getPayloadHash(), "NO_PROMO");
       return;
     }
     Promotion promo = matching.get(0);
+    var cashback = cashbackCalculatorService.calculate(event, promo);
+    if (cashback.compareTo(BigDecimal.ZERO) <= 0) {
+      processedEventService.markEventAsProcessed(eventId, event.getPayloadHash(), "NO_CASHBACK");
+      return;
+    }
     String idempotencyKey = promo.getPromoId() + ":" + event.getTransactionId();
-    if (promotionApplicationRepository.existsByIdempotencyKey(idempotencyKey)) {
-      processedEventService.markEventAsProcessed(eventId, null, "DUPLICATE");
+    // Delivered to credit-main by the cashback dispatcher once this transaction commits. The
+    // insert is a no-op when the key is taken, e.g. by a concurrent delivery of this transaction
+    if (!promotionApplicationRepository.insertIfAbsent(
+        buildApplication(event, promo, cashback, idempotencyKey))) {
+      processedEventService.markEventAsProcessed(eventId, event.getPayloadHash(), "DUPLICATE");
       return;
     }
-    var cashback = cashbackCalculatorService.calculate(event, promo);
-    if (cashback.compareTo(java.math.BigDecimal.ZERO) <= 0) {
-      processedEventService.markEventAsProcessed(eventId, null, "NO_CASHBACK");
+    processedEventService.markEventAsProcessed(eventId, event.getPayloadHash(), "QUEUED");
+  }
+
+  private void handleInboundBatch(Map<String, TransactionPostedEvent> inbound,
+      List<PromotionApplication> applications, List<ProcessedEvent> markers) {
+    // One catalog lookup covering the createdAt range of the whole batch; the evaluator applies
+    // the exact validity window per event
+    Instant earliest = null;
+    Instant latest = null;
+    for (TransactionPostedEvent event : inbound.values()) {
+      Instant createdAt = event.getCreatedAt();
+      earliest = earliest == null || createdAt.isBefore(earliest) ? createdAt : earliest;
+      latest = latest == null || createdAt.isAfter(latest) ? createdAt : latest;
+    }
+    var promos = promotionCatalog.findValidBetween(earliest, latest);
+
+    Map<String, Promotion> matched = new LinkedHashMap<>();
+    for (var entry : inbound.entrySet()) {
+      var matching = promoEvaluatorService.evaluate(entry.getValue(), promos);
+      if (matching.isEmpty()) {
+        markers.add(marker(entry.getKey(), entry.getValue(), "NO_PROMO"));
+      } else {
+        matched.put(entry.getKey(), matching.get(0));
+      }
+    }
+    if (matched.isEmpty()) {
       return;
     }
-    PromotionApplication application;
-    try {
-      // Build request matching CreateCashbackTransactionRequest in main service
-      var request = new java.util.HashMap<String, Object>();
-      // We invert issuer/merchant to credit original issuer (customer) and debit merchant
-      request.put("issuerAccountId", event.getMerchantAccountId());
-      request.put("merchantAccountId", event.getIssuerAccountId());
-      request.put("amount", cashback);
-      request.put("currency", event.getCurrency());
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_JSON);
-      var entity = new HttpEntity<>(objectMapper.writeValueAsString(request), headers);
-      restTemplate.postForEntity(creditMainServiceUrl + "/api/transactions/cashback", entity,
-          String.class);
-      application = PromotionApplication.builder()
-          .applicationId(java.util.UUID.randomUUID().toString()).promoId(promo.getPromoId())
-          .transactionId(event.getTransactionId()).issuerId(event.getIssuerAccountId())
-          .merchantId(event.getMerchantAccountId()).cashbackAmount(cashback)
-          .status(PromotionApplicationStatus.APPLIED).reason(null).idempotencyKey(idempotencyKey)
-          .build();
-      promotionApplicationRepository.save(application);
-      processedEventService.markEventAsProcessed(eventId, null, "APPLIED");
-    } catch (Exception e) {
-      log.error("Cashback creation failed for promo {} txn {}", promo.getPromoId(),
-          event.getTransactionId(), e);
-      application = PromotionApplication.builder()
-          .applicationId(java.util.UUID.randomUUID().toString()).promoId(promo.getPromoId())
-          .transactionId(event.getTransactionId()).issuerId(event.getIssuerAccountId())
-          .merchantId(event.getMerchantAccountId()).cashbackAmount(cashback)
-          .status(PromotionApplicationStatus.FAILED)
-          .reason(e.getClass().getSimpleName() + ":" + e.getMessage())
-          .idempotencyKey(idempotencyKey).build();
-      promotionApplicationRepository.save(application);
-      processedEventService.markEventAsProcessed(eventId, null, "FAILED");
+
+    List<PromotionApplication> candidates = new ArrayList<>(matched.size());
+    List<String> candidateEventIds = new ArrayList<>(matched.size());
+    for (var entry : matched.entrySet()) {
+      String eventId = entry.getKey();
+      Promotion promo = entry.getValue();
+      TransactionPostedEvent event = inbound.get(eventId);
+      BigDecimal cashback = cashbackCalculatorService.calculate(event, promo);
+      if (cashback.compareTo(BigDecimal.ZERO) <= 0) {
+        markers.add(marker(eventId, event, "NO_CASHBACK"));
+        continue;
+      }
+      String idempotencyKey = promo.getPromoId() + ":" + event.getTransactionId();
+      candidates.add(buildApplication(event, promo, cashback, idempotencyKey));
+      candidateEventIds.add(eventId);
+    }
+
+    // One batch; applications whose idempotency key is already taken are skipped by the insert
+    boolean[] inserted = promotionApplicationRepository.insertIfAbsent(candidates);
+    for (int i = 0; i < candidates.size(); i++) {
+      String eventId = candidateEventIds.get(i);
+      if (inserted[i]) {
+        applications.add(candidates.get(i));
+        markers.add(marker(eventId, inbound.get(eventId), "QUEUED"));
+      } else {
+        markers.add(marker(eventId, inbound.get(eventId), "DUPLICATE"));
+      }
     }
   }
 
   private void handleCashbackPosted(TransactionPostedEvent event, String eventId) {
     // Cashback transaction posted - nothing to evaluate; mark processed to stop loops
-    processedEventService.markEventAsProcessed(eventId, null, "CASHBACK_CONFIRMED");
+    processedEventService.markEventAsProcessed(eventId, event.getPayloadHash(),
+        "CASHBACK_CONFIRMED");
+  }
+
+  private PromotionApplication buildApplication(TransactionPostedEvent event, Promotion promo,
+      BigDecimal cashback, String idempotencyKey) {
+    return PromotionApplication.builder().applicationId(uuidV7Generator.next())
+        .promoId(promo.getPromoId()).transactionId(event.getTransactionId())
+        .issuerId(event.getIssuerAccountId()).merchantId(event.getMerchantAccountId())
+        .cashbackAmount(cashback).currency(event.getCurrency())
+        .status(PromotionApplicationStatus.PENDING).idempotencyKey(idempotencyKey).build();
+  }
+
+  private static ProcessedEvent marker(String eventId, TransactionPostedEvent event,
+      String status) {
+    return ProcessedEvent.builder().eventId(eventId).payloadHash(event.getPayloadHash())
+        .status(status).build();
   }
 }
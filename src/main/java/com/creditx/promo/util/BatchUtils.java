@@ -0,0 +1,47 @@
+package com.creditx.promo.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utility class for splitting collections into bounded chunks for bulk database operations.
+ */
+public final class BatchUtils {
+
+    /**
+     * Oracle rejects IN lists with more than 1000 expressions (ORA-01795).
+     */
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
+    private BatchUtils() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Splits the given collection into consecutive chunks of at most {@code chunkSize} elements,
+     * preserving iteration order.
+     *
+     * @param items the items to split
+     * @param chunkSize the maximum size of each chunk
+     * @return list of chunks, empty if {@code items} is empty
+     */
+    public static <T> List<List<T>> partition(Collection<T> items, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        List<List<T>> chunks = new ArrayList<>((items.size() + chunkSize - 1) / chunkSize);
+        List<T> current = new ArrayList<>(Math.min(chunkSize, items.size()));
+        for (T item : items) {
+            current.add(item);
+            if (current.size() == chunkSize) {
+                chunks.add(current);
+                current = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
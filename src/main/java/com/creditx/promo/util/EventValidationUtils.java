@@ -21,7 +21,7 @@ public final class EventValidationUtils {
      * @param expectedEventType the expected event type
      * @return true if the event type matches, false otherwise
      */
-    public static boolean validateEventType(Message<String> message, String expectedEventType) {
+    public static boolean validateEventType(Message<?> message, String expectedEventType) {
         if (message == null) {
             log.warn("Message is null, cannot validate event type");
             return false;
@@ -58,7 +58,7 @@ public final class EventValidationUtils {
      * @param message the message to extract event type from
      * @return the event type or null if not present
      */
-    public static String getEventType(Message<String> message) {
+    public static String getEventType(Message<?> message) {
         if (message == null) {
             return null;
         }
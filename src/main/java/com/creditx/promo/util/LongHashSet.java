@@ -0,0 +1,94 @@
+package com.creditx.promo.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable open-addressing hash set of primitive longs. Lookups do not box and touch a single
+ * contiguous array, which keeps membership tests on hot paths allocation-free.
+ */
+public final class LongHashSet {
+
+    private static final LongHashSet EMPTY = new LongHashSet(new long[0]);
+
+    private final long[] slots;
+    private final boolean containsZero;
+    private final int size;
+    private final int mask;
+
+    private LongHashSet(long[] values) {
+        long[] distinct = Arrays.stream(values).distinct().toArray();
+        int capacity = Integer.highestOneBit(Math.max(2, distinct.length) * 2 - 1) << 1;
+        this.slots = new long[capacity];
+        this.mask = capacity - 1;
+        boolean zero = false;
+        for (long value : distinct) {
+            if (value == 0) {
+                // 0 marks an empty slot, so it is tracked separately
+                zero = true;
+                continue;
+            }
+            int index = index(value);
+            while (slots[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = value;
+        }
+        this.containsZero = zero;
+        this.size = distinct.length;
+    }
+
+    /**
+     * Builds a set from the given values; duplicates are ignored.
+     *
+     * @param values the values to include
+     * @return a set containing every value
+     */
+    public static LongHashSet of(long... values) {
+        return values.length == 0 ? EMPTY : new LongHashSet(values);
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int index = index(value);
+        long slot;
+        while ((slot = slots[index]) != 0) {
+            if (slot == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the values of this set in no particular order
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsZero) {
+            values[i++] = 0;
+        }
+        for (long slot : slots) {
+            if (slot != 0) {
+                values[i++] = slot;
+            }
+        }
+        return values;
+    }
+
+    private int index(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
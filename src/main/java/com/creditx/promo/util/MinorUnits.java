@@ -0,0 +1,126 @@
+package com.creditx.promo.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed-point helpers for money held as a {@code long} count of a currency's minor units (cents
+ * for USD, yen for JPY). Operations either return an exact (or explicitly rounded) result or
+ * throw {@link ArithmeticException}; only the {@link BigDecimal} conversions allocate.
+ */
+public final class MinorUnits {
+
+    /**
+     * Minor-unit digits assumed for a missing or unknown currency code.
+     */
+    public static final int DEFAULT_FRACTION_DIGITS = 2;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+    private static final Map<String, Integer> FRACTION_DIGITS = new ConcurrentHashMap<>();
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private MinorUnits() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * @param currency ISO 4217 code, may be {@code null}
+     * @return number of minor-unit digits of the currency, {@link #DEFAULT_FRACTION_DIGITS} if
+     *     it is unknown or has none defined
+     */
+    public static int fractionDigits(String currency) {
+        if (currency == null) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+        return FRACTION_DIGITS.computeIfAbsent(currency, code -> {
+            try {
+                int digits = Currency.getInstance(code).getDefaultFractionDigits();
+                return digits < 0 ? DEFAULT_FRACTION_DIGITS : digits;
+            } catch (IllegalArgumentException e) {
+                return DEFAULT_FRACTION_DIGITS;
+            }
+        });
+    }
+
+    /**
+     * @return {@code 10^exponent}
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long pow10(int exponent) {
+        if (exponent < 0 || exponent >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("10^" + exponent + " out of long range");
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * Converts an amount to minor units without rounding.
+     *
+     * @throws ArithmeticException if the amount has more digits than the currency or does not
+     *     fit in a long
+     */
+    public static long toMinorUnits(BigDecimal amount, int fractionDigits) {
+        return amount.movePointRight(fractionDigits).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits, int fractionDigits) {
+        return BigDecimal.valueOf(minorUnits, fractionDigits);
+    }
+
+    /**
+     * Changes the scale of a fixed-point value, truncating towards zero when digits are dropped.
+     *
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long rescaleDown(long unscaled, int fromScale, int toScale) {
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(unscaled, pow10(toScale - fromScale));
+        }
+        int dropped = fromScale - toScale;
+        return dropped >= POWERS_OF_TEN.length ? 0 : unscaled / POWERS_OF_TEN[dropped];
+    }
+
+    /**
+     * Divides {@code p} by {@code q} with the given rounding, matching
+     * {@link BigDecimal#divide(BigDecimal, int, RoundingMode)} at scale 0.
+     *
+     * @throws ArithmeticException if {@code q} is zero, or rounding is needed and {@code mode} is
+     *     {@link RoundingMode#UNNECESSARY}
+     */
+    public static long divide(long p, long q, RoundingMode mode) {
+        long quotient = p / q;
+        long remainder = p - q * quotient;
+        if (remainder == 0) {
+            return quotient;
+        }
+        // +1 if the exact result is positive, -1 if negative
+        int signum = 1 | (int) ((p ^ q) >> (Long.SIZE - 1));
+        boolean increment = switch (mode) {
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+            case DOWN -> false;
+            case UP -> true;
+            case CEILING -> signum > 0;
+            case FLOOR -> signum < 0;
+            case HALF_UP, HALF_DOWN, HALF_EVEN -> {
+                long absRemainder = Math.abs(remainder);
+                // Sign of (remainder - divisor / 2) without overflowing
+                long versusHalf = absRemainder - (Math.abs(q) - absRemainder);
+                if (versusHalf == 0) {
+                    yield mode == RoundingMode.HALF_UP
+                        || mode == RoundingMode.HALF_EVEN && (quotient & 1) != 0;
+                }
+                yield versusHalf > 0;
+            }
+        };
+        return increment ? quotient + signum : quotient;
+    }
+}
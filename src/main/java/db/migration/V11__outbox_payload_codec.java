@@ -0,0 +1,111 @@
+package db.migration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Moves outbox payloads out of the {@code PAYLOAD} CLOB into the {@code PayloadCodec} columns:
+ * inline {@code VARCHAR2} when they fit, otherwise a (compressed) {@code BLOB}. The encoding is
+ * done in Java so that existing rows are stored exactly like new ones. It is a frozen copy of
+ * {@code PayloadCodec.encode} as of this version, so that later codec changes cannot alter what
+ * an applied migration did.
+ */
+public class V11__outbox_payload_codec extends BaseJavaMigration {
+
+  private static final int BATCH_SIZE = 500;
+  private static final int INLINE_MAX_BYTES = 4000;
+  private static final int LENGTH_PREFIX_BYTES = Integer.BYTES;
+
+  private static final String SELECT_SQL = """
+      SELECT EVENT_ID, PAYLOAD FROM CPRS_OUTBOX_EVENTS WHERE PAYLOAD_ENCODING IS NULL
+      """;
+
+  private static final String UPDATE_SQL = """
+      UPDATE CPRS_OUTBOX_EVENTS
+      SET PAYLOAD_ENCODING = ?, PAYLOAD_INLINE = ?, PAYLOAD_BLOB = ?
+      WHERE EVENT_ID = ?
+      """;
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    try (Statement ddl = connection.createStatement()) {
+      ddl.execute("""
+          ALTER TABLE CPRS_OUTBOX_EVENTS ADD (
+            PAYLOAD_ENCODING  VARCHAR2(10),
+            PAYLOAD_INLINE    VARCHAR2(4000 BYTE),
+            PAYLOAD_BLOB      BLOB
+          )""");
+    }
+    try (PreparedStatement select = connection.prepareStatement(SELECT_SQL);
+        PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+      select.setFetchSize(BATCH_SIZE);
+      LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+      try (ResultSet rs = select.executeQuery()) {
+        int batched = 0;
+        while (rs.next()) {
+          encode(rs.getString(2), compressor, update);
+          update.setLong(4, rs.getLong(1));
+          update.addBatch();
+          if (++batched == BATCH_SIZE) {
+            update.executeBatch();
+            batched = 0;
+          }
+        }
+        if (batched > 0) {
+          update.executeBatch();
+        }
+      }
+    }
+    try (Statement ddl = connection.createStatement()) {
+      ddl.execute("""
+          ALTER TABLE CPRS_OUTBOX_EVENTS MODIFY (
+            PAYLOAD_ENCODING  DEFAULT 'INLINE' NOT NULL
+          )""");
+      ddl.execute("""
+          ALTER TABLE CPRS_OUTBOX_EVENTS ADD CONSTRAINT CK_CPRS_OUTBOX_PAYLOAD_ENC
+            CHECK (PAYLOAD_ENCODING IN ('INLINE','LZ4','RAW'))""");
+      // Instant on a large table; the space is reclaimed as the old partitions are dropped
+      ddl.execute("ALTER TABLE CPRS_OUTBOX_EVENTS SET UNUSED (PAYLOAD)");
+    }
+  }
+
+  /**
+   * Bind {@code PAYLOAD_ENCODING}, {@code PAYLOAD_INLINE} and {@code PAYLOAD_BLOB} for a payload.
+   */
+  private static void encode(String payload, LZ4Compressor compressor, PreparedStatement update)
+      throws SQLException {
+    byte[] utf8 = payload == null ? null : payload.getBytes(StandardCharsets.UTF_8);
+    if (utf8 == null || utf8.length <= INLINE_MAX_BYTES) {
+      update.setString(1, "INLINE");
+      update.setString(2, payload);
+      update.setNull(3, Types.BLOB);
+      return;
+    }
+    byte[] compressed = new byte[LENGTH_PREFIX_BYTES + compressor.maxCompressedLength(
+        utf8.length)];
+    ByteBuffer.wrap(compressed).putInt(utf8.length);
+    int compressedLength = compressor.compress(utf8, 0, utf8.length, compressed,
+        LENGTH_PREFIX_BYTES);
+    update.setNull(2, Types.VARCHAR);
+    if (LENGTH_PREFIX_BYTES + compressedLength >= utf8.length) {
+      update.setString(1, "RAW");
+      update.setBytes(3, utf8);
+    } else {
+      byte[] blob = new byte[LENGTH_PREFIX_BYTES + compressedLength];
+      System.arraycopy(compressed, 0, blob, 0, blob.length);
+      update.setString(1, "LZ4");
+      update.setBytes(3, blob);
+    }
+  }
+}
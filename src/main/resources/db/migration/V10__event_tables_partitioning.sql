@@ -0,0 +1,30 @@
+-- Both event tables are interval-partitioned by UTC day, so that RetentionScheduler can reclaim
+-- expired days by dropping whole partitions instead of deleting rows. TIMESTAMP WITH TIME ZONE
+-- cannot be a partitioning key, hence the virtual day columns. Primary keys and the indexes
+-- probed across all days stay global; time-ranged indexes become local
+ALTER TABLE CPRS_PROCESSED_EVENTS ADD (
+	PROCESSED_DAY  DATE GENERATED ALWAYS AS (TRUNC(CAST(SYS_EXTRACT_UTC(PROCESSED_AT) AS DATE))) VIRTUAL
+);
+
+ALTER TABLE CPRS_PROCESSED_EVENTS MODIFY
+	PARTITION BY RANGE (PROCESSED_DAY) INTERVAL (NUMTODSINTERVAL(1, 'DAY'))
+	(PARTITION P_CPRS_PROC_INITIAL VALUES LESS THAN (DATE '2025-01-01'))
+	ONLINE
+	UPDATE INDEXES (
+		IDX_CPRS_PROC_STATUS LOCAL,
+		IDX_CPRS_PROC_PROCESSED_AT LOCAL,
+		IDX_CPRS_PROC_PAYLOAD_HASH GLOBAL
+	);
+
+ALTER TABLE CPRS_OUTBOX_EVENTS ADD (
+	CREATED_DAY  DATE GENERATED ALWAYS AS (TRUNC(CAST(SYS_EXTRACT_UTC(CREATED_AT) AS DATE))) VIRTUAL
+);
+
+ALTER TABLE CPRS_OUTBOX_EVENTS MODIFY
+	PARTITION BY RANGE (CREATED_DAY) INTERVAL (NUMTODSINTERVAL(1, 'DAY'))
+	(PARTITION P_CPRS_OUTBOX_INITIAL VALUES LESS THAN (DATE '2025-01-01'))
+	ONLINE
+	UPDATE INDEXES (
+		IDX_CPRS_OUTBOX_STATUS GLOBAL,
+		IDX_CPRS_OUTBOX_AGG_ID GLOBAL
+	);
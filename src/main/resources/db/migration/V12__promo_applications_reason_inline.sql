@@ -0,0 +1,13 @@
+-- Failure reasons are short diagnostics: keep them inline rather than in a CLOB.
+-- PromotionApplication.setReason cuts longer ones to the column size
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD (
+	REASON_INLINE  VARCHAR2(4000 BYTE)
+);
+
+-- 1000 characters are at most 4000 bytes in AL32UTF8
+UPDATE CPRS_PROMO_APPLICATIONS
+SET REASON_INLINE = DBMS_LOB.SUBSTR(REASON, 1000, 1)
+WHERE REASON IS NOT NULL;
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS SET UNUSED (REASON);
+ALTER TABLE CPRS_PROMO_APPLICATIONS RENAME COLUMN REASON_INLINE TO REASON;
@@ -0,0 +1,97 @@
+-- TRANSACTION_ID, ISSUER_ID, MERCHANT_ID and AGGREGATE_ID hold numeric ids (Long in the
+-- entities) but were VARCHAR2. Numeric binds made Oracle compare TO_NUMBER(column), which
+-- disables IDX_CPRS_APP_TXN and IDX_CPRS_OUTBOX_AGG_ID. The columns are rebuilt as NUMBER(19)
+-- without blocking writers: new columns are kept in sync by a trigger, existing rows are copied
+-- in committed batches, and the columns are swapped at the end. During the swap itself, writes
+-- from instances still using the old columns fail and are retried. A value that is not a number
+-- fails the migration rather than being lost
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD (
+	TRANSACTION_ID_NUM  NUMBER(19),
+	ISSUER_ID_NUM       NUMBER(19),
+	MERCHANT_ID_NUM     NUMBER(19)
+);
+
+ALTER TABLE CPRS_OUTBOX_EVENTS ADD (
+	AGGREGATE_ID_NUM  NUMBER(19)
+);
+
+CREATE OR REPLACE TRIGGER TRG_CPRS_APP_IDS_SYNC
+BEFORE INSERT OR UPDATE OF TRANSACTION_ID, ISSUER_ID, MERCHANT_ID ON CPRS_PROMO_APPLICATIONS
+FOR EACH ROW
+BEGIN
+	:NEW.TRANSACTION_ID_NUM := TO_NUMBER(:NEW.TRANSACTION_ID);
+	:NEW.ISSUER_ID_NUM := TO_NUMBER(:NEW.ISSUER_ID);
+	:NEW.MERCHANT_ID_NUM := TO_NUMBER(:NEW.MERCHANT_ID);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_CPRS_OUTBOX_AGG_SYNC
+BEFORE INSERT OR UPDATE OF AGGREGATE_ID ON CPRS_OUTBOX_EVENTS
+FOR EACH ROW
+BEGIN
+	:NEW.AGGREGATE_ID_NUM := TO_NUMBER(:NEW.AGGREGATE_ID);
+END;
+/
+
+DECLARE
+	TYPE t_rowids IS TABLE OF ROWID;
+	v_rowids t_rowids;
+	CURSOR c_apps IS SELECT ROWID FROM CPRS_PROMO_APPLICATIONS WHERE TRANSACTION_ID_NUM IS NULL;
+	CURSOR c_outbox IS SELECT ROWID FROM CPRS_OUTBOX_EVENTS
+		WHERE AGGREGATE_ID_NUM IS NULL AND AGGREGATE_ID IS NOT NULL;
+BEGIN
+	OPEN c_apps;
+	LOOP
+		FETCH c_apps BULK COLLECT INTO v_rowids LIMIT 10000;
+		EXIT WHEN v_rowids.COUNT = 0;
+		FORALL i IN 1 .. v_rowids.COUNT
+			UPDATE CPRS_PROMO_APPLICATIONS
+			SET TRANSACTION_ID_NUM = TO_NUMBER(TRANSACTION_ID),
+				ISSUER_ID_NUM = TO_NUMBER(ISSUER_ID),
+				MERCHANT_ID_NUM = TO_NUMBER(MERCHANT_ID)
+			WHERE ROWID = v_rowids(i);
+		COMMIT;
+	END LOOP;
+	CLOSE c_apps;
+
+	OPEN c_outbox;
+	LOOP
+		FETCH c_outbox BULK COLLECT INTO v_rowids LIMIT 10000;
+		EXIT WHEN v_rowids.COUNT = 0;
+		FORALL i IN 1 .. v_rowids.COUNT
+			UPDATE CPRS_OUTBOX_EVENTS
+			SET AGGREGATE_ID_NUM = TO_NUMBER(AGGREGATE_ID)
+			WHERE ROWID = v_rowids(i);
+		COMMIT;
+	END LOOP;
+	CLOSE c_outbox;
+END;
+/
+
+-- Once the triggers are dropped, a row written to the old columns would reach the swap with its
+-- new columns NULL. These constraints reject such a row instead; they only check new writes, as
+-- every existing row has been copied. Dropping the old columns drops them too
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD CONSTRAINT CK_CPRS_APP_IDS_SYNCED
+	CHECK (TRANSACTION_ID_NUM IS NOT NULL AND ISSUER_ID_NUM IS NOT NULL
+		AND (MERCHANT_ID IS NULL OR MERCHANT_ID_NUM IS NOT NULL)) ENABLE NOVALIDATE;
+ALTER TABLE CPRS_OUTBOX_EVENTS ADD CONSTRAINT CK_CPRS_OUTBOX_AGG_SYNCED
+	CHECK (AGGREGATE_ID IS NULL OR AGGREGATE_ID_NUM IS NOT NULL) ENABLE NOVALIDATE;
+
+-- Swap: the sync triggers reference the old columns, so they go first
+DROP TRIGGER TRG_CPRS_APP_IDS_SYNC;
+DROP TRIGGER TRG_CPRS_OUTBOX_AGG_SYNC;
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS SET UNUSED (TRANSACTION_ID, ISSUER_ID, MERCHANT_ID)
+	CASCADE CONSTRAINTS;
+ALTER TABLE CPRS_PROMO_APPLICATIONS RENAME COLUMN TRANSACTION_ID_NUM TO TRANSACTION_ID;
+ALTER TABLE CPRS_PROMO_APPLICATIONS RENAME COLUMN ISSUER_ID_NUM TO ISSUER_ID;
+ALTER TABLE CPRS_PROMO_APPLICATIONS RENAME COLUMN MERCHANT_ID_NUM TO MERCHANT_ID;
+ALTER TABLE CPRS_PROMO_APPLICATIONS MODIFY (TRANSACTION_ID NOT NULL, ISSUER_ID NOT NULL);
+
+ALTER TABLE CPRS_OUTBOX_EVENTS SET UNUSED (AGGREGATE_ID) CASCADE CONSTRAINTS;
+ALTER TABLE CPRS_OUTBOX_EVENTS RENAME COLUMN AGGREGATE_ID_NUM TO AGGREGATE_ID;
+
+-- Dropped with the old columns. existsByTransactionIdAndPromoId is answered from the index alone
+CREATE INDEX IDX_CPRS_APP_TXN ON CPRS_PROMO_APPLICATIONS(TRANSACTION_ID, PROMO_ID) ONLINE;
+CREATE INDEX IDX_CPRS_OUTBOX_AGG_ID ON CPRS_OUTBOX_EVENTS(AGGREGATE_ID) ONLINE;
@@ -0,0 +1,57 @@
+-- APPLICATION_ID moves from a random UUID string in VARCHAR2(36) to a time-ordered UUID
+-- (UuidV7Generator) in RAW(16). New keys are appended at the right edge of the primary key
+-- index instead of splitting random leaf blocks, and each key takes 16 bytes instead of 36.
+-- Existing random IDs keep their value and are converted as they are. The column is rebuilt
+-- like the reference ids in V13: kept in sync by a trigger, copied in committed batches, then
+-- swapped, with the new primary key index built online beforehand. As in V13, writes that miss
+-- the new column during the swap fail instead of leaving it NULL
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD (
+	APPLICATION_ID_RAW  RAW(16)
+);
+
+CREATE OR REPLACE TRIGGER TRG_CPRS_APP_ID_SYNC
+BEFORE INSERT OR UPDATE OF APPLICATION_ID ON CPRS_PROMO_APPLICATIONS
+FOR EACH ROW
+BEGIN
+	:NEW.APPLICATION_ID_RAW := HEXTORAW(REPLACE(:NEW.APPLICATION_ID, '-'));
+END;
+/
+
+DECLARE
+	TYPE t_rowids IS TABLE OF ROWID;
+	v_rowids t_rowids;
+	CURSOR c_apps IS SELECT ROWID FROM CPRS_PROMO_APPLICATIONS WHERE APPLICATION_ID_RAW IS NULL;
+BEGIN
+	OPEN c_apps;
+	LOOP
+		FETCH c_apps BULK COLLECT INTO v_rowids LIMIT 10000;
+		EXIT WHEN v_rowids.COUNT = 0;
+		FORALL i IN 1 .. v_rowids.COUNT
+			UPDATE CPRS_PROMO_APPLICATIONS
+			SET APPLICATION_ID_RAW = HEXTORAW(REPLACE(APPLICATION_ID, '-'))
+			WHERE ROWID = v_rowids(i);
+		COMMIT;
+	END LOOP;
+	CLOSE c_apps;
+END;
+/
+
+CREATE UNIQUE INDEX PK_CPRS_PROMO_APPLICATIONS ON CPRS_PROMO_APPLICATIONS(APPLICATION_ID_RAW) ONLINE;
+
+-- Rejects rows written without the trigger between its drop and the swap. Existing rows have
+-- been copied, so only new writes are checked
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD CONSTRAINT CK_CPRS_APP_ID_SYNCED
+	CHECK (APPLICATION_ID_RAW IS NOT NULL) ENABLE NOVALIDATE;
+
+-- Swap: the sync trigger references the old column, so it goes first
+DROP TRIGGER TRG_CPRS_APP_ID_SYNC;
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS DROP PRIMARY KEY DROP INDEX;
+ALTER TABLE CPRS_PROMO_APPLICATIONS SET UNUSED (APPLICATION_ID);
+ALTER TABLE CPRS_PROMO_APPLICATIONS RENAME COLUMN APPLICATION_ID_RAW TO APPLICATION_ID;
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD CONSTRAINT PK_CPRS_PROMO_APPLICATIONS
+	PRIMARY KEY (APPLICATION_ID) USING INDEX PK_CPRS_PROMO_APPLICATIONS;
+
+-- Covered by the primary key from here on
+ALTER TABLE CPRS_PROMO_APPLICATIONS DROP CONSTRAINT CK_CPRS_APP_ID_SYNCED;
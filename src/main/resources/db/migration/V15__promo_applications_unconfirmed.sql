@@ -0,0 +1,7 @@
+-- A cashback whose dispatch claim expired may or may not have reached credit-main. Unless
+-- re-dispatching such claims is enabled, it is parked as UNCONFIRMED for confirmation instead of
+-- being sent again
+ALTER TABLE CPRS_PROMO_APPLICATIONS DROP CONSTRAINT CK_CPRS_APP_STATUS;
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD CONSTRAINT CK_CPRS_APP_STATUS
+	CHECK (STATUS IN ('PENDING','APPLIED','FAILED','ABANDONED','REVERSED','UNCONFIRMED'));
@@ -0,0 +1,4 @@
+-- Outbox rows are claimed in CREATED_AT order. EVENT_IDs come from per-replica pooled sequence
+-- blocks (V9), so an aggregate's later event can carry a lower id than its earlier one
+DROP INDEX IDX_CPRS_OUTBOX_STATUS;
+CREATE INDEX IDX_CPRS_OUTBOX_STATUS ON CPRS_OUTBOX_EVENTS(STATUS, LANE, CREATED_AT, EVENT_ID) ONLINE;
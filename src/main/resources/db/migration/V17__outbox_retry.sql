@@ -0,0 +1,6 @@
+-- A send that fails is retried with backoff instead of being marked FAILED at once. Until its
+-- backoff has passed the event stays PENDING behind a claim that nobody holds, and the later
+-- events of its aggregate are not claimed ahead of it
+ALTER TABLE CPRS_OUTBOX_EVENTS ADD (
+	ATTEMPTS  NUMBER(5) DEFAULT 0 NOT NULL
+);
@@ -0,0 +1,2 @@
+-- Supports warm-up and delta sync of the in-memory processed-event cache (range scan by time)
+CREATE INDEX IDX_CPRS_PROC_PROCESSED_AT ON CPRS_PROCESSED_EVENTS(PROCESSED_AT);
@@ -0,0 +1,12 @@
+-- Store payload hashes as raw digest bytes (16 bytes Murmur3 / 32 bytes SHA-256) instead of hex
+-- text, and index them for payload-level dedup lookups
+ALTER TABLE CPRS_PROCESSED_EVENTS ADD (PAYLOAD_HASH_RAW RAW(32));
+
+UPDATE CPRS_PROCESSED_EVENTS
+   SET PAYLOAD_HASH_RAW = HEXTORAW(PAYLOAD_HASH)
+ WHERE REGEXP_LIKE(PAYLOAD_HASH, '^([0-9A-Fa-f]{2}){1,32}$');
+
+ALTER TABLE CPRS_PROCESSED_EVENTS DROP COLUMN PAYLOAD_HASH;
+ALTER TABLE CPRS_PROCESSED_EVENTS RENAME COLUMN PAYLOAD_HASH_RAW TO PAYLOAD_HASH;
+
+CREATE INDEX IDX_CPRS_PROC_PAYLOAD_HASH ON CPRS_PROCESSED_EVENTS(PAYLOAD_HASH);
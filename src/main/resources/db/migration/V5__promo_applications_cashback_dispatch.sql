@@ -0,0 +1,24 @@
+-- Applications double as the cashback dispatch queue: a PENDING row is delivered to credit-main
+-- after the consuming transaction commits, by whichever instance holds its claim
+DECLARE
+	v_constraint USER_CONSTRAINTS.CONSTRAINT_NAME%TYPE;
+BEGIN
+	SELECT CONSTRAINT_NAME INTO v_constraint
+	  FROM USER_CONSTRAINTS
+	 WHERE TABLE_NAME = 'CPRS_PROMO_APPLICATIONS'
+	   AND CONSTRAINT_TYPE = 'C'
+	   AND SEARCH_CONDITION_VC LIKE 'STATUS IN%';
+	EXECUTE IMMEDIATE 'ALTER TABLE CPRS_PROMO_APPLICATIONS DROP CONSTRAINT ' || v_constraint;
+END;
+/
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD CONSTRAINT CK_CPRS_APP_STATUS
+	CHECK (STATUS IN ('PENDING','APPLIED','FAILED','REVERSED'));
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD (
+	CURRENCY          VARCHAR2(3),
+	CLAIMED_BY        VARCHAR2(36),
+	CLAIM_EXPIRES_AT  TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE INDEX IDX_CPRS_APP_STATUS_CLAIM ON CPRS_PROMO_APPLICATIONS(STATUS, CLAIM_EXPIRES_AT);
@@ -0,0 +1,17 @@
+-- FAILED cashbacks are retried with backoff until they are APPLIED or, after the last attempt,
+-- ABANDONED for manual follow-up
+ALTER TABLE CPRS_PROMO_APPLICATIONS DROP CONSTRAINT CK_CPRS_APP_STATUS;
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD CONSTRAINT CK_CPRS_APP_STATUS
+	CHECK (STATUS IN ('PENDING','APPLIED','FAILED','ABANDONED','REVERSED'));
+
+ALTER TABLE CPRS_PROMO_APPLICATIONS ADD (
+	ATTEMPTS       NUMBER(5) DEFAULT 0 NOT NULL,
+	NEXT_RETRY_AT  TIMESTAMP(6) WITH TIME ZONE
+);
+
+-- Failures recorded before retries existed are due immediately
+UPDATE CPRS_PROMO_APPLICATIONS SET ATTEMPTS = 1, NEXT_RETRY_AT = SYSTIMESTAMP
+WHERE STATUS = 'FAILED';
+
+CREATE INDEX IDX_CPRS_APP_RETRY ON CPRS_PROMO_APPLICATIONS(STATUS, NEXT_RETRY_AT);
@@ -0,0 +1,10 @@
+-- Publishers claim PENDING outbox rows in EVENT_ID order with a lease, so replicas can publish
+-- concurrently without picking up the same event
+ALTER TABLE CPRS_OUTBOX_EVENTS ADD (
+	CLAIMED_BY        VARCHAR2(36),
+	CLAIM_EXPIRES_AT  TIMESTAMP(6) WITH TIME ZONE
+);
+
+-- Covers the claim's filter and order, so PUBLISHED history is never scanned
+DROP INDEX IDX_CPRS_OUTBOX_STATUS;
+CREATE INDEX IDX_CPRS_OUTBOX_STATUS ON CPRS_OUTBOX_EVENTS(STATUS, EVENT_ID);
@@ -0,0 +1,28 @@
+-- The outbox is split into lanes by aggregate (MOD(AGGREGATE_ID, lane count)). Each lane is
+-- published in EVENT_ID order by the one instance holding its lease; lanes are spread evenly
+-- across the instances that heartbeat in CPRS_OUTBOX_NODES
+ALTER TABLE CPRS_OUTBOX_EVENTS ADD (
+	LANE  NUMBER(5) DEFAULT 0 NOT NULL
+);
+
+-- Matches the default app.outbox.lanes.count of 16; only unpublished rows need a lane
+UPDATE CPRS_OUTBOX_EVENTS
+SET LANE = NVL(MOD(TO_NUMBER(AGGREGATE_ID DEFAULT NULL ON CONVERSION ERROR), 16), 0)
+WHERE STATUS = 'PENDING';
+
+DROP INDEX IDX_CPRS_OUTBOX_STATUS;
+CREATE INDEX IDX_CPRS_OUTBOX_STATUS ON CPRS_OUTBOX_EVENTS(STATUS, LANE, EVENT_ID);
+
+CREATE TABLE CPRS_OUTBOX_LANE_LEASES (
+	LANE              NUMBER(5)       PRIMARY KEY,
+	OWNER             VARCHAR2(36),
+	LEASE_EXPIRES_AT  TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE CPRS_OUTBOX_NODES (
+	NODE_ID       VARCHAR2(36)    PRIMARY KEY,
+	HEARTBEAT_AT  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO CPRS_OUTBOX_LANE_LEASES (LANE)
+SELECT LEVEL - 1 FROM DUAL CONNECT BY LEVEL <= 16;
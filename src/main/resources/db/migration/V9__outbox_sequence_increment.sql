@@ -0,0 +1,5 @@
+-- OutboxEvent ids are allocated with the pooled-lo optimizer: every NEXTVAL reserves the block
+-- [value, value + 49] in memory. The increment must equal the entity's allocationSize. Ids already
+-- handed out stay below the next value, and single NEXTVALs from BI_CPRS_OUTBOX_EVENTS still
+-- get blocks of their own
+ALTER SEQUENCE CPRS_OUTBOX_SEQ INCREMENT BY 50;
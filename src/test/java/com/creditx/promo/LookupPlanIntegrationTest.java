@@ -0,0 +1,134 @@
+package com.creditx.promo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * Asserts that transaction and aggregate lookups, bound as numbers like the entities do, are
+ * served by their indexes rather than by a full scan over {@code TO_NUMBER(column)}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@JdbcTest
+@ActiveProfiles("test")
+// DBMS_STATS commits, so the data set is not wrapped in a rolled-back test transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LookupPlanIntegrationTest {
+
+  private static final String PROMO_ID = "33333333-3333-3333-3333-333333333333";
+  private static final int ROWS = 5_000;
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+  }
+
+  @BeforeEach
+  void loadData() {
+    if (count("SELECT COUNT(*) FROM CPRS_PROMOTIONS WHERE PROMO_ID = ?", PROMO_ID) > 0) {
+      return;
+    }
+    jdbcTemplate.update("""
+        INSERT INTO CPRS_PROMOTIONS (PROMO_ID, NAME, START_DATE, EXPIRY_DATE, ELIGIBILITY_RULES, REWARD_FORMULA, STATUS)
+        VALUES (?, 'Plan check', SYSTIMESTAMP, SYSTIMESTAMP + INTERVAL '30' DAY, '{}', '{}', 'ACTIVE')
+        """, PROMO_ID);
+    jdbcTemplate.update("""
+        INSERT INTO CPRS_PROMO_APPLICATIONS (APPLICATION_ID, PROMO_ID, TRANSACTION_ID, ISSUER_ID, STATUS, IDEMPOTENCY_KEY)
+        SELECT SYS_GUID(), ?, LEVEL, MOD(LEVEL, 50), 'APPLIED', 'plan-' || LEVEL
+        FROM DUAL CONNECT BY LEVEL <= ?
+        """, PROMO_ID, ROWS);
+    jdbcTemplate.update("""
+        INSERT INTO CPRS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD_INLINE, STATUS)
+        SELECT 'plan.check', LEVEL, '{}', 'PUBLISHED'
+        FROM DUAL CONNECT BY LEVEL <= ?
+        """, ROWS);
+    jdbcTemplate.execute("""
+        BEGIN
+          DBMS_STATS.GATHER_TABLE_STATS(USER, 'CPRS_PROMO_APPLICATIONS', cascade => TRUE);
+          DBMS_STATS.GATHER_TABLE_STATS(USER, 'CPRS_OUTBOX_EVENTS', cascade => TRUE);
+        END;""");
+  }
+
+  @Test
+  void shouldStoreReferenceIdsAsNumbers() {
+    assertThat(dataType("CPRS_PROMO_APPLICATIONS", "TRANSACTION_ID")).isEqualTo("NUMBER");
+    assertThat(dataType("CPRS_PROMO_APPLICATIONS", "ISSUER_ID")).isEqualTo("NUMBER");
+    assertThat(dataType("CPRS_PROMO_APPLICATIONS", "MERCHANT_ID")).isEqualTo("NUMBER");
+    assertThat(dataType("CPRS_OUTBOX_EVENTS", "AGGREGATE_ID")).isEqualTo("NUMBER");
+    // The guards that rejected unsynchronized writes during the column swaps are gone
+    assertThat(count("""
+        SELECT COUNT(*) FROM user_constraints
+        WHERE constraint_name IN ('CK_CPRS_APP_IDS_SYNCED', 'CK_CPRS_OUTBOX_AGG_SYNCED',
+            'CK_CPRS_APP_ID_SYNCED')
+        """)).isZero();
+  }
+
+  @Test
+  void shouldLookUpApplicationsByTransactionThroughTheIndex() {
+    // Shape of existsByTransactionIdAndPromoId, with a numeric literal standing in for the bind
+    List<String> plan = explain("txn", """
+        SELECT APPLICATION_ID FROM CPRS_PROMO_APPLICATIONS
+        WHERE TRANSACTION_ID = 4242 AND PROMO_ID = '%s'
+        FETCH FIRST 1 ROWS ONLY""".formatted(PROMO_ID));
+
+    assertThat(plan).anyMatch(step -> step.startsWith("INDEX") && step.endsWith(
+        "IDX_CPRS_APP_TXN"));
+    assertThat(plan).noneMatch(step -> step.contains("FULL"));
+  }
+
+  @Test
+  void shouldLookUpOutboxEventsByAggregateThroughTheIndex() {
+    List<String> plan = explain("agg", """
+        SELECT EVENT_ID FROM CPRS_OUTBOX_EVENTS WHERE AGGREGATE_ID = 4242""");
+
+    assertThat(plan).anyMatch(step -> step.startsWith("INDEX") && step.endsWith(
+        "IDX_CPRS_OUTBOX_AGG_ID"));
+    assertThat(plan).noneMatch(step -> step.contains("FULL"));
+  }
+
+  // Steps of the plan as "OPERATION OPTIONS OBJECT_NAME"
+  private List<String> explain(String statementId, String sql) {
+    jdbcTemplate.update("DELETE FROM PLAN_TABLE WHERE STATEMENT_ID = ?", statementId);
+    jdbcTemplate.execute("EXPLAIN PLAN SET STATEMENT_ID = '%s' FOR %s".formatted(statementId,
+        sql));
+    return jdbcTemplate.queryForList("""
+        SELECT OPERATION || ' ' || OPTIONS || ' ' || OBJECT_NAME FROM PLAN_TABLE
+        WHERE STATEMENT_ID = ? ORDER BY ID
+        """, String.class, statementId);
+  }
+
+  private String dataType(String table, String column) {
+    return jdbcTemplate.queryForObject("""
+        SELECT DATA_TYPE FROM user_tab_columns WHERE table_name = ? AND column_name = ?
+        """, String.class, table, column);
+  }
+
+  private int count(String sql, Object... args) {
+    Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+    return count == null ? 0 : count;
+  }
+}
@@ -0,0 +1,102 @@
+package com.creditx.promo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.promo.model.OutboxEventStatus;
+import com.creditx.promo.repository.OutboxEventRepositoryCustomImpl;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * Asserts that the later events of an aggregate are not claimed while an earlier one waits for a
+ * retry or has failed for good.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@JdbcTest
+@ActiveProfiles("test")
+class OutboxClaimIntegrationTest {
+
+  private static final int LANE = 5;
+  private static final Duration LEASE = Duration.ofSeconds(30);
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private OutboxEventRepositoryCustomImpl repository;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+  }
+
+  @BeforeEach
+  void setup() {
+    repository = new OutboxEventRepositoryCustomImpl(jdbcTemplate);
+    // Aggregate 4245 has two events, aggregate 4261 one; both are in lane 5
+    insert(1001L, 4245L, 3);
+    insert(1002L, 4245L, 2);
+    insert(1003L, 4261L, 1);
+  }
+
+  @Test
+  void shouldNotClaimSuccessorsOfAnEventWaitingForARetry() {
+    // given
+    assertThat(repository.claimPending(LANE, "first", LEASE, 1)).containsExactly(1001L);
+    repository.retryLater(List.of(1001L), 8, Duration.ofMinutes(1), Duration.ofMinutes(5));
+
+    // when
+    List<Long> claimed = repository.claimPending(LANE, "second", LEASE, 10);
+
+    // then
+    assertThat(claimed).containsExactly(1003L);
+    assertThat(status(1001L)).isEqualTo("PENDING");
+  }
+
+  @Test
+  void shouldKeepSuccessorsOfAFailedEventUnpublishedUntilItIsResolved() {
+    // given: the last attempt fails
+    assertThat(repository.claimPending(LANE, "first", LEASE, 1)).containsExactly(1001L);
+    repository.retryLater(List.of(1001L), 1, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    assertThat(status(1001L)).isEqualTo("FAILED");
+
+    // when
+    List<Long> blocked = repository.claimPending(LANE, "second", LEASE, 10);
+    repository.updateStatus(List.of(1001L), OutboxEventStatus.PUBLISHED);
+    List<Long> released = repository.claimPending(LANE, "third", LEASE, 10);
+
+    // then
+    assertThat(blocked).containsExactly(1003L);
+    assertThat(released).containsExactly(1002L);
+  }
+
+  private void insert(long eventId, long aggregateId, int minutesAgo) {
+    jdbcTemplate.update("""
+        INSERT INTO CPRS_OUTBOX_EVENTS (EVENT_ID, EVENT_TYPE, AGGREGATE_ID, LANE, PAYLOAD_INLINE, STATUS, CREATED_AT)
+        VALUES (?, 'claim.check', ?, ?, '{}', 'PENDING', SYSTIMESTAMP - NUMTODSINTERVAL(?, 'MINUTE'))
+        """, eventId, aggregateId, LANE, minutesAgo);
+  }
+
+  private String status(long eventId) {
+    return jdbcTemplate.queryForObject("SELECT STATUS FROM CPRS_OUTBOX_EVENTS WHERE EVENT_ID = ?",
+        String.class, eventId);
+  }
+}
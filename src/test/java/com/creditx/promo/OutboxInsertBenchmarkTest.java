@@ -0,0 +1,110 @@
+package com.creditx.promo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.promo.dto.OutboxEventDTO;
+import com.creditx.promo.messaging.OutboxWakeup;
+import com.creditx.promo.service.OutboxEventService;
+import com.creditx.promo.service.impl.OutboxEventServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * Outbox insert rate against a real Oracle. Opt-in, as it needs Docker and takes a while:
+ * {@code mvn test -Dtest=OutboxInsertBenchmarkTest -Dbenchmark=true}.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OutboxEventServiceImpl.class, OutboxWakeup.class})
+// Every save commits on its own, as in production; a rolled-back test transaction never flushes
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+class OutboxInsertBenchmarkTest {
+
+  private static final int BATCH_SIZE = 100;
+  private static final int SINGLE_INSERTS = 1_000;
+  private static final int BATCHED_INSERTS = 20_000;
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private OutboxEventService outboxEventService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+    registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+  }
+
+  @Test
+  void shouldInsertABatchWithAHandfulOfStatements() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    outboxEventService.saveEvents(events(0, BATCH_SIZE));
+    statistics.clear();
+
+    outboxEventService.saveEvents(events(BATCH_SIZE, BATCH_SIZE));
+
+    // Two NEXTVALs for the 100 ids and two JDBC batches of 50 inserts
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(BATCH_SIZE);
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+  }
+
+  @Test
+  void reportInsertRate() {
+    long started = System.nanoTime();
+    for (long i = 0; i < SINGLE_INSERTS; i++) {
+      outboxEventService.saveEvent("benchmark.single", i, "{\"seq\":" + i + "}");
+    }
+    double singleRate = rate(SINGLE_INSERTS, System.nanoTime() - started);
+
+    started = System.nanoTime();
+    for (int i = 0; i < BATCHED_INSERTS; i += BATCH_SIZE) {
+      outboxEventService.saveEvents(events(i, BATCH_SIZE));
+    }
+    double batchedRate = rate(BATCHED_INSERTS, System.nanoTime() - started);
+
+    log.info("Outbox inserts: {}/s one per transaction, {}/s {} per transaction",
+        Math.round(singleRate), Math.round(batchedRate), BATCH_SIZE);
+    assertThat(batchedRate).isGreaterThan(singleRate);
+  }
+
+  private static List<OutboxEventDTO> events(long from, int count) {
+    return LongStream.range(from, from + count).mapToObj(i -> OutboxEventDTO.builder()
+        .eventType("benchmark.batched").aggregateId(i).payload("{\"seq\":" + i + "}").build())
+        .toList();
+  }
+
+  private static double rate(int count, long elapsedNanos) {
+    return count * 1_000_000_000.0 / elapsedNanos;
+  }
+}
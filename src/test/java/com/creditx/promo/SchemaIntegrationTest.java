@@ -2,6 +2,8 @@ package com.creditx.promo;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.creditx.promo.id.UuidV7Generator;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
@@ -41,6 +43,10 @@ class SchemaIntegrationTest {
     assertThat(tableExists("CPRS_OUTBOX_EVENTS")).isEqualTo(1);
     assertThat(tableExists("CPRS_PROCESSED_EVENTS")).isEqualTo(1);
 
+    // Event tables are interval-partitioned by day for retention
+    assertThat(partitioningType("CPRS_OUTBOX_EVENTS")).isEqualTo("RANGE");
+    assertThat(partitioningType("CPRS_PROCESSED_EVENTS")).isEqualTo("RANGE");
+
     // Insert a promotion (UUID generated here for simplicity)
     String promoId = "11111111-1111-1111-1111-111111111111";
     jdbcTemplate.update("""
@@ -53,11 +59,12 @@ class SchemaIntegrationTest {
     assertThat(promoCount).isEqualTo(1);
 
     // Insert a promo application referencing the promo
-    String applicationId = "22222222-2222-2222-2222-222222222222";
+    byte[] applicationId = UuidV7Generator.toBytes(
+        UUID.fromString("0190a1b2-c3d4-7000-8000-222222222222"));
     String idempotencyKey = "txn-123:" + promoId;
     jdbcTemplate.update("""
         INSERT INTO CPRS_PROMO_APPLICATIONS (APPLICATION_ID, PROMO_ID, TRANSACTION_ID, ISSUER_ID, MERCHANT_ID, INITIATED_AT, CASHBACK_AMOUNT, STATUS, IDEMPOTENCY_KEY)
-        VALUES (?, ?, 'txn-123', 'issuer-1', 'merchant-9', SYSTIMESTAMP, 10.50, 'APPLIED', ?)
+        VALUES (?, ?, 123, 1, 9, SYSTIMESTAMP, 10.50, 'APPLIED', ?)
         """, applicationId, promoId, idempotencyKey);
 
     Integer appCount = jdbcTemplate.queryForObject(
@@ -68,24 +75,37 @@ class SchemaIntegrationTest {
     // Insert processed event
     jdbcTemplate.update("""
         INSERT INTO CPRS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS, PROCESSED_AT)
-        VALUES ('event-1', 'hash-abc', 'PROCESSED', SYSTIMESTAMP)
+        VALUES ('event-1', HEXTORAW('0a1b2c3d'), 'PROCESSED', SYSTIMESTAMP)
         """);
     Integer processedCount = jdbcTemplate.queryForObject(
         "SELECT COUNT(*) FROM CPRS_PROCESSED_EVENTS WHERE EVENT_ID = 'event-1'", Integer.class);
     assertThat(processedCount).isEqualTo(1);
 
+    // Insert-if-absent: a second marker for the same event is skipped instead of failing
+    int remarked = jdbcTemplate.update("""
+        INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(CPRS_PROCESSED_EVENTS (EVENT_ID)) */
+        INTO CPRS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS)
+        VALUES ('event-1', HEXTORAW('0a1b2c3d'), 'DUPLICATE')
+        """);
+    assertThat(remarked).isZero();
+
     // Insert outbox event (trigger should assign EVENT_ID sequence if null). Provide null to test trigger.
     String outboxPayload = '{' + "\"promoId\":\"" + promoId + "\"" + '}';
     jdbcTemplate.update("""
-        INSERT INTO CPRS_OUTBOX_EVENTS (EVENT_ID, EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS)
+        INSERT INTO CPRS_OUTBOX_EVENTS (EVENT_ID, EVENT_TYPE, AGGREGATE_ID, PAYLOAD_INLINE, STATUS)
         VALUES (NULL, 'PromoCreated', ?, ?, 'PENDING')
-        """, promoId, outboxPayload);
+        """, 123L, outboxPayload);
 
     Integer outboxCount = jdbcTemplate.queryForObject(
         "SELECT COUNT(*) FROM CPRS_OUTBOX_EVENTS WHERE EVENT_TYPE = 'PromoCreated'", Integer.class);
     assertThat(outboxCount).isEqualTo(1);
   }
 
+  private String partitioningType(String name) {
+    return jdbcTemplate.queryForObject(
+        "SELECT PARTITIONING_TYPE FROM user_part_tables WHERE table_name = ?", String.class, name);
+  }
+
   private Integer tableExists(String name) {
     return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_tables WHERE table_name = ?",
         Integer.class, name);
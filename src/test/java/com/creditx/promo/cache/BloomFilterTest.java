@@ -0,0 +1,53 @@
+package com.creditx.promo.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void shouldNeverReportAddedValuesAsAbsent() {
+    // given
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+    // when
+    IntStream.range(0, 10_000).forEach(i -> filter.put("transaction.posted-" + i));
+
+    // then
+    assertThat(IntStream.range(0, 10_000)
+        .allMatch(i -> filter.mightContain("transaction.posted-" + i))).isTrue();
+    assertThat(filter.insertions()).isEqualTo(10_000);
+  }
+
+  @Test
+  void shouldKeepFalsePositivesNearConfiguredRate() {
+    // given
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.put("transaction.posted-" + i));
+
+    // when
+    long falsePositives = IntStream.range(10_000, 110_000)
+        .filter(i -> filter.mightContain("transaction.posted-" + i)).count();
+
+    // then
+    assertThat(falsePositives).isLessThan(2_000);
+  }
+
+  @Test
+  void shouldSizeBitsAndHashesFromExpectedInsertions() {
+    BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+    assertThat(filter.bitCount()).isBetween(9_585_000L, 9_585_100L);
+    assertThat(filter.hashCount()).isEqualTo(7);
+  }
+
+  @Test
+  void shouldRejectInvalidSizing() {
+    assertThatThrownBy(() -> new BloomFilter(0, 0.01))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new BloomFilter(100, 1.0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
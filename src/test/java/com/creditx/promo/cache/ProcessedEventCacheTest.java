@@ -0,0 +1,136 @@
+package com.creditx.promo.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.creditx.promo.cache.ProcessedEventCache.Lookup;
+import com.creditx.promo.repository.ProcessedEventRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventCacheTest {
+
+  @Mock
+  private ProcessedEventRepository processedEventRepository;
+
+  private ProcessedEventCache cache;
+
+  @BeforeEach
+  void setup() {
+    cache = new ProcessedEventCache(processedEventRepository, true, 1_000, 0.01, 2, 168, 60_000);
+  }
+
+  @Test
+  void shouldBeUnknownUntilWarm() {
+    assertThat(cache.lookup("transaction.posted-1")).isEqualTo(Lookup.UNKNOWN);
+    assertThat(cache.isWarm()).isFalse();
+  }
+
+  @Test
+  void shouldAnswerFromWarmUpWindow() {
+    // given
+    stubProcessedSince(List.of("transaction.posted-1", "transaction.posted-2",
+        "transaction.posted-3"));
+
+    // when
+    cache.synchronize();
+
+    // then
+    assertThat(cache.isWarm()).isTrue();
+    // the LRU only keeps the two most recent IDs; the oldest is only in the Bloom filter
+    assertThat(cache.lookup("transaction.posted-3")).isEqualTo(Lookup.PROCESSED);
+    assertThat(cache.lookup("transaction.posted-1")).isEqualTo(Lookup.UNKNOWN);
+    assertThat(cache.lookup("transaction.posted-99")).isEqualTo(Lookup.NOT_PROCESSED);
+  }
+
+  @Test
+  void shouldLoadWindowThenOnlyDeltasWithOverlap() {
+    // given
+    stubProcessedSince(List.of());
+    Instant before = Instant.now();
+
+    // when
+    cache.synchronize();
+    cache.synchronize();
+
+    // then
+    ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+    verify(processedEventRepository, times(2)).forEachEventIdProcessedSince(since.capture(),
+        any());
+    assertThat(since.getAllValues().get(0)).isBefore(before.minus(Duration.ofHours(167)));
+    assertThat(since.getAllValues().get(1)).isBetween(before.minus(Duration.ofSeconds(61)),
+        before);
+  }
+
+  @Test
+  void shouldRecordCommittedEvents() {
+    // given
+    stubProcessedSince(List.of());
+    cache.synchronize();
+
+    // when
+    cache.record("transaction.posted-7");
+
+    // then
+    assertThat(cache.lookup("transaction.posted-7")).isEqualTo(Lookup.PROCESSED);
+  }
+
+  @Test
+  void shouldNotBlockOnWarmUpWhenCatchingUp() {
+    cache.catchUp();
+    verify(processedEventRepository, never()).forEachEventIdProcessedSince(any(), any());
+  }
+
+  @Test
+  void shouldNotTrustNegativesAfterAssignmentUntilCatchUpSucceeds() {
+    // given
+    stubProcessedSince(List.of());
+    cache.synchronize();
+    doThrow(new QueryTimeoutException("timeout")).when(processedEventRepository)
+        .forEachEventIdProcessedSince(any(), any());
+
+    // when
+    assertThatThrownBy(cache::catchUp).isInstanceOf(QueryTimeoutException.class);
+
+    // then
+    assertThat(cache.lookup("transaction.posted-99")).isEqualTo(Lookup.UNKNOWN);
+    stubProcessedSince(List.of());
+    cache.catchUp();
+    assertThat(cache.lookup("transaction.posted-99")).isEqualTo(Lookup.NOT_PROCESSED);
+  }
+
+  @Test
+  void shouldAlwaysBeUnknownWhenDisabled() {
+    ProcessedEventCache disabled = new ProcessedEventCache(processedEventRepository, false,
+        1_000, 0.01, 2, 168, 60_000);
+    disabled.synchronize();
+    disabled.record("transaction.posted-1");
+    assertThat(disabled.lookup("transaction.posted-1")).isEqualTo(Lookup.UNKNOWN);
+    verify(processedEventRepository, never()).forEachEventIdProcessedSince(any(), any());
+  }
+
+  @SuppressWarnings("unchecked")
+  private void stubProcessedSince(List<String> eventIds) {
+    doAnswer(inv -> {
+      Consumer<String> action = inv.getArgument(1);
+      eventIds.forEach(action);
+      return null;
+    }).when(processedEventRepository).forEachEventIdProcessedSince(any(), any());
+  }
+}
@@ -0,0 +1,185 @@
+package com.creditx.promo.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.model.Promotion;
+import com.creditx.promo.model.PromotionStatus;
+import com.creditx.promo.repository.PromotionRepository;
+import com.creditx.promo.rules.CompiledPromotionCache;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionCatalogTest {
+
+  private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Mock
+  private PromotionRepository promotionRepository;
+
+  @Spy
+  private CompiledPromotionCache compiledPromotionCache;
+
+  private PromotionCatalog promotionCatalog;
+
+  @BeforeEach
+  void setup() {
+    promotionCatalog = new PromotionCatalog(promotionRepository, compiledPromotionCache, 60_000,
+        300_000);
+  }
+
+  @Test
+  void shouldLoadLazilyAndLeaveOutInactivePromotions() {
+    // given
+    Promotion active = promotion("ACTIVE", 0, 100, PromotionStatus.ACTIVE, 1);
+    Promotion expired = promotion("EXPIRED", 0, 10, PromotionStatus.EXPIRED, 2);
+    Promotion inactive = promotion("INACTIVE", 0, 100, PromotionStatus.INACTIVE, 3);
+    when(promotionRepository.findAll()).thenReturn(List.of(active, expired, inactive));
+
+    // when
+    List<Promotion> atFive = promotionCatalog.findValidBetween(day(5), day(5));
+    List<Promotion> atFifty = promotionCatalog.findValidBetween(day(50), day(50));
+
+    // then
+    assertThat(atFive).extracting(Promotion::getPromoId).containsExactly("ACTIVE", "EXPIRED");
+    assertThat(atFifty).extracting(Promotion::getPromoId).containsExactly("ACTIVE");
+    verify(promotionRepository, times(1)).findAll();
+  }
+
+  @Test
+  void shouldTreatBothEndsOfTheValidityWindowAsInclusive() {
+    // given
+    when(promotionRepository.findAll()).thenReturn(
+        List.of(promotion("P1", 10, 20, PromotionStatus.ACTIVE, 1)));
+
+    // then
+    assertThat(promotionCatalog.findValidBetween(day(10), day(10))).hasSize(1);
+    assertThat(promotionCatalog.findValidBetween(day(20), day(20))).hasSize(1);
+    assertThat(promotionCatalog.findValidBetween(day(21), day(30))).isEmpty();
+    assertThat(promotionCatalog.findValidBetween(day(0), day(9))).isEmpty();
+    assertThat(promotionCatalog.findValidBetween(day(0), day(30))).hasSize(1);
+  }
+
+  @Test
+  void shouldApplyChangesSinceTheLastSeenUpdate() {
+    // given
+    Promotion original = promotion("P1", 0, 100, PromotionStatus.ACTIVE, 1);
+    Promotion other = promotion("P2", 0, 100, PromotionStatus.ACTIVE, 2);
+    when(promotionRepository.findAll()).thenReturn(List.of(original, other));
+    promotionCatalog.refresh();
+
+    Promotion moved = promotion("P1", 50, 100, PromotionStatus.ACTIVE, 5);
+    Promotion deactivated = promotion("P2", 0, 100, PromotionStatus.INACTIVE, 6);
+    when(promotionRepository.findByUpdatedAtGreaterThan(day(2).minusSeconds(60))).thenReturn(
+        List.of(moved, deactivated));
+
+    // when
+    promotionCatalog.refresh();
+
+    // then
+    assertThat(promotionCatalog.findValidBetween(day(10), day(10))).isEmpty();
+    assertThat(promotionCatalog.findValidBetween(day(60), day(60))).containsExactly(moved);
+    verify(compiledPromotionCache).invalidate("P1");
+    verify(compiledPromotionCache).invalidate("P2");
+    verify(promotionRepository, times(1)).findAll();
+  }
+
+  @Test
+  void shouldIgnoreUnchangedRowsReadThroughTheOverlap() {
+    // given
+    Promotion promotion = promotion("P1", 0, 100, PromotionStatus.ACTIVE, 1);
+    when(promotionRepository.findAll()).thenReturn(List.of(promotion));
+    promotionCatalog.refresh();
+    when(promotionRepository.findByUpdatedAtGreaterThan(day(1).minusSeconds(60))).thenReturn(
+        List.of(promotion("P1", 0, 100, PromotionStatus.ACTIVE, 1)));
+
+    // when
+    promotionCatalog.refresh();
+
+    // then
+    assertThat(promotionCatalog.findValidBetween(day(5), day(5))).containsExactly(promotion);
+    verify(compiledPromotionCache, never()).invalidate("P1");
+  }
+
+  @Test
+  void shouldMatchLinearScanOverRandomIntervals() {
+    // given
+    Random random = new Random(42);
+    Map<String, Promotion> promotions = new HashMap<>();
+    for (int i = 0; i < 300; i++) {
+      int start = random.nextInt(365);
+      promotions.put("P" + i, promotion("P" + i, start, start + random.nextInt(60),
+          PromotionStatus.ACTIVE, 1));
+    }
+    PromotionSnapshot snapshot = new PromotionSnapshot(promotions, p -> null);
+
+    for (int i = 0; i < 200; i++) {
+      Instant from = day(random.nextInt(400));
+      Instant to = from.plusSeconds(random.nextInt(5) * 86_400L);
+
+      // when
+      List<Promotion> found = snapshot.findValidBetween(from, to);
+
+      // then
+      List<String> expected = new ArrayList<>();
+      promotions.values().stream()
+          .filter(p -> !p.getStartDate().isAfter(to) && !p.getExpiryDate().isBefore(from))
+          .sorted((a, b) -> a.getStartDate().equals(b.getStartDate())
+              ? a.getPromoId().compareTo(b.getPromoId())
+              : a.getStartDate().compareTo(b.getStartDate()))
+          .forEach(p -> expected.add(p.getPromoId()));
+      assertThat(found).extracting(Promotion::getPromoId).containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  void shouldNarrowCandidatesToTheMerchantKeepingCatalogOrder() {
+    // given
+    Promotion agnostic = promotion("A", 0, 100, PromotionStatus.ACTIVE, 1);
+    Promotion forMerchant = promotion("B", 1, 100, PromotionStatus.ACTIVE, 1);
+    forMerchant.setEligibilityRules("{\"merchantIds\":[200,300]}");
+    Promotion otherMerchant = promotion("C", 2, 100, PromotionStatus.ACTIVE, 1);
+    otherMerchant.setEligibilityRules("{\"merchantIds\":[400]}");
+    Promotion laterAgnostic = promotion("D", 3, 100, PromotionStatus.ACTIVE, 1);
+    when(promotionRepository.findAll()).thenReturn(
+        List.of(laterAgnostic, otherMerchant, forMerchant, agnostic));
+
+    // when
+    List<Promotion> valid = promotionCatalog.findValidBetween(day(5), day(5));
+
+    // then
+    assertThat(valid).containsExactly(agnostic, forMerchant, otherMerchant, laterAgnostic);
+    assertThat(valid).isInstanceOf(PromotionCandidates.class);
+    PromotionCandidates candidates = (PromotionCandidates) valid;
+    assertThat(candidates.forMerchant(300L)).containsExactly(agnostic, forMerchant,
+        laterAgnostic);
+    assertThat(candidates.forMerchant(999L)).containsExactly(agnostic, laterAgnostic);
+    assertThat(candidates.forMerchant(null)).containsExactly(agnostic, laterAgnostic);
+  }
+
+  private static Promotion promotion(String promoId, int startDay, int expiryDay,
+      PromotionStatus status, int updatedDay) {
+    return Promotion.builder().promoId(promoId).name(promoId).startDate(day(startDay))
+        .expiryDate(day(expiryDay)).eligibilityRules("{}")
+        .rewardFormula("{\"cashbackPercent\":1,\"maxCashback\":1}").status(status)
+        .updatedAt(day(updatedDay)).build();
+  }
+
+  private static Instant day(int day) {
+    return T0.plusSeconds(day * 86_400L);
+  }
+}
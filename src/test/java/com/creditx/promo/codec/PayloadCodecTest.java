@@ -0,0 +1,96 @@
+package com.creditx.promo.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.promo.codec.PayloadCodec.EncodedPayload;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PayloadCodecTest {
+
+  @Test
+  void shouldStoreSmallPayloadsInline() {
+    // given
+    String payload = "{\"transactionId\":123,\"cashback\":\"1.50\"}";
+
+    // when
+    EncodedPayload encoded = PayloadCodec.encode(payload);
+
+    // then
+    assertThat(encoded.encoding()).isEqualTo(PayloadEncoding.INLINE);
+    assertThat(encoded.inline()).isEqualTo(payload);
+    assertThat(encoded.blob()).isNull();
+    assertThat(decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  void shouldCompressLargePayloads() {
+    // given
+    String payload = "{\"items\":[" + "{\"sku\":\"ABC-123\",\"qty\":1},".repeat(400) + "{}]}";
+
+    // when
+    EncodedPayload encoded = PayloadCodec.encode(payload);
+
+    // then
+    assertThat(encoded.encoding()).isEqualTo(PayloadEncoding.LZ4);
+    assertThat(encoded.inline()).isNull();
+    assertThat(encoded.blob().length).isLessThan(payload.length() / 4);
+    assertThat(decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  void shouldKeepIncompressiblePayloadsUncompressed() {
+    // given
+    Random random = new Random(42);
+    StringBuilder payload = new StringBuilder();
+    while (payload.length() < 8_000) {
+      payload.append((char) ('!' + random.nextInt(90)));
+    }
+
+    // when
+    EncodedPayload encoded = PayloadCodec.encode(payload.toString());
+
+    // then
+    assertThat(encoded.encoding()).isEqualTo(PayloadEncoding.RAW);
+    assertThat(decode(encoded)).isEqualTo(payload.toString());
+  }
+
+  @Test
+  void shouldMeasureTheInlineLimitInUtf8Bytes() {
+    // given: 1500 characters, but 4500 bytes
+    String payload = "€".repeat(1_500);
+
+    // when
+    EncodedPayload encoded = PayloadCodec.encode(payload);
+
+    // then
+    assertThat(encoded.encoding()).isNotEqualTo(PayloadEncoding.INLINE);
+    assertThat(decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  void shouldDecodeAnEmptyInlinePayload() {
+    // Oracle stores an empty VARCHAR2 as NULL
+    assertThat(PayloadCodec.decode(PayloadEncoding.INLINE, null, null)).isEmpty();
+  }
+
+  @Test
+  void shouldTruncateWithoutSplittingCharacters() {
+    // given
+    String text = "a" + "€".repeat(10);
+
+    // when
+    String truncated = PayloadCodec.truncateUtf8(text, 8);
+
+    // then
+    assertThat(truncated).isEqualTo("a€€");
+    assertThat(truncated.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(8);
+    assertThat(PayloadCodec.truncateUtf8("short", 8)).isEqualTo("short");
+    assertThat(PayloadCodec.truncateUtf8(null, 8)).isNull();
+  }
+
+  private static String decode(EncodedPayload encoded) {
+    return PayloadCodec.decode(encoded.encoding(), encoded.inline(), encoded.blob());
+  }
+}
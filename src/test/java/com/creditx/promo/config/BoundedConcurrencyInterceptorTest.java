@@ -0,0 +1,118 @@
+package com.creditx.promo.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.resilience.AdaptiveConcurrencyLimiter;
+import com.creditx.promo.resilience.CallNotPermittedException;
+import com.creditx.promo.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+@ExtendWith(MockitoExtension.class)
+class BoundedConcurrencyInterceptorTest {
+
+  @Mock
+  private HttpRequest request;
+
+  @Mock
+  private ClientHttpRequestExecution execution;
+
+  @Mock
+  private ClientHttpResponse response;
+
+  private AdaptiveConcurrencyLimiter limiter;
+  private CircuitBreaker circuitBreaker;
+  private BoundedConcurrencyInterceptor interceptor;
+
+  @BeforeEach
+  void setup() {
+    limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.5, Duration.ofSeconds(1));
+    circuitBreaker = new CircuitBreaker("credit-main", 2, 2, 0.5, Duration.ofMinutes(1), 1);
+    interceptor = new BoundedConcurrencyInterceptor("credit-main", limiter, circuitBreaker,
+        Duration.ofMillis(50), new SimpleMeterRegistry());
+    when(request.getURI()).thenReturn(URI.create("http://credit-main/api"));
+  }
+
+  @Test
+  void shouldHoldTheSlotUntilTheResponseIsClosed() throws IOException {
+    // given
+    when(execution.execute(any(), any())).thenReturn(response);
+    when(response.getStatusCode()).thenReturn(HttpStatus.OK);
+
+    // when
+    ClientHttpResponse first = interceptor.intercept(request, new byte[0], execution);
+
+    // then
+    assertThat(limiter.inflight()).isEqualTo(1);
+    assertThrows(CallNotPermittedException.class,
+        () -> interceptor.intercept(request, new byte[0], execution));
+
+    first.close();
+    first.close();
+    assertThat(limiter.inflight()).isZero();
+    verify(response, times(2)).close();
+  }
+
+  @Test
+  void shouldReleaseTheSlotWhenTheRequestFails() throws IOException {
+    // given
+    when(execution.execute(any(), any())).thenThrow(new IOException("connection refused"));
+
+    // when
+    assertThrows(IOException.class, () -> interceptor.intercept(request, new byte[0], execution));
+
+    // then
+    assertThat(limiter.inflight()).isZero();
+  }
+
+  @Test
+  void shouldRejectCallsWithoutSendingThemOnceTheCircuitOpens() throws IOException {
+    // given
+    when(execution.execute(any(), any())).thenReturn(response);
+    when(response.getStatusCode()).thenReturn(HttpStatus.SERVICE_UNAVAILABLE);
+    interceptor.intercept(request, new byte[0], execution).close();
+    interceptor.intercept(request, new byte[0], execution).close();
+
+    // when
+    assertThrows(CallNotPermittedException.class,
+        () -> interceptor.intercept(request, new byte[0], execution));
+
+    // then
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    verify(execution, times(2)).execute(any(), any());
+    assertThat(limiter.inflight()).isZero();
+  }
+
+  @Test
+  void shouldNotCountClientErrorsAsFailures() throws IOException {
+    // given
+    when(execution.execute(any(), any())).thenReturn(response);
+    when(response.getStatusCode()).thenReturn(HttpStatus.CONFLICT);
+
+    // when
+    for (int i = 0; i < 3; i++) {
+      interceptor.intercept(request, new byte[0], execution).close();
+    }
+
+    // then
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    verify(response, never()).getBody();
+  }
+}
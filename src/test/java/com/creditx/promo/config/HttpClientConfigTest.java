@@ -0,0 +1,107 @@
+package com.creditx.promo.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+class HttpClientConfigTest {
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private SimpleMeterRegistry meterRegistry;
+  private RestTemplate restTemplate;
+  private final AtomicReference<String> requestedPath = new AtomicReference<>();
+
+  @BeforeEach
+  void setup() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/api/ok", exchange -> {
+      requestedPath.set(exchange.getRequestURI().getPath());
+      exchange.getRequestBody().readAllBytes();
+      byte[] response = "ok".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(response);
+      }
+    });
+    server.createContext("/api/slow", exchange -> {
+      try {
+        Thread.sleep(2500);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    server.start();
+
+    HttpClientConfig config = new HttpClientConfig();
+    ReflectionTestUtils.setField(config, "creditMainUrl",
+        "http://127.0.0.1:" + server.getAddress().getPort());
+    ReflectionTestUtils.setField(config, "httpVersion", HttpClient.Version.HTTP_1_1);
+    ReflectionTestUtils.setField(config, "connectTimeoutMs", 1000L);
+    ReflectionTestUtils.setField(config, "readTimeoutMs", 1000L);
+    ReflectionTestUtils.setField(config, "maxConnections", 4);
+    ReflectionTestUtils.setField(config, "acquireTimeoutMs", 100L);
+    ReflectionTestUtils.setField(config, "initialLimit", 4);
+    ReflectionTestUtils.setField(config, "minLimit", 1);
+    ReflectionTestUtils.setField(config, "backoffRatio", 0.9);
+    ReflectionTestUtils.setField(config, "latencyThresholdMs", 1000L);
+    ReflectionTestUtils.setField(config, "breakerWindowSize", 10);
+    ReflectionTestUtils.setField(config, "breakerMinimumCalls", 5);
+    ReflectionTestUtils.setField(config, "breakerFailureRateThreshold", 0.5);
+    ReflectionTestUtils.setField(config, "breakerOpenMs", 30_000L);
+    ReflectionTestUtils.setField(config, "breakerHalfOpenCalls", 1);
+    meterRegistry = new SimpleMeterRegistry();
+    executor = config.creditMainHttpExecutor();
+    restTemplate = config.creditMainRestTemplate(new RestTemplateBuilder(),
+        config.creditMainHttpClient(executor), config.creditMainConcurrencyLimiter(),
+        config.creditMainCircuitBreaker(), meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+    executor.close();
+  }
+
+  @Test
+  void shouldResolveRelativePathsAgainstCreditMainUrl() {
+    // when
+    String body = restTemplate.postForObject("/api/ok", "{}", String.class);
+
+    // then
+    assertThat(body).isEqualTo("ok");
+    assertThat(requestedPath.get()).isEqualTo("/api/ok");
+    assertThat(meterRegistry.get("http.client.limiter.active").tag("client.name", "credit-main")
+        .gauge().value()).isZero();
+    assertThat(meterRegistry.get("http.client.limiter.max").gauge().value()).isEqualTo(4);
+    assertThat(meterRegistry.get("http.client.circuit.state").gauge().value()).isZero();
+  }
+
+  @Test
+  void shouldFailSlowResponsesAfterTheReadTimeout() {
+    // when / then
+    assertThrows(ResourceAccessException.class,
+        () -> restTemplate.postForObject("/api/slow", "{}", String.class));
+    assertThat(meterRegistry.get("http.client.limiter.active").gauge().value()).isZero();
+    // A timed-out call shrinks the concurrency limit
+    assertThat(meterRegistry.get("http.client.limiter.limit").gauge().value()).isEqualTo(3);
+  }
+}
@@ -0,0 +1,56 @@
+package com.creditx.promo.hashing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class PayloadHashAlgorithmTest {
+
+  private static String hex(PayloadHashAlgorithm algorithm, String payload) {
+    return HexFormat.of().formatHex(algorithm.hash(payload.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void shouldMatchMurmur3ReferenceVectors() {
+    assertThat(hex(PayloadHashAlgorithm.MURMUR3_128, ""))
+        .isEqualTo("00000000000000000000000000000000");
+    assertThat(hex(PayloadHashAlgorithm.MURMUR3_128, "hell"))
+        .isEqualTo("67f8103e694299624753ebba820bdb92");
+    assertThat(hex(PayloadHashAlgorithm.MURMUR3_128, "hello"))
+        .isEqualTo("029bbd41b3a7d8cb191dae486a901e5b");
+    assertThat(hex(PayloadHashAlgorithm.MURMUR3_128,
+        "The quick brown fox jumps over the lazy dog"))
+        .isEqualTo("6c1b07bc7bbc4be347939ac4a93c437a");
+  }
+
+  @Test
+  void shouldMatchSha256ReferenceVector() {
+    assertThat(hex(PayloadHashAlgorithm.SHA_256, "abc"))
+        .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+  }
+
+  @Test
+  void shouldReuseThreadDigestWithoutCarryingState() {
+    String first = hex(PayloadHashAlgorithm.SHA_256, "abc");
+    String second = hex(PayloadHashAlgorithm.SHA_256, "abc");
+    assertThat(second).isEqualTo(first);
+  }
+
+  @Test
+  void shouldHashOnVirtualThreads() throws Exception {
+    AtomicReference<String> hash = new AtomicReference<>();
+    Thread.ofVirtual().start(() -> hash.set(hex(PayloadHashAlgorithm.SHA_256, "abc"))).join();
+    assertThat(hash.get())
+        .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+  }
+
+  @Test
+  void shouldProduceDigestsOfFixedLength() {
+    byte[] payload = "{\"transactionId\":123}".getBytes(StandardCharsets.UTF_8);
+    assertThat(PayloadHashAlgorithm.MURMUR3_128.hash(payload)).hasSize(16);
+    assertThat(PayloadHashAlgorithm.SHA_256.hash(payload)).hasSize(32);
+  }
+}
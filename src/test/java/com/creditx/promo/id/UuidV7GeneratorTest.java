@@ -0,0 +1,106 @@
+package com.creditx.promo.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class UuidV7GeneratorTest {
+
+  private static final long NOW = 1_750_000_000_000L;
+
+  @Test
+  void shouldEncodeVersionVariantAndTimestamp() {
+    // given
+    UuidV7Generator generator = new UuidV7Generator(() -> NOW);
+
+    // when
+    UUID id = generator.next();
+
+    // then
+    assertThat(id.version()).isEqualTo(7);
+    assertThat(id.variant()).isEqualTo(2);
+    assertThat(UuidV7Generator.timestampOf(id)).isEqualTo(NOW);
+  }
+
+  @Test
+  void shouldIncreaseWithinAMillisecondAndWhenTheClockStepsBack() {
+    // given
+    AtomicLong clock = new AtomicLong(NOW);
+    UuidV7Generator generator = new UuidV7Generator(clock::get);
+
+    // when
+    UUID first = generator.next();
+    UUID second = generator.next();
+    clock.set(NOW - 5_000);
+    UUID third = generator.next();
+
+    // then
+    assertThat(second).isGreaterThan(first);
+    assertThat(third).isGreaterThan(second);
+    assertThat(UuidV7Generator.timestampOf(third)).isEqualTo(NOW);
+  }
+
+  @Test
+  void shouldMoveToTheNextMillisecondWhenTheSequenceRunsOut() {
+    // given
+    UuidV7Generator generator = new UuidV7Generator(() -> NOW);
+
+    // when
+    UUID last = null;
+    for (int i = 0; i <= 4096; i++) {
+      last = generator.next();
+    }
+
+    // then
+    assertThat(UuidV7Generator.timestampOf(last)).isEqualTo(NOW + 1);
+  }
+
+  @Test
+  void shouldSortStoredBytesInGenerationOrder() {
+    // given
+    UuidV7Generator generator = new UuidV7Generator(() -> NOW);
+    List<byte[]> stored = new ArrayList<>();
+
+    // when
+    for (int i = 0; i < 100; i++) {
+      stored.add(UuidV7Generator.toBytes(generator.next()));
+    }
+
+    // then: RAW values compare as unsigned bytes
+    for (int i = 1; i < stored.size(); i++) {
+      assertThat(Arrays.compareUnsigned(stored.get(i - 1), stored.get(i))).isNegative();
+    }
+    UUID id = generator.next();
+    assertThat(UuidV7Generator.fromBytes(UuidV7Generator.toBytes(id))).isEqualTo(id);
+  }
+
+  @Test
+  void shouldNotRepeatAcrossThreads() {
+    // given
+    UuidV7Generator generator = new UuidV7Generator();
+    Set<UUID> ids = ConcurrentHashMap.newKeySet();
+
+    // when
+    try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+      for (int t = 0; t < 4; t++) {
+        executor.execute(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.next());
+          }
+        });
+      }
+    }
+
+    // then
+    assertThat(ids).hasSize(40_000);
+  }
+}
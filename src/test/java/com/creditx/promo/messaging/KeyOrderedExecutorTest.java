@@ -0,0 +1,80 @@
+package com.creditx.promo.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class KeyOrderedExecutorTest {
+
+  private final KeyOrderedExecutor executor = new KeyOrderedExecutor(64);
+
+  @AfterEach
+  void tearDown() throws Exception {
+    executor.destroy();
+  }
+
+  @Test
+  void shouldRunTasksWithSameKeyInSubmissionOrder() throws Exception {
+    List<Integer> seen = new CopyOnWriteArrayList<>();
+    List<CompletableFuture<Void>> futures = IntStream.range(0, 50)
+        .mapToObj(i -> executor.submit("issuer:1", () -> {
+          sleepQuietly(i % 3);
+          seen.add(i);
+        })).toList();
+
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+    assertThat(seen).containsExactlyElementsOf(IntStream.range(0, 50).boxed().toList());
+  }
+
+  @Test
+  void shouldRunDifferentKeysConcurrently() throws Exception {
+    CountDownLatch bothRunning = new CountDownLatch(2);
+    CompletableFuture<Void> first = executor.submit("issuer:1", () -> awaitLatch(bothRunning));
+    CompletableFuture<Void> second = executor.submit("issuer:2", () -> awaitLatch(bothRunning));
+
+    CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+    assertThat(bothRunning.getCount()).isZero();
+  }
+
+  @Test
+  void shouldContinueKeyAfterFailureAndReleaseKeys() throws Exception {
+    CompletableFuture<Void> failing = executor.submit("issuer:1", () -> {
+      throw new IllegalStateException("boom");
+    });
+    CompletableFuture<Void> next = executor.submit("issuer:1", () -> {
+    });
+
+    next.get(5, TimeUnit.SECONDS);
+
+    assertThat(failing).isCompletedExceptionally();
+    assertThat(executor.activeKeys()).isZero();
+  }
+
+  private static void awaitLatch(CountDownLatch latch) {
+    latch.countDown();
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("tasks did not overlap");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleepQuietly(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
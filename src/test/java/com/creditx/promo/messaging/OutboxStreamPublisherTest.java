@@ -1,11 +1,14 @@
 package com.creditx.promo.messaging;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,7 +17,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,37 +37,94 @@ class OutboxStreamPublisherTest {
     ReflectionTestUtils.setField(outboxStreamPublisher, "bindingName", "test-binding");
   }
 
-  @Test
-  void shouldPublishWithKeyAndPayload() {
-    String key = "test-key";
-    String payload = "{\"name\":\"test-payload\", \"value\":100}";
-    String eventType = "transaction.posted";
-    @SuppressWarnings("unchecked") ArgumentCaptor<Message<String>> messageCaptor = ArgumentCaptor.forClass(
-        Message.class);
-    outboxStreamPublisher.publish(key, payload, eventType);
-    verify(streamBridge, times(1)).send(org.mockito.ArgumentMatchers.eq("test-binding"),
-        messageCaptor.capture());
-    Message<String> sentMessage = messageCaptor.getValue();
-    assertThat(sentMessage.getPayload()).isEqualTo(payload);
-    assertThat(sentMessage.getHeaders().get("key")).isEqualTo(key);
-    assertThat(sentMessage.getHeaders().get("eventType")).isEqualTo(eventType);
-  }
-
   @Test
   void shouldNotPublishWithoutKey() {
-    outboxStreamPublisher.publish(null, "{\"name\":\"test\"}", "transaction.posted");
-    verify(streamBridge, never()).send(anyString(), anyString());
+    outboxStreamPublisher.publishAsync(7L, null, "{\"name\":\"test\"}", "transaction.posted");
+    verify(streamBridge, never()).send(anyString(), any(Object.class));
   }
 
   @Test
   void shouldNotPublishWithoutPayload() {
-    outboxStreamPublisher.publish("test-key", "", "transaction.posted");
-    verify(streamBridge, never()).send(anyString(), anyString());
+    outboxStreamPublisher.publishAsync(7L, "test-key", "", "transaction.posted");
+    verify(streamBridge, never()).send(anyString(), any(Object.class));
   }
 
   @Test
   void shouldNotPublishWithoutEventType() {
-    outboxStreamPublisher.publish("test-key", "{\"name\":\"test\"}", "");
-    verify(streamBridge, never()).send(anyString(), anyString());
+    outboxStreamPublisher.publishAsync(7L, "test-key", "{\"name\":\"test\"}", "");
+    verify(streamBridge, never()).send(anyString(), any(Object.class));
+  }
+
+  @Test
+  void shouldCompletePublishOnceTheBrokerAcknowledges() {
+    ReflectionTestUtils.setField(outboxStreamPublisher, "awaitAcks", true);
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(true);
+    CompletableFuture<Void> ack = outboxStreamPublisher.publishAsync(7L, "123", "{}",
+        "transaction.posted");
+    assertThat(ack).isNotDone();
+    outboxStreamPublisher.onPublished(MessageBuilder.withPayload("{}")
+        .setHeader(OutboxStreamPublisher.OUTBOX_EVENT_ID_HEADER, 7L).build());
+    assertThat(ack).isCompleted();
+    assertThat(outboxStreamPublisher.pendingAcks()).isZero();
+  }
+
+  @Test
+  void shouldForgetAcksThatAreGivenUpOn() {
+    ReflectionTestUtils.setField(outboxStreamPublisher, "awaitAcks", true);
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(true);
+    CompletableFuture<Void> ack = outboxStreamPublisher.publishAsync(7L, "123", "{}",
+        "transaction.posted");
+    ack.cancel(false);
+    assertThat(outboxStreamPublisher.pendingAcks()).isZero();
+  }
+
+  @Test
+  void shouldFailPublishAsSoonAsTheProducerReportsTheFailure() {
+    ReflectionTestUtils.setField(outboxStreamPublisher, "awaitAcks", true);
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(true);
+    CompletableFuture<Void> ack = outboxStreamPublisher.publishAsync(7L, "123", "{}",
+        "transaction.posted");
+    Message<String> failed = MessageBuilder.withPayload("{}")
+        .setHeader(OutboxStreamPublisher.OUTBOX_EVENT_ID_HEADER, 7L).build();
+    outboxStreamPublisher.onPublishFailed(new ErrorMessage(
+        new MessagingException(failed, "RecordTooLargeException")));
+    assertThat(ack).isCompletedExceptionally();
+    assertThat(outboxStreamPublisher.pendingAcks()).isZero();
+  }
+
+  @Test
+  void shouldIgnoreErrorsOfOtherMessages() {
+    ReflectionTestUtils.setField(outboxStreamPublisher, "awaitAcks", true);
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(true);
+    CompletableFuture<Void> ack = outboxStreamPublisher.publishAsync(7L, "123", "{}",
+        "transaction.posted");
+    outboxStreamPublisher.onPublishFailed(new ErrorMessage(new MessagingException(
+        MessageBuilder.withPayload("{}").build(), "consumer failure")));
+    outboxStreamPublisher.onPublishFailed(new ErrorMessage(new IllegalStateException("other")));
+    assertThat(ack).isNotDone();
+  }
+
+  @Test
+  void shouldFailPublishRejectedByTheBinder() {
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(false);
+    CompletableFuture<Void> ack = outboxStreamPublisher.publishAsync(7L, "123", "{}",
+        "transaction.posted");
+    assertThat(ack).isCompletedExceptionally();
+  }
+
+  @Test
+  void shouldCompletePublishOnSendWhenNotAwaitingAcks() {
+    @SuppressWarnings("unchecked") ArgumentCaptor<Message<String>> messageCaptor = ArgumentCaptor.forClass(
+        Message.class);
+    when(streamBridge.send(eq("test-binding"), messageCaptor.capture())).thenReturn(true);
+    CompletableFuture<Void> ack = outboxStreamPublisher.publishAsync(7L, "123", "{}",
+        "transaction.posted");
+    assertThat(ack).isCompleted();
+    Message<String> sentMessage = messageCaptor.getValue();
+    assertThat(sentMessage.getPayload()).isEqualTo("{}");
+    assertThat(sentMessage.getHeaders().get("key")).isEqualTo("123");
+    assertThat(sentMessage.getHeaders().get("eventType")).isEqualTo("transaction.posted");
+    assertThat(sentMessage.getHeaders().get(OutboxStreamPublisher.OUTBOX_EVENT_ID_HEADER))
+        .isEqualTo(7L);
   }
 }
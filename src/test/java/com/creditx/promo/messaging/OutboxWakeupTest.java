@@ -0,0 +1,53 @@
+package com.creditx.promo.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class OutboxWakeupTest {
+
+  private final OutboxWakeup outboxWakeup = new OutboxWakeup();
+
+  @Test
+  void shouldKeepASignalGivenBeforeTheWait() throws InterruptedException {
+    // given
+    outboxWakeup.signal(3);
+
+    // when
+    boolean signalled = outboxWakeup.await(3, Duration.ZERO);
+
+    // then
+    assertThat(signalled).isTrue();
+  }
+
+  @Test
+  void shouldCoalesceSignals() throws InterruptedException {
+    // given
+    outboxWakeup.signal(0);
+    outboxWakeup.signal(0);
+    outboxWakeup.signal(0);
+
+    // when
+    boolean first = outboxWakeup.await(0, Duration.ZERO);
+    boolean second = outboxWakeup.await(0, Duration.ofMillis(10));
+
+    // then
+    assertThat(first).isTrue();
+    assertThat(second).isFalse();
+  }
+
+  @Test
+  void shouldOnlyWakeTheSignalledLane() throws InterruptedException {
+    // given
+    outboxWakeup.signal(1);
+
+    // when
+    boolean other = outboxWakeup.await(2, Duration.ofMillis(10));
+    boolean signalled = outboxWakeup.await(1, Duration.ZERO);
+
+    // then
+    assertThat(other).isFalse();
+    assertThat(signalled).isTrue();
+  }
+}
@@ -0,0 +1,83 @@
+package com.creditx.promo.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.Acknowledgment;
+
+class PartitionOffsetTrackerTest {
+
+  private final PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+  private final TopicPartition partition = new TopicPartition("transactions", 0);
+
+  @Test
+  void shouldAcknowledgeOnlyUpToLowestUnfinishedRecord() {
+    Acknowledgment ack10 = mock(Acknowledgment.class);
+    Acknowledgment ack11 = mock(Acknowledgment.class);
+    Acknowledgment ack12 = mock(Acknowledgment.class);
+    tracker.register(partition, 10, ack10);
+    tracker.register(partition, 11, ack11);
+    tracker.register(partition, 12, ack12);
+
+    tracker.complete(partition, 12);
+    tracker.complete(partition, 11);
+    verify(ack10, never()).acknowledge();
+    verify(ack11, never()).acknowledge();
+    verify(ack12, never()).acknowledge();
+    assertThat(tracker.inFlight(partition)).isEqualTo(3);
+
+    tracker.complete(partition, 10);
+    verify(ack12).acknowledge();
+    verify(ack10, never()).acknowledge();
+    verify(ack11, never()).acknowledge();
+    assertThat(tracker.inFlight(partition)).isZero();
+  }
+
+  @Test
+  void shouldAcknowledgeInOffsetOrder() {
+    Acknowledgment ack1 = mock(Acknowledgment.class);
+    Acknowledgment ack2 = mock(Acknowledgment.class);
+    tracker.register(partition, 1, ack1);
+    tracker.register(partition, 2, ack2);
+
+    tracker.complete(partition, 1);
+    tracker.complete(partition, 2);
+
+    InOrder order = inOrder(ack1, ack2);
+    order.verify(ack1).acknowledge();
+    order.verify(ack2).acknowledge();
+  }
+
+  @Test
+  void shouldTrackPartitionsIndependently() {
+    TopicPartition other = new TopicPartition("transactions", 1);
+    Acknowledgment ack = mock(Acknowledgment.class);
+    Acknowledgment otherAck = mock(Acknowledgment.class);
+    tracker.register(partition, 5, ack);
+    tracker.register(other, 3, otherAck);
+
+    tracker.complete(other, 3);
+
+    verify(otherAck).acknowledge();
+    verify(ack, never()).acknowledge();
+  }
+
+  @Test
+  void shouldReportDrainTimeoutAndForgetRevokedPartitions() throws Exception {
+    tracker.register(partition, 1, mock(Acknowledgment.class));
+
+    assertThat(tracker.awaitDrained(List.of(partition), Duration.ofMillis(20))).isFalse();
+
+    tracker.revoke(List.of(partition));
+    assertThat(tracker.inFlight(partition)).isZero();
+    assertThat(tracker.awaitDrained(List.of(partition), Duration.ofMillis(20))).isTrue();
+  }
+}
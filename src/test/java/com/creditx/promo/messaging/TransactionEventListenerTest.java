@@ -1,6 +1,13 @@
 package com.creditx.promo.messaging;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -8,11 +15,17 @@ import static org.mockito.Mockito.when;
 
 import com.creditx.promo.constants.EventTypes;
 import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.hashing.PayloadHasher;
+import com.creditx.promo.service.ProcessedEventService;
 import com.creditx.promo.service.TransactionEventService;
 import com.creditx.promo.tracing.TransactionSpanTagger;
 import com.creditx.promo.util.EventValidationUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,8 +36,11 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionEventListenerTest {
@@ -32,28 +48,42 @@ class TransactionEventListenerTest {
   @Mock
   private TransactionEventService transactionEventService;
 
+  @Mock
+  private ProcessedEventService processedEventService;
+
   @Mock
   private TransactionSpanTagger transactionSpanTagger;
 
   @Mock
-  private ObjectMapper objectMapper;
+  private TransactionPostedEventDecoder transactionPostedEventDecoder;
+
+  @Mock
+  private PayloadHasher payloadHasher;
+
+  @Mock
+  private KeyOrderedExecutor keyOrderedExecutor;
+
+  @Mock
+  private PartitionOffsetTracker partitionOffsetTracker;
 
   @InjectMocks
   private TransactionEventListener transactionEventListener;
 
-  private Consumer<Message<String>> transactionPostedConsumer;
+  private Consumer<Message<byte[]>> transactionPostedConsumer;
 
   @BeforeEach
   void setup() {
+    lenient().when(processedEventService.takePendingMarkerWrites())
+        .thenReturn(CompletableFuture.completedFuture(null));
     transactionPostedConsumer = transactionEventListener.transactionPosted();
   }
 
   @Test
   void shouldProcessValidTransactionPostedEvent() throws Exception {
     // given
-    String payload = "{\"transactionId\":1,\"type\":\"INBOUND\",\"issuerAccountId\":10,\"merchantAccountId\":20,\"amount\":100,\"currency\":\"USD\",\"createdAt\":\"2025-06-01T00:00:00Z\"}";
+    byte[] payload = "{\"transactionId\":1,\"type\":\"INBOUND\",\"issuerAccountId\":10,\"merchantAccountId\":20,\"amount\":100,\"currency\":\"USD\",\"createdAt\":\"2025-06-01T00:00:00Z\"}".getBytes(StandardCharsets.UTF_8);
 
-    Message<String> message = MessageBuilder.withPayload(payload)
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
         .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build();
 
     TransactionPostedEvent event = TransactionPostedEvent.builder().transactionId(1L)
@@ -67,7 +97,8 @@ class TransactionEventListenerTest {
       mockedUtils.when(
               () -> EventValidationUtils.validateEventType(message, EventTypes.TRANSACTION_POSTED))
           .thenReturn(true);
-      when(objectMapper.readValue(payload, TransactionPostedEvent.class)).thenReturn(event);
+      when(transactionPostedEventDecoder.decode(payload)).thenReturn(event);
+      when(payloadHasher.hash(payload)).thenReturn(new byte[] {1, 2, 3});
 
       // when
       transactionPostedConsumer.accept(message);
@@ -75,6 +106,7 @@ class TransactionEventListenerTest {
       // then
       verify(transactionEventService, times(1)).processTransactionPosted(event);
       verify(transactionSpanTagger, times(1)).tagTransactionId(1L);
+      assertThat(event.getPayloadHash()).containsExactly(1, 2, 3);
     }
   }
 
@@ -84,9 +116,9 @@ class TransactionEventListenerTest {
       EventTypes.TRANSACTION_AUTHORIZED})
   void shouldNotProcessInvalidTransactionPostedEvent(String eventType) throws Exception {
     // given
-    String payload = "{\"transactionId\":1,\"type\":\"INBOUND\"}";
+    byte[] payload = "{\"transactionId\":1,\"type\":\"INBOUND\"}".getBytes(StandardCharsets.UTF_8);
 
-    Message<String> message = MessageBuilder.withPayload(payload)
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
         .setHeader(EventTypes.EVENT_TYPE_HEADER, eventType).build();
 
     try (MockedStatic<EventValidationUtils> mockedUtils = Mockito.mockStatic(
@@ -109,9 +141,9 @@ class TransactionEventListenerTest {
   @Test
   void shouldNotProcessWhenJsonDeserializationFails() throws Exception {
     // given
-    String payload = "{invalid-json}";
+    byte[] payload = "{invalid-json}".getBytes(StandardCharsets.UTF_8);
 
-    Message<String> message = MessageBuilder.withPayload(payload)
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
         .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build();
 
     try (MockedStatic<EventValidationUtils> mockedUtils = Mockito.mockStatic(
@@ -120,9 +152,8 @@ class TransactionEventListenerTest {
       mockedUtils.when(
               () -> EventValidationUtils.validateEventType(message, EventTypes.TRANSACTION_POSTED))
           .thenReturn(true);
-      when(objectMapper.readValue(payload, TransactionPostedEvent.class)).thenThrow(
-          new com.fasterxml.jackson.core.JsonProcessingException("Invalid JSON") {
-          });
+      when(transactionPostedEventDecoder.decode(payload)).thenThrow(
+          new com.fasterxml.jackson.core.JsonParseException(null, "Invalid JSON"));
 
       // when
       transactionPostedConsumer.accept(message);
@@ -133,4 +164,216 @@ class TransactionEventListenerTest {
       verify(transactionSpanTagger, never()).tagTransactionId(any(Long.class));
     }
   }
+
+  @Test
+  void shouldProcessTransactionPostedBatch() throws Exception {
+    // given
+    byte[] payload1 = "{\"transactionId\":1,\"type\":\"INBOUND\"}".getBytes(StandardCharsets.UTF_8);
+    byte[] payload2 = "{\"transactionId\":2,\"type\":\"INBOUND\"}".getBytes(StandardCharsets.UTF_8);
+    TransactionPostedEvent event1 = TransactionPostedEvent.builder().transactionId(1L).build();
+    TransactionPostedEvent event2 = TransactionPostedEvent.builder().transactionId(2L).build();
+    when(transactionPostedEventDecoder.decode(payload1)).thenReturn(event1);
+    when(transactionPostedEventDecoder.decode(payload2)).thenReturn(event2);
+
+    List<Message<byte[]>> messages = List.of(
+        MessageBuilder.withPayload(payload1)
+            .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build(),
+        MessageBuilder.withPayload("{\"holdId\":1}".getBytes(StandardCharsets.UTF_8))
+            .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.HOLD_CREATED).build(),
+        MessageBuilder.withPayload(payload2)
+            .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build());
+
+    // when
+    transactionEventListener.transactionPostedBatch().accept(messages);
+
+    // then
+    verify(transactionEventService, times(1)).processTransactionPostedBatch(
+        List.of(event1, event2));
+    verify(transactionEventService, never()).processTransactionPosted(any());
+  }
+
+  @Test
+  void shouldFallBackToPerRecordProcessingWhenBatchFails() throws Exception {
+    // given
+    byte[] payload1 = "{\"transactionId\":1,\"type\":\"INBOUND\"}".getBytes(StandardCharsets.UTF_8);
+    byte[] payload2 = "{\"transactionId\":2,\"type\":\"INBOUND\"}".getBytes(StandardCharsets.UTF_8);
+    TransactionPostedEvent event1 = TransactionPostedEvent.builder().transactionId(1L).build();
+    TransactionPostedEvent event2 = TransactionPostedEvent.builder().transactionId(2L).build();
+    when(transactionPostedEventDecoder.decode(payload1)).thenReturn(event1);
+    when(transactionPostedEventDecoder.decode(payload2)).thenReturn(event2);
+    doThrow(new RuntimeException("batch failed")).when(transactionEventService)
+        .processTransactionPostedBatch(any());
+    doThrow(new RuntimeException("poison")).when(transactionEventService)
+        .processTransactionPosted(event1);
+
+    List<Message<byte[]>> messages = List.of(
+        MessageBuilder.withPayload(payload1)
+            .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build(),
+        MessageBuilder.withPayload(payload2)
+            .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build());
+
+    // when
+    transactionEventListener.transactionPostedBatch().accept(messages);
+
+    // then
+    verify(transactionEventService, times(1)).processTransactionPosted(event1);
+    verify(transactionEventService, times(1)).processTransactionPosted(event2);
+  }
+
+  @Test
+  void shouldDispatchParallelRecordByIssuerAndCompleteOffsetAfterProcessing() throws Exception {
+    // given
+    byte[] payload = "{\"transactionId\":1,\"issuerAccountId\":10,\"type\":\"INBOUND\"}".getBytes(
+        StandardCharsets.UTF_8);
+    TransactionPostedEvent event = TransactionPostedEvent.builder().transactionId(1L)
+        .issuerAccountId(10L).build();
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "transactions")
+        .setHeader(KafkaHeaders.RECEIVED_PARTITION, 3).setHeader(KafkaHeaders.OFFSET, 42L)
+        .build();
+    when(transactionPostedEventDecoder.decode(payload)).thenReturn(event);
+    when(keyOrderedExecutor.submit(eq("issuer:10"), any())).thenAnswer(inv -> {
+      inv.<Runnable>getArgument(1).run();
+      return CompletableFuture.completedFuture(null);
+    });
+    TopicPartition partition = new TopicPartition("transactions", 3);
+
+    // when
+    transactionEventListener.transactionPostedParallel().accept(message);
+
+    // then
+    verify(partitionOffsetTracker, times(1)).register(partition, 42L, acknowledgment);
+    verify(transactionEventService, times(1)).processTransactionPosted(event);
+    verify(partitionOffsetTracker, times(1)).complete(partition, 42L);
+  }
+
+  @Test
+  void shouldHoldBackParallelOffsetWhenMarkerWriteFails() throws Exception {
+    // given
+    byte[] payload = "{\"transactionId\":2,\"issuerAccountId\":10,\"type\":\"INBOUND\"}"
+        .getBytes(StandardCharsets.UTF_8);
+    TransactionPostedEvent event = TransactionPostedEvent.builder().transactionId(2L)
+        .issuerAccountId(10L).build();
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, mock(Acknowledgment.class))
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "transactions")
+        .setHeader(KafkaHeaders.RECEIVED_PARTITION, 3).setHeader(KafkaHeaders.OFFSET, 43L)
+        .build();
+    when(transactionPostedEventDecoder.decode(payload)).thenReturn(event);
+    when(keyOrderedExecutor.submit(eq("issuer:10"), any())).thenAnswer(inv -> {
+      inv.<Runnable>getArgument(1).run();
+      return CompletableFuture.completedFuture(null);
+    });
+    when(processedEventService.takePendingMarkerWrites())
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("db down")));
+
+    // when
+    transactionEventListener.transactionPostedParallel().accept(message);
+
+    // then
+    verify(transactionEventService, times(1)).processTransactionPosted(event);
+    verify(partitionOffsetTracker, never()).complete(any(), eq(43L));
+  }
+
+  @Test
+  void shouldFlushBufferedMarkersOnTheRecordListenerThread() throws Exception {
+    // given
+    byte[] payload = "{\"transactionId\":5}".getBytes(StandardCharsets.UTF_8);
+    TransactionPostedEvent event = TransactionPostedEvent.builder().transactionId(5L).build();
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build();
+    when(transactionPostedEventDecoder.decode(payload)).thenReturn(event);
+    CompletableFuture<Void> markerWrites = new CompletableFuture<>();
+    when(processedEventService.takePendingMarkerWrites()).thenReturn(markerWrites);
+    doAnswer(inv -> markerWrites.complete(null)).when(processedEventService)
+        .flushPendingMarkers();
+
+    // when
+    transactionPostedConsumer.accept(message);
+
+    // then
+    verify(processedEventService, times(1)).flushPendingMarkers();
+    assertThat(markerWrites).isCompleted();
+  }
+
+  @Test
+  void shouldFailRecordWhenMarkersAreNotWrittenInTime() throws Exception {
+    // given
+    ReflectionTestUtils.setField(transactionEventListener, "markerAwaitTimeoutMs", 10L);
+    byte[] payload = "{\"transactionId\":5}".getBytes(StandardCharsets.UTF_8);
+    TransactionPostedEvent event = TransactionPostedEvent.builder().transactionId(5L).build();
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build();
+    when(transactionPostedEventDecoder.decode(payload)).thenReturn(event);
+    when(processedEventService.takePendingMarkerWrites()).thenReturn(new CompletableFuture<>());
+
+    // when / then
+    assertThatThrownBy(() -> transactionPostedConsumer.accept(message))
+        .isInstanceOf(IllegalStateException.class).hasCauseInstanceOf(TimeoutException.class);
+  }
+
+  @Test
+  void shouldFlushBufferedMarkersOnceAtTheEndOfABatch() throws Exception {
+    // given
+    byte[] payload1 = "{\"transactionId\":5}".getBytes(StandardCharsets.UTF_8);
+    byte[] payload2 = "{\"transactionId\":6}".getBytes(StandardCharsets.UTF_8);
+    when(transactionPostedEventDecoder.decode(payload1)).thenReturn(
+        TransactionPostedEvent.builder().transactionId(5L).build());
+    when(transactionPostedEventDecoder.decode(payload2)).thenReturn(
+        TransactionPostedEvent.builder().transactionId(6L).build());
+    CompletableFuture<Void> markerWrites = new CompletableFuture<>();
+    when(processedEventService.takePendingMarkerWrites()).thenReturn(markerWrites);
+    doAnswer(inv -> markerWrites.complete(null)).when(processedEventService)
+        .flushPendingMarkers();
+    List<Message<byte[]>> messages = List.of(
+        MessageBuilder.withPayload(payload1)
+            .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build(),
+        MessageBuilder.withPayload(payload2)
+            .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build());
+
+    // when
+    transactionEventListener.transactionPostedBatch().accept(messages);
+
+    // then
+    verify(processedEventService, times(1)).flushPendingMarkers();
+    assertThat(markerWrites).isCompleted();
+  }
+
+  @Test
+  void shouldCompleteOffsetOfIgnoredParallelRecordImmediately() {
+    // given
+    Message<byte[]> message = MessageBuilder.withPayload("{}".getBytes(StandardCharsets.UTF_8))
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.HOLD_CREATED)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, mock(Acknowledgment.class))
+        .setHeader(KafkaHeaders.RECEIVED_TOPIC, "transactions")
+        .setHeader(KafkaHeaders.RECEIVED_PARTITION, 0).setHeader(KafkaHeaders.OFFSET, 7L).build();
+
+    // when
+    transactionEventListener.transactionPostedParallel().accept(message);
+
+    // then
+    verify(partitionOffsetTracker, times(1)).complete(new TopicPartition("transactions", 0), 7L);
+    verify(keyOrderedExecutor, never()).submit(any(), any());
+  }
+
+  @Test
+  void shouldDropEventsOfIgnoredTransactionTypes() throws Exception {
+    // given
+    byte[] payload = "{\"type\":\"CAPTURE\",\"transactionId\":1}".getBytes(
+        StandardCharsets.UTF_8);
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_POSTED).build();
+    when(transactionPostedEventDecoder.decode(payload)).thenReturn(null);
+
+    // when
+    transactionPostedConsumer.accept(message);
+
+    // then
+    verify(transactionEventService, never()).processTransactionPosted(any());
+    verify(transactionSpanTagger, never()).tagTransactionId(any(Long.class));
+  }
 }
@@ -0,0 +1,81 @@
+package com.creditx.promo.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class TransactionPostedEventDecoderTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(
+      new JavaTimeModule());
+  private final TransactionPostedEventDecoder decoder = new TransactionPostedEventDecoder(
+      objectMapper);
+
+  @Test
+  void shouldDecodeAllFields() throws Exception {
+    String json = """
+        {"transactionId":1,"type":"INBOUND","issuerAccountId":10,"merchantAccountId":20,
+         "amount":100.25,"currency":"USD","status":"POSTED","createdAt":"2025-06-01T00:00:00Z",
+         "extra":{"nested":[1,2,3]}}
+        """;
+
+    TransactionPostedEvent event = decoder.decode(json.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(event).isEqualTo(TransactionPostedEvent.builder().transactionId(1L)
+        .type(TransactionType.INBOUND).issuerAccountId(10L).merchantAccountId(20L)
+        .amount(new BigDecimal("100.25")).currency("USD").status("POSTED")
+        .createdAt(Instant.parse("2025-06-01T00:00:00Z")).build());
+  }
+
+  @Test
+  void shouldMatchObjectMapperForSerializedEvent() throws Exception {
+    TransactionPostedEvent original = TransactionPostedEvent.builder().transactionId(7L)
+        .type(TransactionType.CASHBACK).issuerAccountId(1L).merchantAccountId(null)
+        .amount(new BigDecimal("12.5")).currency("EUR")
+        .createdAt(Instant.parse("2025-06-01T10:15:30.123456Z")).build();
+    byte[] payload = objectMapper.writeValueAsBytes(original);
+
+    assertThat(decoder.decode(payload)).isEqualTo(
+        objectMapper.readValue(payload, TransactionPostedEvent.class));
+  }
+
+  @Test
+  void shouldDropIgnoredTransactionTypes() throws Exception {
+    byte[] capture = "{\"type\":\"CAPTURE\",\"transactionId\":1,\"amount\":1}".getBytes(
+        StandardCharsets.UTF_8);
+    byte[] compensation = "{\"transactionId\":1,\"type\":\"COMPENSATION\"}".getBytes(
+        StandardCharsets.UTF_8);
+
+    assertThat(decoder.decode(capture)).isNull();
+    assertThat(decoder.decode(compensation)).isNull();
+  }
+
+  @Test
+  void shouldAcceptNumericStringsAndOffsetTimestamps() throws Exception {
+    String json = "{\"transactionId\":\"5\",\"amount\":\"3.30\","
+        + "\"createdAt\":\"2025-06-01T02:00:00+02:00\"}";
+
+    TransactionPostedEvent event = decoder.decode(json.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(event.getTransactionId()).isEqualTo(5L);
+    assertThat(event.getAmount()).isEqualByComparingTo("3.30");
+    assertThat(event.getCreatedAt()).isEqualTo(Instant.parse("2025-06-01T00:00:00Z"));
+  }
+
+  @Test
+  void shouldRejectInvalidJson() {
+    assertThrows(IOException.class,
+        () -> decoder.decode("{invalid-json}".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(IOException.class,
+        () -> decoder.decode("[1,2]".getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,58 @@
+package com.creditx.promo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionMaintenanceRepositoryTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks
+  private PartitionMaintenanceRepository partitionMaintenanceRepository;
+
+  @Test
+  void shouldParseDateHighValues() {
+    // given
+    String highValue = "TO_DATE(' 2025-03-14 00:00:00', 'SYYYY-MM-DD HH24:MI:SS', "
+        + "'NLS_CALENDAR=GREGORIAN')";
+
+    // when
+    Instant parsed = PartitionMaintenanceRepository.parseHighValue(highValue);
+
+    // then
+    assertThat(parsed).isEqualTo(Instant.parse("2025-03-14T00:00:00Z"));
+  }
+
+  @Test
+  void shouldIgnoreHighValuesWithoutADate() {
+    assertThat(PartitionMaintenanceRepository.parseHighValue("MAXVALUE")).isNull();
+    assertThat(PartitionMaintenanceRepository.parseHighValue(null)).isNull();
+  }
+
+  @Test
+  void shouldDropPartitionsWhileMaintainingGlobalIndexes() {
+    // when
+    partitionMaintenanceRepository.dropPartition("CPRS_OUTBOX_EVENTS", "SYS_P1042");
+
+    // then
+    verify(jdbcTemplate).execute(
+        "ALTER TABLE CPRS_OUTBOX_EVENTS DROP PARTITION SYS_P1042 UPDATE GLOBAL INDEXES");
+  }
+
+  @Test
+  void shouldRejectIdentifiersThatAreNotPlainNames() {
+    assertThatThrownBy(() -> partitionMaintenanceRepository.truncatePartition(
+        "CPRS_OUTBOX_EVENTS", "P1; DROP TABLE X")).isInstanceOf(IllegalArgumentException.class);
+  }
+}
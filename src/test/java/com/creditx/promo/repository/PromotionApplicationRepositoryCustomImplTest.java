@@ -0,0 +1,76 @@
+package com.creditx.promo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.model.PromotionApplication;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionApplicationRepositoryCustomImplTest {
+
+  private static final UUID A1 = UUID.fromString("0190a1b2-c3d4-7000-8000-000000000001");
+  private static final UUID A2 = UUID.fromString("0190a1b2-c3d4-7001-8000-000000000002");
+  private static final UUID A3 = UUID.fromString("0190a1b2-c3d4-7002-8000-000000000003");
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks
+  private PromotionApplicationRepositoryCustomImpl repository;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldTakeInsertedRowsFromUpdateCounts() {
+    // given
+    when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(),
+        any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][]{{1, 0}});
+
+    // when
+    boolean[] inserted = repository.insertIfAbsent(List.of(application(A1), application(A2)));
+
+    // then
+    assertThat(inserted).containsExactly(true, false);
+    verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldLookUpRowsReportedWithoutAnUpdateCount() {
+    // given
+    when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(),
+        any(ParameterizedPreparedStatementSetter.class))).thenReturn(
+        new int[][]{{1, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO}});
+    when(jdbcTemplate.query(eq("""
+        SELECT APPLICATION_ID FROM CPRS_PROMO_APPLICATIONS WHERE APPLICATION_ID IN (?,?)
+        """), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(A3));
+
+    // when
+    boolean[] inserted = repository.insertIfAbsent(
+        List.of(application(A1), application(A2), application(A3)));
+
+    // then: A2 was skipped as a duplicate, A3 was inserted
+    assertThat(inserted).containsExactly(true, false, true);
+  }
+
+  private static PromotionApplication application(UUID applicationId) {
+    return PromotionApplication.builder().applicationId(applicationId).build();
+  }
+}
@@ -0,0 +1,74 @@
+package com.creditx.promo.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long FAST = Duration.ofMillis(10).toNanos();
+  private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+  private AdaptiveConcurrencyLimiter limiter;
+
+  @BeforeEach
+  void setup() {
+    limiter = new AdaptiveConcurrencyLimiter(4, 1, 6, 0.5, Duration.ofSeconds(1));
+  }
+
+  @Test
+  void shouldRejectCallsBeyondTheLimit() throws InterruptedException {
+    // when
+    for (int i = 0; i < 4; i++) {
+      assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+    }
+
+    // then
+    assertThat(limiter.tryAcquire(Duration.ofMillis(10))).isFalse();
+    limiter.release();
+    assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+  }
+
+  @Test
+  void shouldGrowWhileFastCallsUseTheLimit() throws InterruptedException {
+    // given
+    for (int i = 0; i < 3; i++) {
+      limiter.tryAcquire(Duration.ZERO);
+    }
+
+    // when
+    for (int i = 0; i < 5; i++) {
+      limiter.onSample(FAST, false);
+    }
+
+    // then: capped at the maximum
+    assertThat(limiter.limit()).isEqualTo(6);
+  }
+
+  @Test
+  void shouldNotGrowWhileMostlyIdle() throws InterruptedException {
+    // given
+    limiter.tryAcquire(Duration.ZERO);
+
+    // when
+    limiter.onSample(FAST, false);
+
+    // then
+    assertThat(limiter.limit()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldShrinkOnSlowOrDroppedCalls() {
+    // when
+    limiter.onSample(SLOW, false);
+    int afterSlow = limiter.limit();
+    limiter.onSample(FAST, true);
+    limiter.onSample(FAST, true);
+
+    // then: never below the minimum
+    assertThat(afterSlow).isEqualTo(2);
+    assertThat(limiter.limit()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,93 @@
+package com.creditx.promo.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private CircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setup() {
+    circuitBreaker = new CircuitBreaker("test", 4, 4, 0.5, Duration.ofSeconds(10), 2, now::get);
+  }
+
+  @Test
+  void shouldOpenOnceTheFailureRateReachesTheThreshold() {
+    // when
+    circuitBreaker.onFailure();
+    circuitBreaker.onSuccess();
+    circuitBreaker.onSuccess();
+    boolean closedAfterThreeCalls = circuitBreaker.state() == CircuitBreaker.State.CLOSED;
+    circuitBreaker.onFailure();
+
+    // then
+    assertThat(closedAfterThreeCalls).isTrue();
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    assertThat(circuitBreaker.isCallPermitted()).isFalse();
+  }
+
+  @Test
+  void shouldOnlyCountTheMostRecentCalls() {
+    // when
+    circuitBreaker.onFailure();
+    circuitBreaker.onFailure();
+    for (int i = 0; i < 4; i++) {
+      circuitBreaker.onSuccess();
+    }
+    circuitBreaker.onFailure();
+
+    // then
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void shouldCloseAfterSuccessfulProbes() {
+    // given
+    openCircuit();
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+    // when
+    assertThat(circuitBreaker.isCallPermitted()).isTrue();
+    boolean first = circuitBreaker.tryAcquirePermission();
+    CircuitBreaker.State probing = circuitBreaker.state();
+    boolean second = circuitBreaker.tryAcquirePermission();
+    boolean third = circuitBreaker.tryAcquirePermission();
+    circuitBreaker.onSuccess();
+    circuitBreaker.onSuccess();
+
+    // then
+    assertThat(first).isTrue();
+    assertThat(second).isTrue();
+    assertThat(third).isFalse();
+    assertThat(probing).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void shouldReopenWhenAProbeFails() {
+    // given
+    openCircuit();
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+    // when
+    circuitBreaker.tryAcquirePermission();
+    circuitBreaker.onFailure();
+
+    // then
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+  }
+
+  private void openCircuit() {
+    for (int i = 0; i < 4; i++) {
+      circuitBreaker.onFailure();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.creditx.promo.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.model.Promotion;
+import com.creditx.promo.model.PromotionStatus;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledPromotionCacheTest {
+
+  private CompiledPromotionCache compiledPromotionCache;
+  private Promotion promotion;
+
+  @BeforeEach
+  void setup() {
+    compiledPromotionCache = new CompiledPromotionCache();
+    promotion = Promotion.builder().promoId("P1").name("Test Promo")
+        .eligibilityRules("{\"minAmount\":50.005,\"merchantIds\":[200,300]}")
+        .rewardFormula("{\"cashbackPercent\":10,\"maxCashback\":25}").status(PromotionStatus.ACTIVE)
+        .updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build();
+  }
+
+  @Test
+  void shouldReuseCompiledPromotionWhileUnchanged() {
+    // when
+    CompiledPromotion first = compiledPromotionCache.get(promotion);
+    CompiledPromotion second = compiledPromotionCache.get(promotion);
+
+    // then
+    assertThat(second).isSameAs(first);
+    assertThat(compiledPromotionCache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRecompileWhenUpdatedAtChanges() {
+    // given
+    CompiledPromotion first = compiledPromotionCache.get(promotion);
+    promotion.setRewardFormula("{\"cashbackPercent\":20,\"maxCashback\":25}");
+    promotion.setUpdatedAt(Instant.parse("2025-02-01T00:00:00Z"));
+
+    // when
+    CompiledPromotion second = compiledPromotionCache.get(promotion);
+
+    // then
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.cashback(new BigDecimal("100"), 2, RoundingMode.HALF_UP)).isEqualByComparingTo("20");
+  }
+
+  @Test
+  void shouldCompareSourcesWhenUpdatedAtIsMissing() {
+    // given
+    promotion.setUpdatedAt(null);
+    CompiledPromotion first = compiledPromotionCache.get(promotion);
+
+    // when
+    CompiledPromotion same = compiledPromotionCache.get(promotion);
+    promotion.setEligibilityRules("{}");
+    CompiledPromotion changed = compiledPromotionCache.get(promotion);
+
+    // then
+    assertThat(same).isSameAs(first);
+    assertThat(changed).isNotSameAs(first);
+  }
+
+  @Test
+  void shouldEvaluateCompiledRulesLikeTheJson() {
+    // given
+    CompiledPromotion compiled = compiledPromotionCache.get(promotion);
+
+    // then
+    assertThat(compiled.isEligible(event(new BigDecimal("50.01"), 300L))).isTrue();
+    assertThat(compiled.isEligible(event(new BigDecimal("50.00"), 300L))).isFalse();
+    assertThat(compiled.isEligible(event(new BigDecimal("100"), 400L))).isFalse();
+    assertThat(compiled.isEligible(event(new BigDecimal("100"), null))).isFalse();
+    assertThat(compiled.cashback(new BigDecimal("300"), 2, RoundingMode.HALF_UP)).isEqualByComparingTo("25");
+  }
+
+  @Test
+  void shouldNeverMatchUnparseableRules() {
+    // given
+    promotion.setEligibilityRules("not-json");
+    promotion.setRewardFormula("not-json");
+
+    // when
+    CompiledPromotion compiled = compiledPromotionCache.get(promotion);
+
+    // then
+    assertThat(compiled.isEligible(event(new BigDecimal("100"), 200L))).isFalse();
+    assertThat(compiled.cashback(new BigDecimal("100"), 2, RoundingMode.HALF_UP)).isZero();
+  }
+
+  @Test
+  void shouldRecompileAfterInvalidate() {
+    // given
+    CompiledPromotion first = compiledPromotionCache.get(promotion);
+
+    // when
+    compiledPromotionCache.invalidate("P1");
+
+    // then
+    assertThat(compiledPromotionCache.get(promotion)).isNotSameAs(first);
+  }
+
+  private static TransactionPostedEvent event(BigDecimal amount, Long merchantAccountId) {
+    return TransactionPostedEvent.builder().transactionId(1L).issuerAccountId(1L)
+        .merchantAccountId(merchantAccountId).amount(amount).currency("USD")
+        .createdAt(Instant.parse("2025-06-01T00:00:00Z")).build();
+  }
+}
@@ -0,0 +1,50 @@
+package com.creditx.promo.scheduler;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.service.CashbackDispatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class CashbackDispatchSchedulerTest {
+
+  @Mock
+  private CashbackDispatchService cashbackDispatchService;
+
+  @InjectMocks
+  private CashbackDispatchScheduler cashbackDispatchScheduler;
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(cashbackDispatchScheduler, "batchSize", 10);
+  }
+
+  @Test
+  void shouldKeepDispatchingWhileBatchesAreFull() {
+    when(cashbackDispatchService.dispatchPending(10)).thenReturn(10, 10, 3);
+    cashbackDispatchScheduler.dispatchPendingCashbacks();
+    verify(cashbackDispatchService, times(3)).dispatchPending(10);
+  }
+
+  @Test
+  void shouldKeepParkingExpiredClaimsWhileRoundsAreFull() {
+    when(cashbackDispatchService.parkExpiredClaims(10)).thenReturn(10, 0);
+    cashbackDispatchScheduler.parkExpiredClaims();
+    verify(cashbackDispatchService, times(2)).parkExpiredClaims(10);
+  }
+
+  @Test
+  void shouldSwallowDispatchFailures() {
+    when(cashbackDispatchService.dispatchPending(10)).thenThrow(new RuntimeException("DB down"));
+    cashbackDispatchScheduler.dispatchPendingCashbacks();
+    verify(cashbackDispatchService, times(1)).dispatchPending(10);
+  }
+}
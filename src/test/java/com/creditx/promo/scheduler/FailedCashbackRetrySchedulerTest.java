@@ -0,0 +1,43 @@
+package com.creditx.promo.scheduler;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.service.CashbackDispatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class FailedCashbackRetrySchedulerTest {
+
+  @Mock
+  private CashbackDispatchService cashbackDispatchService;
+
+  @InjectMocks
+  private FailedCashbackRetryScheduler failedCashbackRetryScheduler;
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(failedCashbackRetryScheduler, "batchSize", 10);
+  }
+
+  @Test
+  void shouldKeepRetryingWhileBatchesAreFull() {
+    when(cashbackDispatchService.retryFailed(10)).thenReturn(10, 10, 3);
+    failedCashbackRetryScheduler.retryFailedCashbacks();
+    verify(cashbackDispatchService, times(3)).retryFailed(10);
+  }
+
+  @Test
+  void shouldSwallowRetryFailures() {
+    when(cashbackDispatchService.retryFailed(10)).thenThrow(new RuntimeException("DB down"));
+    failedCashbackRetryScheduler.retryFailedCashbacks();
+    verify(cashbackDispatchService, times(1)).retryFailed(10);
+  }
+}
@@ -1,22 +1,33 @@
 package com.creditx.promo.scheduler;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.creditx.promo.messaging.OutboxStreamPublisher;
+import com.creditx.promo.messaging.OutboxWakeup;
 import com.creditx.promo.model.OutboxEvent;
 import com.creditx.promo.service.OutboxEventService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -30,56 +41,225 @@ class OutboxEventPublishingSchedulerTest {
   @Mock
   private OutboxStreamPublisher outboxStreamPublisher;
 
-  @InjectMocks
+  private final OutboxWakeup outboxWakeup = new OutboxWakeup();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
   private OutboxEventPublishingScheduler outboxEventPublishingScheduler;
 
   @BeforeEach
   void setup() {
+    outboxEventPublishingScheduler = new OutboxEventPublishingScheduler(outboxEventService,
+        outboxStreamPublisher, outboxWakeup, meterRegistry);
     ReflectionTestUtils.setField(outboxEventPublishingScheduler, "batchSize", 10);
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "ackTimeoutMs", 100L);
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "minIntervalMs", 50L);
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "maxIntervalMs", 5_000L);
   }
 
   @Test
-  void shouldPublishPendingEvents() {
-    OutboxEvent event1 = createOutboxEvent(123L, "{\"transactionId\":123}");
-    OutboxEvent event2 = createOutboxEvent(456L, "{\"transactionId\":456}");
+  void shouldPublishPendingEventsAndMarkThemInBulk() {
+    OutboxEvent event1 = createOutboxEvent(1L, 123L, "{\"transactionId\":123}");
+    OutboxEvent event2 = createOutboxEvent(2L, 456L, "{\"transactionId\":456}");
     List<OutboxEvent> events = Arrays.asList(event1, event2);
-    when(outboxEventService.fetchPendingEvents(10)).thenReturn(events);
-    outboxEventPublishingScheduler.publishPendingEvents();
-    verify(outboxStreamPublisher, times(1)).publish("123", "{\"transactionId\":123}",
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(events);
+    when(outboxStreamPublisher.publishAsync(anyLong(), any(), any(), any())).thenReturn(
+        CompletableFuture.completedFuture(null));
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    verify(outboxStreamPublisher, times(1)).publishAsync(1L, "123", "{\"transactionId\":123}",
         "transaction.posted");
-    verify(outboxStreamPublisher, times(1)).publish("456", "{\"transactionId\":456}",
+    verify(outboxStreamPublisher, times(1)).publishAsync(2L, "456", "{\"transactionId\":456}",
         "transaction.posted");
-    verify(outboxEventService, times(1)).markAsPublished(event1);
-    verify(outboxEventService, times(1)).markAsPublished(event2);
+    verify(outboxEventService, times(1)).markAllAsPublished(List.of(1L, 2L));
+    verify(outboxEventService, times(1)).markAllAsFailed(List.of());
+    assertThat(meterRegistry.get("outbox.publish.latency").timer().count()).isEqualTo(2);
   }
 
   @Test
   void shouldNotPublishWhenNoPendingEvents() {
-    when(outboxEventService.fetchPendingEvents(10)).thenReturn(Collections.emptyList());
-    outboxEventPublishingScheduler.publishPendingEvents();
-    verify(outboxStreamPublisher, never()).publish(any(), any(), any());
-    verify(outboxEventService, never()).markAsPublished(any());
-    verify(outboxEventService, never()).markAsFailed(any());
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(Collections.emptyList());
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    verify(outboxStreamPublisher, never()).publishAsync(any(), any(), any(), any());
+    verify(outboxEventService, never()).markAllAsPublished(any());
+    verify(outboxEventService, never()).markAllAsFailed(any());
   }
 
   @Test
-  void shouldMarkAsFailedWhenPublishingFails() {
-    OutboxEvent event = createOutboxEvent(123L, "{\"transactionId\":123}");
-    when(outboxEventService.fetchPendingEvents(10)).thenReturn(List.of(event));
-    doThrow(new RuntimeException("Publishing failed")).when(outboxStreamPublisher)
-        .publish("123", "{\"transactionId\":123}", "transaction.posted");
-    outboxEventPublishingScheduler.publishPendingEvents();
-    verify(outboxStreamPublisher, times(1)).publish("123", "{\"transactionId\":123}",
+  void shouldRetryEventWhosePublishFailed() {
+    OutboxEvent event = createOutboxEvent(1L, 123L, "{\"transactionId\":123}");
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(List.of(event));
+    when(outboxStreamPublisher.publishAsync(1L, "123", "{\"transactionId\":123}",
+        "transaction.posted")).thenReturn(
+        CompletableFuture.failedFuture(new RuntimeException("Publishing failed")));
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    verify(outboxEventService, times(1)).markAllAsPublished(List.of());
+    verify(outboxEventService, times(1)).markAllAsFailed(List.of());
+    verify(outboxEventService, times(1)).retryLater(List.of(1L));
+  }
+
+  @Test
+  void shouldMarkEventWithoutAggregateAsFailed() {
+    OutboxEvent event = createOutboxEvent(1L, null, "{\"transactionId\":123}");
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(List.of(event));
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    verify(outboxStreamPublisher, never()).publishAsync(any(), any(), any(), any());
+    verify(outboxEventService, times(1)).markAllAsFailed(List.of(1L));
+    verify(outboxEventService, times(1)).retryLater(List.of());
+  }
+
+  @Test
+  void shouldRetryEventWhenNoAckArrivesInTime() {
+    OutboxEvent event = createOutboxEvent(1L, 123L, "{\"transactionId\":123}");
+    CompletableFuture<Void> ack = new CompletableFuture<>();
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(List.of(event));
+    when(outboxStreamPublisher.publishAsync(anyLong(), any(), any(), any())).thenReturn(ack);
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    verify(outboxEventService, times(1)).retryLater(List.of(1L));
+    assertThat(ack).isCancelled();
+  }
+
+  @Test
+  void shouldHoldBackLaterEventsOfAnAggregateWhoseEventWasRejected() {
+    OutboxEvent rejected = createOutboxEvent(1L, 123L, "{\"seq\":1}");
+    OutboxEvent other = createOutboxEvent(2L, 456L, "{\"seq\":1}");
+    OutboxEvent later = createOutboxEvent(3L, 123L, "{\"seq\":2}");
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(
+        List.of(rejected, other, later));
+    when(outboxStreamPublisher.publishAsync(1L, "123", "{\"seq\":1}",
+        "transaction.posted")).thenReturn(
+        CompletableFuture.failedFuture(new IllegalStateException("rejected")));
+    when(outboxStreamPublisher.publishAsync(2L, "456", "{\"seq\":1}",
+        "transaction.posted")).thenReturn(CompletableFuture.completedFuture(null));
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    verify(outboxStreamPublisher, never()).publishAsync(3L, "123", "{\"seq\":2}",
+        "transaction.posted");
+    verify(outboxEventService, times(1)).markAllAsPublished(List.of(2L));
+    InOrder order = inOrder(outboxEventService);
+    order.verify(outboxEventService).retryLater(List.of(1L));
+    order.verify(outboxEventService).releaseClaims(List.of(3L));
+  }
+
+  @Test
+  void shouldSendAnAggregatesNextEventOnlyOnceTheEarlierOneIsAcknowledged() {
+    OutboxEvent first = createOutboxEvent(1L, 123L, "{\"seq\":1}");
+    OutboxEvent second = createOutboxEvent(2L, 123L, "{\"seq\":2}");
+    CompletableFuture<Void> firstAck = new CompletableFuture<>();
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(List.of(first, second));
+    when(outboxStreamPublisher.publishAsync(1L, "123", "{\"seq\":1}", "transaction.posted"))
+        .thenAnswer(inv -> {
+          CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS).execute(
+              () -> firstAck.complete(null));
+          return firstAck;
+        });
+    when(outboxStreamPublisher.publishAsync(2L, "123", "{\"seq\":2}", "transaction.posted"))
+        .thenAnswer(inv -> {
+          assertThat(firstAck).isCompleted();
+          return CompletableFuture.completedFuture(null);
+        });
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    InOrder order = inOrder(outboxStreamPublisher);
+    order.verify(outboxStreamPublisher).publishAsync(1L, "123", "{\"seq\":1}",
+        "transaction.posted");
+    order.verify(outboxStreamPublisher).publishAsync(2L, "123", "{\"seq\":2}",
+        "transaction.posted");
+    verify(outboxEventService, times(1)).markAllAsPublished(List.of(1L, 2L));
+  }
+
+  @Test
+  void shouldHoldBackLaterEventsWhenAnEarlierAckFailsAsynchronously() {
+    OutboxEvent first = createOutboxEvent(1L, 123L, "{\"seq\":1}");
+    OutboxEvent other = createOutboxEvent(2L, 456L, "{\"seq\":1}");
+    OutboxEvent second = createOutboxEvent(3L, 123L, "{\"seq\":2}");
+    CompletableFuture<Void> firstAck = new CompletableFuture<>();
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(
+        List.of(first, other, second));
+    // The send is accepted; the broker's negative acknowledgement arrives later
+    when(outboxStreamPublisher.publishAsync(1L, "123", "{\"seq\":1}", "transaction.posted"))
+        .thenAnswer(inv -> {
+          CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS).execute(
+              () -> firstAck.completeExceptionally(new RuntimeException("NOT_ENOUGH_REPLICAS")));
+          return firstAck;
+        });
+    when(outboxStreamPublisher.publishAsync(2L, "456", "{\"seq\":1}", "transaction.posted"))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    outboxEventPublishingScheduler.publishPendingEvents(0);
+    verify(outboxStreamPublisher, never()).publishAsync(3L, "123", "{\"seq\":2}",
         "transaction.posted");
-    verify(outboxEventService, never()).markAsPublished(event);
-    verify(outboxEventService, times(1)).markAsFailed(event);
+    verify(outboxEventService, times(1)).markAllAsPublished(List.of(2L));
+    verify(outboxEventService, times(1)).retryLater(List.of(1L));
+    verify(outboxEventService, times(1)).releaseClaims(List.of(3L));
+  }
+
+  @Test
+  void shouldBackOffWhileIdleAndSpeedUpWhenEventsAppear() {
+    assertThat(outboxEventPublishingScheduler.nextInterval(50, 0)).isEqualTo(100);
+    assertThat(outboxEventPublishingScheduler.nextInterval(4_000, 0)).isEqualTo(5_000);
+    assertThat(outboxEventPublishingScheduler.nextInterval(5_000, 0)).isEqualTo(5_000);
+    assertThat(outboxEventPublishingScheduler.nextInterval(5_000, 3)).isEqualTo(50);
+  }
+
+  @Test
+  void shouldPublishAsSoonAsWokenWhileIdle() {
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "minIntervalMs", 60_000L);
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "maxIntervalMs", 60_000L);
+    when(outboxEventService.fetchPendingEvents(0, 10)).thenReturn(List.of());
+    outboxEventPublishingScheduler.start();
+    outboxEventPublishingScheduler.assignLanes(List.of(0), validFor(60_000));
+    try {
+      verify(outboxEventService, timeout(1_000).times(1)).fetchPendingEvents(0, 10);
+      outboxWakeup.signal(0);
+      verify(outboxEventService, timeout(1_000).times(2)).fetchPendingEvents(0, 10);
+    } finally {
+      outboxEventPublishingScheduler.stop();
+    }
+    assertThat(outboxEventPublishingScheduler.isRunning()).isFalse();
+    assertThat(outboxEventPublishingScheduler.activeLanes()).isEmpty();
+  }
+
+  @Test
+  void shouldRunOneWorkerPerAssignedLane() {
+    when(outboxEventService.fetchPendingEvents(anyInt(), eq(10))).thenReturn(List.of());
+    outboxEventPublishingScheduler.start();
+    try {
+      outboxEventPublishingScheduler.assignLanes(List.of(1, 2), validFor(60_000));
+      verify(outboxEventService, timeout(1_000).atLeastOnce()).fetchPendingEvents(1, 10);
+      verify(outboxEventService, timeout(1_000).atLeastOnce()).fetchPendingEvents(2, 10);
+
+      outboxEventPublishingScheduler.assignLanes(List.of(2), validFor(60_000));
+
+      assertThat(outboxEventPublishingScheduler.activeLanes()).containsExactly(2);
+      clearInvocations(outboxEventService);
+      outboxWakeup.signal(1);
+      outboxWakeup.signal(2);
+      verify(outboxEventService, timeout(1_000).atLeastOnce()).fetchPendingEvents(2, 10);
+      verify(outboxEventService, never()).fetchPendingEvents(1, 10);
+    } finally {
+      outboxEventPublishingScheduler.stop();
+    }
+  }
+
+  @Test
+  void shouldNotPublishALaneWhoseLeaseLapsed() throws InterruptedException {
+    outboxEventPublishingScheduler.start();
+    try {
+      outboxEventPublishingScheduler.assignLanes(List.of(0), System.nanoTime());
+      outboxWakeup.signal(0);
+      Thread.sleep(100);
+      verify(outboxEventService, never()).fetchPendingEvents(anyInt(), anyInt());
+    } finally {
+      outboxEventPublishingScheduler.stop();
+    }
+  }
+
+  private static long validFor(long millis) {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
   }
 
-  private OutboxEvent createOutboxEvent(Long aggregateId, String payload) {
+  private OutboxEvent createOutboxEvent(Long eventId, Long aggregateId, String payload) {
     OutboxEvent event = new OutboxEvent();
+    event.setEventId(eventId);
     event.setAggregateId(aggregateId);
     event.setPayload(payload);
     event.setEventType("transaction.posted");
+    event.setCreatedAt(Instant.now());
     return event;
   }
 }
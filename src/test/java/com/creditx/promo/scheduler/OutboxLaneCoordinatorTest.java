@@ -0,0 +1,111 @@
+package com.creditx.promo.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.repository.OutboxLaneLeaseRepository;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxLaneCoordinatorTest {
+
+  private static final Duration LEASE = Duration.ofSeconds(15);
+
+  @Mock
+  private OutboxLaneLeaseRepository outboxLaneLeaseRepository;
+
+  @Mock
+  private OutboxEventPublishingScheduler outboxEventPublishingScheduler;
+
+  @InjectMocks
+  private OutboxLaneCoordinator outboxLaneCoordinator;
+
+  @Test
+  void shouldTakeEveryLaneWhenAlone() {
+    // given
+    when(outboxLaneLeaseRepository.renew(anyString(), eq(LEASE), eq(16))).thenReturn(List.of());
+    when(outboxLaneLeaseRepository.countLiveNodes(LEASE)).thenReturn(1);
+    List<Integer> all = List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15);
+    when(outboxLaneLeaseRepository.acquire(anyString(), eq(LEASE), eq(16), eq(16)))
+        .thenReturn(all);
+
+    // when
+    outboxLaneCoordinator.rebalance();
+
+    // then
+    verify(outboxLaneLeaseRepository).ensureLanes(16);
+    verify(outboxLaneLeaseRepository).heartbeat(anyString(), eq(LEASE));
+    verify(outboxEventPublishingScheduler).assignLanes(eq(all), anyLong());
+  }
+
+  @Test
+  void shouldStopSurplusLanesBeforeReleasingThem() {
+    // given
+    when(outboxLaneLeaseRepository.renew(anyString(), eq(LEASE), eq(16))).thenReturn(
+        List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+    when(outboxLaneLeaseRepository.countLiveNodes(LEASE)).thenReturn(2);
+
+    // when
+    outboxLaneCoordinator.rebalance();
+
+    // then
+    InOrder order = inOrder(outboxEventPublishingScheduler, outboxLaneLeaseRepository);
+    order.verify(outboxEventPublishingScheduler).assignLanes(eq(List.of(0, 1, 2, 3, 4, 5, 6, 7)),
+        anyLong());
+    order.verify(outboxLaneLeaseRepository).release(anyString(), eq(List.of(8, 9)));
+    verify(outboxLaneLeaseRepository, never()).acquire(anyString(), any(), anyInt(), anyInt());
+  }
+
+  @Test
+  void shouldKeepLanesAssignedWhenTheDatabaseIsUnavailable() {
+    // given
+    when(outboxLaneLeaseRepository.renew(anyString(), eq(LEASE), eq(16)))
+        .thenThrow(new RuntimeException("DB down"));
+
+    // when
+    outboxLaneCoordinator.rebalance();
+
+    // then
+    verify(outboxEventPublishingScheduler, never()).assignLanes(any(), anyLong());
+  }
+
+  @Test
+  void shouldReleaseHeldLanesOnShutdown() {
+    // given
+    when(outboxLaneLeaseRepository.renew(anyString(), eq(LEASE), eq(16))).thenReturn(
+        List.of(3, 4));
+    when(outboxLaneLeaseRepository.countLiveNodes(LEASE)).thenReturn(8);
+    outboxLaneCoordinator.rebalance();
+
+    // when
+    outboxLaneCoordinator.destroy();
+
+    // then
+    InOrder order = inOrder(outboxEventPublishingScheduler, outboxLaneLeaseRepository);
+    order.verify(outboxEventPublishingScheduler).assignLanes(eq(List.of()), anyLong());
+    order.verify(outboxLaneLeaseRepository).release(anyString(), eq(List.of(3, 4)));
+  }
+
+  @Test
+  void shouldSplitLanesEvenly() {
+    assertThat(OutboxLaneCoordinator.fairShare(16, 0)).isEqualTo(16);
+    assertThat(OutboxLaneCoordinator.fairShare(16, 1)).isEqualTo(16);
+    assertThat(OutboxLaneCoordinator.fairShare(16, 3)).isEqualTo(6);
+    assertThat(OutboxLaneCoordinator.fairShare(16, 32)).isEqualTo(1);
+  }
+}
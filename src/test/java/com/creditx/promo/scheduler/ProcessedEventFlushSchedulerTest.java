@@ -0,0 +1,38 @@
+package com.creditx.promo.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.creditx.promo.service.ProcessedEventService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+class ProcessedEventFlushSchedulerTest {
+
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withBean(ProcessedEventService.class, () -> mock(ProcessedEventService.class))
+      .withUserConfiguration(ProcessedEventFlushScheduler.class);
+
+  @Test
+  void shouldNotScheduleFlushWhenWriteBehindIsDisabled() {
+    contextRunner.run(context ->
+        assertThat(context).doesNotHaveBean(ProcessedEventFlushScheduler.class));
+  }
+
+  @Test
+  void shouldScheduleFlushWhenWriteBehindIsEnabled() {
+    contextRunner.withPropertyValues("app.dedup.write-behind.enabled=true").run(context ->
+        assertThat(context).hasSingleBean(ProcessedEventFlushScheduler.class));
+  }
+
+  @Test
+  void shouldSwallowFlushFailures() {
+    ProcessedEventService processedEventService = mock(ProcessedEventService.class);
+    doThrow(new RuntimeException("DB down")).when(processedEventService).flushPendingMarkers();
+    new ProcessedEventFlushScheduler(processedEventService).flushPendingMarkers();
+    verify(processedEventService, times(1)).flushPendingMarkers();
+  }
+}
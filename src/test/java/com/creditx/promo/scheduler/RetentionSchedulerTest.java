@@ -0,0 +1,38 @@
+package com.creditx.promo.scheduler;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.service.RetentionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RetentionSchedulerTest {
+
+  @Mock
+  private RetentionService retentionService;
+
+  @InjectMocks
+  private RetentionScheduler retentionScheduler;
+
+  @Test
+  void shouldSwallowPurgeFailures() {
+    when(retentionService.purgeExpiredPartitions()).thenThrow(new RuntimeException("DB down"));
+    retentionScheduler.purgeExpiredPartitions();
+    verify(retentionService, times(1)).purgeExpiredPartitions();
+  }
+
+  @Test
+  void shouldDoNothingWhenDisabled() {
+    ReflectionTestUtils.setField(retentionScheduler, "enabled", false);
+    retentionScheduler.purgeExpiredPartitions();
+    verifyNoInteractions(retentionService);
+  }
+}
@@ -6,17 +6,22 @@ import com.creditx.promo.dto.TransactionPostedEvent;
 import com.creditx.promo.model.Promotion;
 import com.creditx.promo.model.PromotionStatus;
 import com.creditx.promo.model.TransactionType;
+import com.creditx.promo.rules.CompiledPromotionCache;
 import java.math.BigDecimal;
 import java.time.Instant;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class CashbackCalculatorServiceImplTest {
 
+  @Spy
+  private CompiledPromotionCache compiledPromotionCache;
+
   @InjectMocks
   private CashbackCalculatorServiceImpl cashbackCalculatorService;
 
@@ -123,4 +128,46 @@ class CashbackCalculatorServiceImplTest {
     // then
     assertThat(result).isEqualByComparingTo("10.00"); // 50% of 100 = 50, but capped at 10
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldRoundFractionalPercentagesToTheCurrencyMinorUnit() {
+    // given
+    Promotion fractionalPromotion = Promotion.builder().promoId("P5").name("Fractional Promo")
+        .startDate(Instant.now()).expiryDate(Instant.now().plusSeconds(3600)).eligibilityRules("{}")
+        .rewardFormula("{\"cashbackPercent\":3.333,\"maxCashback\":100}")
+        .status(PromotionStatus.ACTIVE).build();
+    TransactionPostedEvent usdEvent = TransactionPostedEvent.builder().transactionId(1L)
+        .issuerAccountId(1L).merchantAccountId(2L).amount(new BigDecimal("100.15")).currency("USD")
+        .type(TransactionType.INBOUND).createdAt(Instant.now()).build();
+    TransactionPostedEvent jpyEvent = TransactionPostedEvent.builder().transactionId(2L)
+        .issuerAccountId(1L).merchantAccountId(2L).amount(new BigDecimal("1000")).currency("JPY")
+        .type(TransactionType.INBOUND).createdAt(Instant.now()).build();
+
+    // when
+    BigDecimal usd = cashbackCalculatorService.calculate(usdEvent, fractionalPromotion);
+    BigDecimal jpy = cashbackCalculatorService.calculate(jpyEvent, fractionalPromotion);
+
+    // then
+    assertThat(usd).isEqualTo(new BigDecimal("3.34")); // 3.338 rounded half up
+    assertThat(jpy).isEqualTo(new BigDecimal("33")); // 33.33 yen
+  }
+
+  @Test
+  void shouldFallBackToDecimalArithmeticOutsideTheFixedPointRange() {
+    // given
+    TransactionPostedEvent subCentEvent = TransactionPostedEvent.builder().transactionId(1L)
+        .issuerAccountId(1L).merchantAccountId(2L).amount(new BigDecimal("20.005"))
+        .currency("USD").type(TransactionType.INBOUND).createdAt(Instant.now()).build();
+    TransactionPostedEvent hugeEvent = TransactionPostedEvent.builder().transactionId(2L)
+        .issuerAccountId(1L).merchantAccountId(2L).amount(new BigDecimal("1e30")).currency("USD")
+        .type(TransactionType.INBOUND).createdAt(Instant.now()).build();
+
+    // when
+    BigDecimal subCent = cashbackCalculatorService.calculate(subCentEvent, testPromotion);
+    BigDecimal huge = cashbackCalculatorService.calculate(hugeEvent, testPromotion);
+
+    // then
+    assertThat(subCent).isEqualTo(new BigDecimal("2.00")); // 2.0005 rounded half up
+    assertThat(huge).isEqualTo(new BigDecimal("5.00"));
+  }
+}
@@ -0,0 +1,459 @@
+package com.creditx.promo.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.model.PromotionApplication;
+import com.creditx.promo.model.PromotionApplicationStatus;
+import com.creditx.promo.repository.PromotionApplicationRepository;
+import com.creditx.promo.resilience.CallNotPermittedException;
+import com.creditx.promo.resilience.CircuitBreaker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class CashbackDispatchServiceImplTest {
+
+  private static final UUID A1 = UUID.fromString("0190a1b2-c3d4-7000-8000-000000000001");
+  private static final UUID A2 = UUID.fromString("0190a1b2-c3d4-7001-8000-000000000002");
+  private static final UUID A3 = UUID.fromString("0190a1b2-c3d4-7002-8000-000000000003");
+  private static final String BULK_PATH = "/bulk-cashback";
+
+  @Mock
+  private RestTemplate restTemplate;
+
+  @Mock
+  private PromotionApplicationRepository promotionApplicationRepository;
+
+  @Mock
+  private CircuitBreaker creditMainCircuitBreaker;
+
+  @InjectMocks
+  private CashbackDispatchServiceImpl cashbackDispatchService;
+
+  private PromotionApplication application;
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(cashbackDispatchService, "leaseMs", 60_000L);
+
+    application = pendingApplication(A1, 100L);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldPostClaimedCashbackAndMarkItApplied() {
+    // given
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.claimPending(anyString(), eq(Duration.ofMinutes(1)),
+        eq(10), eq(false))).thenReturn(List.of(A1));
+    when(promotionApplicationRepository.findAllById(List.of(A1))).thenReturn(
+        List.of(application));
+    when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
+        eq(String.class))).thenReturn(ResponseEntity.ok("Success"));
+    when(promotionApplicationRepository.completeDispatches(eq(List.of(application)),
+        anyString())).thenReturn(1);
+
+    // when
+    int claimed = cashbackDispatchService.dispatchPending(10);
+
+    // then
+    assertThat(claimed).isEqualTo(1);
+    ArgumentCaptor<HttpEntity<String>> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+    verify(restTemplate).postForEntity(eq("/api/transactions/cashback"),
+        entityCaptor.capture(), eq(String.class));
+    HttpEntity<String> entity = entityCaptor.getValue();
+    assertThat(entity.getHeaders().getFirst(CashbackDispatchServiceImpl.IDEMPOTENCY_KEY_HEADER))
+        .isEqualTo("PROMO1:100");
+    // Issuer and merchant are swapped so that the customer is credited
+    assertThat(entity.getBody()).contains("\"issuerAccountId\":20", "\"merchantAccountId\":10",
+        "\"amount\":20.00", "\"currency\":\"USD\"");
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.APPLIED);
+  }
+
+  @Test
+  void shouldMarkApplicationFailedWhenCashbackCallFails() {
+    // given
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of(A1));
+    when(promotionApplicationRepository.findAllById(List.of(A1))).thenReturn(
+        List.of(application));
+    when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
+        eq(String.class))).thenThrow(new RuntimeException("Service unavailable"));
+
+    // when
+    cashbackDispatchService.dispatchPending(10);
+
+    // then
+    verify(promotionApplicationRepository).completeDispatches(eq(List.of(application)),
+        anyString());
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.FAILED);
+    assertThat(application.getReason()).startsWith("RuntimeException:Service unavailable");
+    assertThat(application.getAttempts()).isEqualTo(1);
+    assertThat(application.getNextRetryAt()).isAfter(Instant.now());
+  }
+
+  @Test
+  void shouldNotCallCreditMainWhenNothingIsClaimed() {
+    // given
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of());
+
+    // when
+    int claimed = cashbackDispatchService.dispatchPending(10);
+
+    // then
+    assertThat(claimed).isZero();
+    verify(promotionApplicationRepository, never()).findAllById(any());
+    verify(restTemplate, never()).postForEntity(anyString(), any(), any());
+  }
+
+  @Test
+  void shouldParkExpiredClaimsInsteadOfDispatchingThemAgainByDefault() {
+    // given
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.markExpiredClaimsUnconfirmed(10)).thenReturn(2);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of());
+
+    // when
+    int parked = cashbackDispatchService.parkExpiredClaims(10);
+    cashbackDispatchService.dispatchPending(10);
+
+    // then
+    assertThat(parked).isEqualTo(2);
+    verify(promotionApplicationRepository).claimPending(anyString(), any(), eq(10), eq(false));
+  }
+
+  @Test
+  void shouldReclaimExpiredClaimsWhenRedispatchIsEnabled() {
+    // given
+    ReflectionTestUtils.setField(cashbackDispatchService, "redispatchExpiredClaims", true);
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of());
+
+    // when
+    int parked = cashbackDispatchService.parkExpiredClaims(10);
+    cashbackDispatchService.dispatchPending(10);
+
+    // then
+    assertThat(parked).isZero();
+    verify(promotionApplicationRepository, never()).markExpiredClaimsUnconfirmed(anyInt());
+    verify(promotionApplicationRepository).claimPending(anyString(), any(), eq(10), eq(true));
+  }
+
+  @Test
+  void shouldSubmitClaimedCashbacksInBulkAndMapResultsPerItem() throws IOException {
+    // given
+    HttpServer server = stubServer();
+    AtomicReference<String> bulkBody = new AtomicReference<>();
+    server.createContext(BULK_PATH, exchange -> {
+      bulkBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+      respond(exchange, 200, """
+          {"results":[{"idempotencyKey":"PROMO1:100","success":true},
+                      {"idempotencyKey":"PROMO1:101","success":false,"error":"ACCOUNT_FROZEN"}]}
+          """);
+    });
+    PromotionApplication second = pendingApplication(A2, 101L);
+    PromotionApplication third = pendingApplication(A3, 102L);
+    CashbackDispatchServiceImpl service = stubbedService(server);
+    enableBulk(service);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of(A1, A2, A3));
+    when(promotionApplicationRepository.findAllById(List.of(A1, A2, A3))).thenReturn(
+        List.of(application, second, third));
+    when(promotionApplicationRepository.completeDispatches(any(), anyString())).thenReturn(3);
+
+    try {
+      // when
+      service.dispatchPending(10);
+    } finally {
+      server.stop(0);
+    }
+
+    // then
+    assertThat(bulkBody.get()).contains("\"idempotencyKey\":\"PROMO1:100\"",
+        "\"idempotencyKey\":\"PROMO1:101\"", "\"idempotencyKey\":\"PROMO1:102\"",
+        "\"issuerAccountId\":20", "\"merchantAccountId\":10");
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.APPLIED);
+    assertThat(second.getStatus()).isEqualTo(PromotionApplicationStatus.FAILED);
+    assertThat(second.getReason()).isEqualTo("BulkResult:ACCOUNT_FROZEN");
+    // An item credit-main did not report on is not assumed to be applied
+    assertThat(third.getStatus()).isEqualTo(PromotionApplicationStatus.FAILED);
+    verify(promotionApplicationRepository).completeDispatches(
+        eq(List.of(application, second, third)), anyString());
+  }
+
+  @Test
+  void shouldFallBackToSingleCallsWhenBulkEndpointIsMissing() throws IOException {
+    // given
+    HttpServer server = stubServer();
+    AtomicInteger bulkCalls = new AtomicInteger();
+    AtomicInteger singleCalls = new AtomicInteger();
+    server.createContext(BULK_PATH, exchange -> {
+      bulkCalls.incrementAndGet();
+      respond(exchange, 404, "");
+    });
+    server.createContext(CashbackDispatchServiceImpl.CASHBACK_PATH, exchange -> {
+      singleCalls.incrementAndGet();
+      respond(exchange, 201, "Success");
+    });
+    PromotionApplication second = pendingApplication(A2, 101L);
+    CashbackDispatchServiceImpl service = stubbedService(server);
+    enableBulk(service);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of(A1, A2));
+    when(promotionApplicationRepository.findAllById(List.of(A1, A2))).thenReturn(
+        List.of(application, second));
+
+    try {
+      // when
+      service.dispatchPending(10);
+      service.dispatchPending(10);
+    } finally {
+      server.stop(0);
+    }
+
+    // then
+    assertThat(bulkCalls).hasValue(1);
+    assertThat(singleCalls).hasValue(4);
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.APPLIED);
+    assertThat(second.getStatus()).isEqualTo(PromotionApplicationStatus.APPLIED);
+  }
+
+  @Test
+  void shouldMakeTheSingleCallsOfTheBulkFallbackConcurrently() throws IOException {
+    // given: each single call is only answered once both are in flight
+    HttpServer server = stubServer();
+    CyclicBarrier bothInFlight = new CyclicBarrier(2);
+    server.createContext(BULK_PATH, exchange -> respond(exchange, 501, ""));
+    server.createContext(CashbackDispatchServiceImpl.CASHBACK_PATH, exchange -> {
+      try {
+        bothInFlight.await(5, TimeUnit.SECONDS);
+        respond(exchange, 201, "Success");
+      } catch (Exception e) {
+        respond(exchange, 500, "");
+      }
+    });
+    PromotionApplication second = pendingApplication(A2, 101L);
+    CashbackDispatchServiceImpl service = stubbedService(server);
+    enableBulk(service);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of(A1, A2));
+    when(promotionApplicationRepository.findAllById(List.of(A1, A2))).thenReturn(
+        List.of(application, second));
+
+    try {
+      // when
+      service.dispatchPending(10);
+    } finally {
+      server.stop(0);
+    }
+
+    // then
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.APPLIED);
+    assertThat(second.getStatus()).isEqualTo(PromotionApplicationStatus.APPLIED);
+  }
+
+  @Test
+  void shouldUseSingleCallsUnlessBulkIsEnabled() throws IOException {
+    // given
+    HttpServer server = stubServer();
+    AtomicInteger bulkCalls = new AtomicInteger();
+    AtomicInteger singleCalls = new AtomicInteger();
+    server.createContext(BULK_PATH, exchange -> {
+      bulkCalls.incrementAndGet();
+      respond(exchange, 200, "{\"results\":[]}");
+    });
+    server.createContext(CashbackDispatchServiceImpl.CASHBACK_PATH, exchange -> {
+      singleCalls.incrementAndGet();
+      respond(exchange, 201, "Success");
+    });
+    PromotionApplication second = pendingApplication(A2, 101L);
+    CashbackDispatchServiceImpl service = stubbedService(server);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of(A1, A2));
+    when(promotionApplicationRepository.findAllById(List.of(A1, A2))).thenReturn(
+        List.of(application, second));
+
+    try {
+      // when
+      service.dispatchPending(10);
+    } finally {
+      server.stop(0);
+    }
+
+    // then
+    assertThat(bulkCalls).hasValue(0);
+    assertThat(singleCalls).hasValue(2);
+  }
+
+  @Test
+  void shouldLeaveApplicationsPendingWhileTheCircuitIsOpen() {
+    // given
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(false);
+
+    // when
+    int claimed = cashbackDispatchService.dispatchPending(10);
+
+    // then
+    assertThat(claimed).isZero();
+    verify(promotionApplicationRepository, never()).claimPending(anyString(), any(), anyInt(),
+        anyBoolean());
+  }
+
+  @Test
+  void shouldReturnApplicationToPendingWhenTheCallIsNotPermitted() {
+    // given
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.claimPending(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of(A1));
+    when(promotionApplicationRepository.findAllById(List.of(A1))).thenReturn(
+        List.of(application));
+    when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
+        eq(String.class))).thenThrow(new CallNotPermittedException("Circuit is OPEN"));
+
+    // when
+    cashbackDispatchService.dispatchPending(10);
+
+    // then
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.PENDING);
+    verify(promotionApplicationRepository).completeDispatches(eq(List.of(application)),
+        anyString());
+  }
+
+  @Test
+  void shouldRetryDueFailuresAndRescheduleThemWithBackoff() {
+    // given
+    application.setStatus(PromotionApplicationStatus.FAILED);
+    application.setAttempts(2);
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.claimRetryable(anyString(), any(), eq(10),
+        anyBoolean())).thenReturn(List.of(A1));
+    when(promotionApplicationRepository.findAllById(List.of(A1))).thenReturn(
+        List.of(application));
+    when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
+        eq(String.class))).thenThrow(new RuntimeException("Service unavailable"));
+    Instant before = Instant.now();
+
+    // when
+    int claimed = cashbackDispatchService.retryFailed(10);
+
+    // then: third attempt, retried after 10 to 20 seconds
+    assertThat(claimed).isEqualTo(1);
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.FAILED);
+    assertThat(application.getAttempts()).isEqualTo(3);
+    assertThat(application.getNextRetryAt()).isBetween(before.plusSeconds(10),
+        Instant.now().plusSeconds(20));
+    verify(promotionApplicationRepository, never()).claimPending(anyString(), any(), anyInt(),
+        anyBoolean());
+  }
+
+  @Test
+  void shouldAbandonApplicationAfterTheLastAttempt() {
+    // given
+    ReflectionTestUtils.setField(cashbackDispatchService, "maxAttempts", 3);
+    application.setStatus(PromotionApplicationStatus.FAILED);
+    application.setAttempts(2);
+    when(creditMainCircuitBreaker.isCallPermitted()).thenReturn(true);
+    when(promotionApplicationRepository.claimRetryable(anyString(), any(), anyInt(),
+        anyBoolean())).thenReturn(List.of(A1));
+    when(promotionApplicationRepository.findAllById(List.of(A1))).thenReturn(
+        List.of(application));
+    when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
+        eq(String.class))).thenThrow(new RuntimeException("Service unavailable"));
+
+    // when
+    cashbackDispatchService.retryFailed(10);
+
+    // then
+    assertThat(application.getStatus()).isEqualTo(PromotionApplicationStatus.ABANDONED);
+    assertThat(application.getAttempts()).isEqualTo(3);
+    assertThat(application.getNextRetryAt()).isNull();
+  }
+
+  @Test
+  void shouldCapBackoffAtTheMaximum() {
+    // when
+    long first = cashbackDispatchService.backoffMs(1);
+    long late = cashbackDispatchService.backoffMs(40);
+
+    // then
+    assertThat(first).isBetween(2_500L, 5_000L);
+    assertThat(late).isBetween(1_800_000L, 3_600_000L);
+  }
+
+  private static PromotionApplication pendingApplication(UUID applicationId, long txnId) {
+    return PromotionApplication.builder().applicationId(applicationId).promoId("PROMO1")
+        .transactionId(txnId).issuerId(10L).merchantId(20L).cashbackAmount(new BigDecimal("20.00"))
+        .currency("USD").status(PromotionApplicationStatus.PENDING)
+        .idempotencyKey("PROMO1:" + txnId).build();
+  }
+
+  private static HttpServer stubServer() throws IOException {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.start();
+    return server;
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    exchange.getRequestBody().readAllBytes();
+    byte[] response = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, response.length == 0 ? -1 : response.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response);
+    }
+  }
+
+  private CashbackDispatchServiceImpl stubbedService(HttpServer server) {
+    RestTemplate stubTemplate = new RestTemplateBuilder()
+        .rootUri("http://127.0.0.1:" + server.getAddress().getPort()).build();
+    CashbackDispatchServiceImpl service = new CashbackDispatchServiceImpl(stubTemplate,
+        promotionApplicationRepository,
+        new CircuitBreaker("credit-main", 10, 10, 0.5, Duration.ofMinutes(1), 1));
+    ReflectionTestUtils.setField(service, "leaseMs", 60_000L);
+    return service;
+  }
+
+  private static void enableBulk(CashbackDispatchServiceImpl service) {
+    ReflectionTestUtils.setField(service, "bulkEnabled", true);
+    ReflectionTestUtils.setField(service, "bulkPath", BULK_PATH);
+  }
+}
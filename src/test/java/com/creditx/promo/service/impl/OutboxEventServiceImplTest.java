@@ -2,22 +2,32 @@ package com.creditx.promo.service.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.creditx.promo.dto.OutboxEventDTO;
+import com.creditx.promo.messaging.OutboxWakeup;
 import com.creditx.promo.model.OutboxEvent;
 import com.creditx.promo.model.OutboxEventStatus;
 import com.creditx.promo.repository.OutboxEventRepository;
-import java.time.Instant;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class OutboxEventServiceImplTest {
@@ -25,9 +35,17 @@ class OutboxEventServiceImplTest {
   @Mock
   private OutboxEventRepository repository;
 
+  @Mock
+  private OutboxWakeup outboxWakeup;
+
   @InjectMocks
   private OutboxEventServiceImpl outboxEventServiceImpl;
 
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(outboxEventServiceImpl, "claimLeaseMs", 30_000L);
+  }
+
   @Test
   void shouldSaveEvent() {
     String eventType = "transaction.posted";
@@ -44,72 +62,98 @@ class OutboxEventServiceImplTest {
     assertThat(capturedEvent.getAggregateId()).isEqualTo(aggregateId);
     assertThat(capturedEvent.getPayload()).isEqualTo(payload);
     assertThat(capturedEvent.getStatus()).isEqualTo(OutboxEventStatus.PENDING);
+    assertThat(capturedEvent.getLane()).isEqualTo(11);
     assertThat(result).isEqualTo(savedEvent);
+    // No transaction is active, so the lane's worker is woken at once
+    verify(outboxWakeup, times(1)).signal(11);
   }
 
   @Test
-  void shouldFetchPendingEvents() {
-    OutboxEvent pendingEvent1 = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
-        OutboxEventStatus.PENDING);
-    OutboxEvent pendingEvent2 = createOutboxEvent("EVENT_2", 456L, "{\"data\":2}",
-        OutboxEventStatus.PENDING);
-    OutboxEvent publishedEvent = createOutboxEvent("EVENT_3", 789L, "{\"data\":3}",
-        OutboxEventStatus.PUBLISHED);
-    OutboxEvent failedEvent = createOutboxEvent("EVENT_4", 101L, "{\"data\":4}",
-        OutboxEventStatus.FAILED);
-    List<OutboxEvent> allEvents = Arrays.asList(pendingEvent1, pendingEvent2, publishedEvent,
-        failedEvent);
-    when(repository.findAll()).thenReturn(allEvents);
-    List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(5);
-    assertThat(result).hasSize(2);
-    assertThat(result).containsExactly(pendingEvent1, pendingEvent2);
-    verify(repository, times(1)).findAll();
+  void shouldSaveEventsInOneCall() {
+    List<OutboxEventDTO> events = List.of(
+        OutboxEventDTO.builder().eventType("EVENT_1").aggregateId(17L).payload("{}").build(),
+        OutboxEventDTO.builder().eventType("EVENT_2").aggregateId(33L).payload("{}").build());
+    when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    List<OutboxEvent> result = outboxEventServiceImpl.saveEvents(events);
+    assertThat(result).extracting(OutboxEvent::getEventType).containsExactly("EVENT_1",
+        "EVENT_2");
+    assertThat(result).extracting(OutboxEvent::getStatus).containsOnly(OutboxEventStatus.PENDING);
+    assertThat(result).extracting(OutboxEvent::getLane).containsOnly(1);
+    verify(repository, times(1)).saveAll(anyList());
+    verify(repository, never()).save(any());
+    // Both events share lane 1, which is woken once
+    verify(outboxWakeup, times(1)).signal(1);
   }
 
   @Test
-  void shouldLimitFetchedPendingEvents() {
-    OutboxEvent pendingEvent1 = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
-        OutboxEventStatus.PENDING);
-    OutboxEvent pendingEvent2 = createOutboxEvent("EVENT_2", 456L, "{\"data\":2}",
+  void shouldSkipSavingWhenNoEventsGiven() {
+    assertThat(outboxEventServiceImpl.saveEvents(List.of())).isEmpty();
+    verify(repository, never()).saveAll(any());
+    verifyNoInteractions(outboxWakeup);
+  }
+
+  @Test
+  void shouldAssignLanesByAggregate() {
+    assertThat(OutboxEventServiceImpl.laneOf(32L, 16)).isEqualTo(0);
+    assertThat(OutboxEventServiceImpl.laneOf(35L, 16)).isEqualTo(3);
+    assertThat(OutboxEventServiceImpl.laneOf(-1L, 16)).isEqualTo(15);
+    assertThat(OutboxEventServiceImpl.laneOf(null, 16)).isEqualTo(0);
+  }
+
+  @Test
+  void shouldFetchClaimedEventsInClaimOrder() {
+    // An aggregate's second event was written by a replica whose sequence block is lower, so the
+    // claim (by CREATED_AT) returns it after the first despite its lower id
+    OutboxEvent first = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
         OutboxEventStatus.PENDING);
-    OutboxEvent pendingEvent3 = createOutboxEvent("EVENT_3", 789L, "{\"data\":3}",
+    first.setEventId(51L);
+    OutboxEvent second = createOutboxEvent("EVENT_2", 123L, "{\"data\":2}",
         OutboxEventStatus.PENDING);
-    when(repository.findAll()).thenReturn(
-        Arrays.asList(pendingEvent1, pendingEvent2, pendingEvent3));
-    List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(2);
-    assertThat(result).hasSize(2);
-    assertThat(result).containsExactly(pendingEvent1, pendingEvent2);
+    second.setEventId(2L);
+    when(repository.claimPending(eq(4), anyString(), eq(Duration.ofSeconds(30)), eq(5)))
+        .thenReturn(
+        List.of(51L, 2L));
+    when(repository.findAllById(List.of(51L, 2L))).thenReturn(
+        Arrays.asList(second, first));
+    List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(4, 5);
+    assertThat(result).containsExactly(first, second);
+    verify(repository, never()).findAll();
+  }
+
+  @Test
+  void shouldClaimUnderTheSameOwnerEachTime() {
+    when(repository.claimPending(anyInt(), anyString(), any(), eq(2))).thenReturn(List.of());
+    outboxEventServiceImpl.fetchPendingEvents(0, 2);
+    outboxEventServiceImpl.fetchPendingEvents(1, 2);
+    ArgumentCaptor<String> ownerCaptor = ArgumentCaptor.forClass(String.class);
+    verify(repository, times(2)).claimPending(anyInt(), ownerCaptor.capture(), any(), eq(2));
+    assertThat(ownerCaptor.getAllValues().get(0)).isEqualTo(ownerCaptor.getAllValues().get(1));
   }
 
   @Test
   void shouldReturnEmptyListWhenNoPendingEvents() {
-    OutboxEvent publishedEvent = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
-        OutboxEventStatus.PUBLISHED);
-    when(repository.findAll()).thenReturn(List.of(publishedEvent));
-    List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(5);
+    when(repository.claimPending(eq(0), anyString(), any(), eq(5))).thenReturn(List.of());
+    List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(0, 5);
     assertThat(result).isEmpty();
+    verify(repository, never()).findAllById(any());
   }
 
   @Test
-  void shouldMarkAsPublished() {
-    OutboxEvent event = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
-        OutboxEventStatus.PENDING);
-    when(repository.save(any(OutboxEvent.class))).thenReturn(event);
-    outboxEventServiceImpl.markAsPublished(event);
-    verify(repository, times(1)).save(event);
-    assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.PUBLISHED);
-    assertThat(event.getPublishedAt()).isNotNull();
-    assertThat(event.getPublishedAt()).isBeforeOrEqualTo(Instant.now());
+  void shouldMarkEventsInBulk() {
+    when(repository.updateStatus(List.of(1L, 2L), OutboxEventStatus.PUBLISHED)).thenReturn(2);
+    outboxEventServiceImpl.markAllAsPublished(List.of(1L, 2L));
+    outboxEventServiceImpl.markAllAsFailed(List.of());
+    verify(repository, times(1)).updateStatus(List.of(1L, 2L), OutboxEventStatus.PUBLISHED);
+    verify(repository, never()).updateStatus(any(), eq(OutboxEventStatus.FAILED));
+    verify(repository, never()).save(any());
   }
 
   @Test
-  void shouldMarkAsFailed() {
-    OutboxEvent event = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
-        OutboxEventStatus.PENDING);
-    when(repository.save(any(OutboxEvent.class))).thenReturn(event);
-    outboxEventServiceImpl.markAsFailed(event);
-    verify(repository, times(1)).save(event);
-    assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.FAILED);
+  void shouldRetryEventsWithTheConfiguredBackoff() {
+    outboxEventServiceImpl.retryLater(List.of(1L, 2L));
+    outboxEventServiceImpl.retryLater(List.of());
+    verify(repository, times(1)).retryLater(List.of(1L, 2L), 8, Duration.ofSeconds(1),
+        Duration.ofMinutes(5));
   }
 
   private OutboxEvent createOutboxEvent(String eventType, Long aggregateId, String payload,
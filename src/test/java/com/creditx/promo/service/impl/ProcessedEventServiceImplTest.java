@@ -2,18 +2,32 @@ package com.creditx.promo.service.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.creditx.promo.cache.ProcessedEventCache;
+import com.creditx.promo.cache.ProcessedEventCache.Lookup;
 import com.creditx.promo.model.ProcessedEvent;
 import com.creditx.promo.repository.ProcessedEventRepository;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class ProcessedEventServiceImplTest {
@@ -21,9 +35,17 @@ class ProcessedEventServiceImplTest {
   @Mock
   private ProcessedEventRepository processedEventRepository;
 
+  @Mock
+  private ProcessedEventCache processedEventCache;
+
   @InjectMocks
   private ProcessedEventServiceImpl processedEventServiceImpl;
 
+  @BeforeEach
+  void setup() {
+    lenient().when(processedEventCache.lookup(anyString())).thenReturn(Lookup.UNKNOWN);
+  }
+
   @Test
   void shouldReturnTrueWhenEventIsProcessed() {
     String eventId = "event-123";
@@ -31,6 +53,16 @@ class ProcessedEventServiceImplTest {
     boolean result = processedEventServiceImpl.isEventProcessed(eventId);
     assertThat(result).isTrue();
     verify(processedEventRepository, times(1)).existsByEventId(eventId);
+    verify(processedEventCache).record(eventId);
+  }
+
+  @Test
+  void shouldAnswerFromCacheWithoutQueryingDatabase() {
+    when(processedEventCache.lookup("event-hit")).thenReturn(Lookup.PROCESSED);
+    when(processedEventCache.lookup("event-miss")).thenReturn(Lookup.NOT_PROCESSED);
+    assertThat(processedEventServiceImpl.isEventProcessed("event-hit")).isTrue();
+    assertThat(processedEventServiceImpl.isEventProcessed("event-miss")).isFalse();
+    verify(processedEventRepository, never()).existsByEventId(anyString());
   }
 
   @Test
@@ -43,16 +75,18 @@ class ProcessedEventServiceImplTest {
   }
 
   @Test
+  @SuppressWarnings("unchecked")
   void shouldMarkEventAsProcessed() {
     String eventId = "event-789";
-    String payloadHash = "hash-abc123";
+    byte[] payloadHash = {0x0a, 0x1b, 0x2c};
     String status = "SUCCESS";
-    ProcessedEvent savedEvent = createProcessedEvent(eventId, payloadHash, status);
-    when(processedEventRepository.save(any(ProcessedEvent.class))).thenReturn(savedEvent);
+    when(processedEventRepository.insertIfAbsent(anyList())).thenReturn(1);
     processedEventServiceImpl.markEventAsProcessed(eventId, payloadHash, status);
-    ArgumentCaptor<ProcessedEvent> eventCaptor = ArgumentCaptor.forClass(ProcessedEvent.class);
-    verify(processedEventRepository, times(1)).save(eventCaptor.capture());
-    ProcessedEvent capturedEvent = eventCaptor.getValue();
+    ArgumentCaptor<List<ProcessedEvent>> eventCaptor = ArgumentCaptor.forClass(List.class);
+    verify(processedEventRepository, times(1)).insertIfAbsent(eventCaptor.capture());
+    verify(processedEventRepository, never()).save(any());
+    verify(processedEventCache).record(eventId);
+    ProcessedEvent capturedEvent = eventCaptor.getValue().get(0);
     assertThat(capturedEvent.getEventId()).isEqualTo(eventId);
     assertThat(capturedEvent.getPayloadHash()).isEqualTo(payloadHash);
     assertThat(capturedEvent.getStatus()).isEqualTo(status);
@@ -60,7 +94,7 @@ class ProcessedEventServiceImplTest {
 
   @Test
   void shouldReturnTrueWhenPayloadIsProcessed() {
-    String payloadHash = "hash-def456";
+    byte[] payloadHash = {0x3d, 0x4e};
     when(processedEventRepository.existsByPayloadHash(payloadHash)).thenReturn(true);
     boolean result = processedEventServiceImpl.isPayloadProcessed(payloadHash);
     assertThat(result).isTrue();
@@ -69,14 +103,162 @@ class ProcessedEventServiceImplTest {
 
   @Test
   void shouldReturnFalseWhenPayloadIsNotProcessed() {
-    String payloadHash = "hash-ghi789";
+    byte[] payloadHash = {0x5f, 0x60};
     when(processedEventRepository.existsByPayloadHash(payloadHash)).thenReturn(false);
     boolean result = processedEventServiceImpl.isPayloadProcessed(payloadHash);
     assertThat(result).isFalse();
     verify(processedEventRepository, times(1)).existsByPayloadHash(payloadHash);
   }
 
-  private ProcessedEvent createProcessedEvent(String eventId, String payloadHash, String status) {
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldFindProcessedEventIdsInChunks() {
+    List<String> eventIds = IntStream.range(0, 1500).mapToObj(i -> "event-" + i).toList();
+    when(processedEventRepository.findExistingEventIds(any())).thenAnswer(inv -> {
+      List<String> chunk = inv.getArgument(0);
+      return chunk.contains("event-1200") ? List.of("event-1200") : List.of("event-7");
+    });
+    Set<String> result = processedEventServiceImpl.findProcessedEventIds(eventIds);
+    assertThat(result).containsExactlyInAnyOrder("event-7", "event-1200");
+    ArgumentCaptor<List<String>> chunkCaptor = ArgumentCaptor.forClass(List.class);
+    verify(processedEventRepository, times(2)).findExistingEventIds(chunkCaptor.capture());
+    assertThat(chunkCaptor.getAllValues()).extracting(List::size).containsExactly(1000, 500);
+  }
+
+  @Test
+  void shouldOnlyQueryEventIdsTheCacheCannotAnswer() {
+    when(processedEventCache.lookup("event-1")).thenReturn(Lookup.PROCESSED);
+    when(processedEventCache.lookup("event-2")).thenReturn(Lookup.NOT_PROCESSED);
+    when(processedEventRepository.findExistingEventIds(List.of("event-3", "event-4")))
+        .thenReturn(List.of("event-3"));
+    Set<String> result = processedEventServiceImpl.findProcessedEventIds(
+        List.of("event-1", "event-2", "event-3", "event-4"));
+    assertThat(result).containsExactlyInAnyOrder("event-1", "event-3");
+    verify(processedEventCache).record("event-3");
+  }
+
+  @Test
+  void shouldMarkEventsAsProcessedInBatch() {
+    List<ProcessedEvent> markers = List.of(createProcessedEvent("event-1", null, "APPLIED"),
+        createProcessedEvent("event-2", null, "NO_PROMO"));
+    processedEventServiceImpl.markEventsAsProcessed(markers);
+    verify(processedEventRepository, times(1)).insertIfAbsent(markers);
+    verify(processedEventCache).record("event-1");
+    verify(processedEventCache).record("event-2");
+  }
+
+  @Test
+  void shouldBufferMarkersAndFlushOnBatchSize() {
+    // given
+    enableWriteBehind(2);
+
+    // when
+    processedEventServiceImpl.markEventAsProcessed("event-1", null, "APPLIED");
+    boolean bufferedIsProcessed = processedEventServiceImpl.isEventProcessed("event-1");
+    processedEventServiceImpl.markEventAsProcessed("event-2", null, "NO_PROMO");
+    CompletableFuture<Void> writes = processedEventServiceImpl.takePendingMarkerWrites();
+
+    // then
+    assertThat(bufferedIsProcessed).isTrue();
+    assertThat(writes).isCompleted();
+    verify(processedEventRepository, never()).save(any());
+    verify(processedEventRepository, times(1)).insertIfAbsent(List.of(
+        createProcessedEvent("event-1", null, "APPLIED"),
+        createProcessedEvent("event-2", null, "NO_PROMO")));
+    verify(processedEventCache).record("event-1");
+    verify(processedEventCache).record("event-2");
+  }
+
+  @Test
+  void shouldFlushPartialBufferOnDemand() {
+    // given
+    enableWriteBehind(100);
+    processedEventServiceImpl.markEventAsProcessed("event-1", null, "APPLIED");
+    CompletableFuture<Void> writes = processedEventServiceImpl.takePendingMarkerWrites();
+    assertThat(writes).isNotDone();
+
+    // when
+    processedEventServiceImpl.flushPendingMarkers();
+
+    // then
+    assertThat(writes).isCompleted();
+    verify(processedEventRepository, times(1)).insertIfAbsent(
+        List.of(createProcessedEvent("event-1", null, "APPLIED")));
+    assertThat(processedEventServiceImpl.takePendingMarkerWrites()).isCompleted();
+  }
+
+  @Test
+  void shouldTreatAnEventMarkedConcurrentlyAsProcessed() {
+    // given: another delivery of the event wrote its marker first
+    when(processedEventRepository.insertIfAbsent(anyList())).thenReturn(0);
+
+    // when
+    processedEventServiceImpl.markEventAsProcessed("event-1", null, "DUPLICATE");
+
+    // then
+    verify(processedEventRepository, times(1)).insertIfAbsent(anyList());
+    verify(processedEventCache).record("event-1");
+  }
+
+  @Test
+  void shouldFlushBufferedMarkersInOneStatementWhenSomeAreAlreadyMarked() {
+    // given
+    enableWriteBehind(100);
+    ProcessedEvent first = createProcessedEvent("event-1", null, "APPLIED");
+    ProcessedEvent duplicate = createProcessedEvent("event-2", null, "DUPLICATE");
+    when(processedEventRepository.insertIfAbsent(List.of(first, duplicate))).thenReturn(1);
+    processedEventServiceImpl.markEventAsProcessed("event-1", null, "APPLIED");
+    processedEventServiceImpl.markEventAsProcessed("event-2", null, "DUPLICATE");
+    CompletableFuture<Void> writes = processedEventServiceImpl.takePendingMarkerWrites();
+
+    // when
+    processedEventServiceImpl.flushPendingMarkers();
+
+    // then
+    assertThat(writes).isCompleted();
+    verify(processedEventRepository, times(1)).insertIfAbsent(anyList());
+    verify(processedEventCache).record("event-2");
+  }
+
+  @Test
+  void shouldFailPendingWritesWhenMarkersCannotBeWritten() {
+    // given
+    enableWriteBehind(100);
+    doThrow(new DataIntegrityViolationException("down")).when(processedEventRepository)
+        .insertIfAbsent(any());
+    processedEventServiceImpl.markEventAsProcessed("event-1", null, "APPLIED");
+    CompletableFuture<Void> writes = processedEventServiceImpl.takePendingMarkerWrites();
+
+    // when
+    processedEventServiceImpl.flushPendingMarkers();
+
+    // then
+    assertThat(writes).isCompletedExceptionally();
+    assertThat(processedEventServiceImpl.isEventProcessed("event-1")).isFalse();
+  }
+
+  @Test
+  void shouldFailPendingWritesOnAnyRuntimeException() {
+    // given
+    enableWriteBehind(100);
+    doThrow(new IllegalStateException("no connection")).when(processedEventRepository)
+        .insertIfAbsent(any());
+    processedEventServiceImpl.markEventAsProcessed("event-1", null, "APPLIED");
+    CompletableFuture<Void> writes = processedEventServiceImpl.takePendingMarkerWrites();
+
+    // when
+    processedEventServiceImpl.flushPendingMarkers();
+
+    // then
+    assertThat(writes).isCompletedExceptionally();
+  }
+
+  private void enableWriteBehind(int batchSize) {
+    ReflectionTestUtils.setField(processedEventServiceImpl, "writeBehindEnabled", true);
+    ReflectionTestUtils.setField(processedEventServiceImpl, "writeBehindBatchSize", batchSize);
+  }
+
+  private ProcessedEvent createProcessedEvent(String eventId, byte[] payloadHash, String status) {
     return ProcessedEvent.builder().eventId(eventId).payloadHash(payloadHash).status(status)
         .build();
   }
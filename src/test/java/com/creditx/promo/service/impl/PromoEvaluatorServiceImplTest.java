@@ -1,11 +1,15 @@
 package com.creditx.promo.service.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
 
+import com.creditx.promo.catalog.PromotionCatalog;
 import com.creditx.promo.dto.TransactionPostedEvent;
 import com.creditx.promo.model.Promotion;
 import com.creditx.promo.model.PromotionStatus;
 import com.creditx.promo.model.TransactionType;
+import com.creditx.promo.repository.PromotionRepository;
+import com.creditx.promo.rules.CompiledPromotionCache;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
@@ -13,11 +17,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class PromoEvaluatorServiceImplTest {
 
+  @Spy
+  private CompiledPromotionCache compiledPromotionCache;
+
+  @Mock
+  private PromotionRepository promotionRepository;
+
   @InjectMocks
   private PromoEvaluatorServiceImpl promoEvaluatorService;
 
@@ -157,4 +169,26 @@ class PromoEvaluatorServiceImplTest {
     // then
     assertThat(result).isEmpty();
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldOnlyEvaluateCandidatesOfTheMerchantFromTheCatalog() {
+    // given
+    Promotion otherMerchantPromo = Promotion.builder().promoId("P3").name("Other Merchant")
+        .startDate(Instant.parse("2025-01-01T00:00:00Z"))
+        .expiryDate(Instant.parse("2025-12-31T00:00:00Z"))
+        .eligibilityRules("{\"merchantIds\":[300]}")
+        .rewardFormula("{\"cashbackPercent\":5,\"maxCashback\":10}").status(PromotionStatus.ACTIVE)
+        .build();
+    when(promotionRepository.findAll()).thenReturn(List.of(otherMerchantPromo, testPromotion));
+    PromotionCatalog catalog = new PromotionCatalog(promotionRepository, compiledPromotionCache,
+        60_000, 300_000);
+    List<Promotion> promotions = catalog.findValidBetween(testEvent.getCreatedAt(),
+        testEvent.getCreatedAt());
+
+    // when
+    List<Promotion> result = promoEvaluatorService.evaluate(testEvent, promotions);
+
+    // then
+    assertThat(result).containsExactly(testPromotion);
+  }
+}
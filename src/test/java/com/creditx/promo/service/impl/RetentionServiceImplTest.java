@@ -0,0 +1,144 @@
+package com.creditx.promo.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.promo.repository.PartitionMaintenanceRepository;
+import com.creditx.promo.repository.PartitionMaintenanceRepository.TablePartition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class RetentionServiceImplTest {
+
+  private static final String PROCESSED = RetentionServiceImpl.PROCESSED_EVENTS_TABLE;
+  private static final String OUTBOX = RetentionServiceImpl.OUTBOX_TABLE;
+
+  @Mock
+  private PartitionMaintenanceRepository partitionMaintenanceRepository;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private RetentionServiceImpl retentionService;
+
+  @BeforeEach
+  void setup() {
+    retentionService = new RetentionServiceImpl(partitionMaintenanceRepository, meterRegistry);
+  }
+
+  @Test
+  void shouldDropProcessedEventPartitionsPastTopicRetentionAndGrace() {
+    // given: markers are kept for 168 + 24 hours
+    TablePartition expired = new TablePartition("SYS_P1", daysAgo(9), true);
+    TablePartition retained = new TablePartition("SYS_P2", daysAgo(7), true);
+    when(partitionMaintenanceRepository.findPartitions(PROCESSED)).thenReturn(
+        List.of(expired, retained));
+    when(partitionMaintenanceRepository.countRows(PROCESSED, "SYS_P1")).thenReturn(1_000L);
+    when(partitionMaintenanceRepository.segmentBytes(PROCESSED, "SYS_P1")).thenReturn(65_536L);
+
+    // when
+    int purged = retentionService.purgeExpiredPartitions();
+
+    // then
+    assertThat(purged).isEqualTo(1);
+    verify(partitionMaintenanceRepository).dropPartition(PROCESSED, "SYS_P1");
+    verify(partitionMaintenanceRepository, never()).dropPartition(PROCESSED, "SYS_P2");
+    assertThat(meterRegistry.get("retention.reclaimed.rows").tag("table", PROCESSED).counter()
+        .count()).isEqualTo(1_000);
+    assertThat(meterRegistry.get("retention.reclaimed.bytes").tag("table", PROCESSED).counter()
+        .count()).isEqualTo(65_536);
+  }
+
+  @Test
+  void shouldKeepOutboxPartitionsWithPendingEvents() {
+    // given
+    TablePartition pending = new TablePartition("SYS_P7", daysAgo(5), true);
+    TablePartition published = new TablePartition("SYS_P8", daysAgo(4), true);
+    when(partitionMaintenanceRepository.findPartitions(PROCESSED)).thenReturn(List.of());
+    when(partitionMaintenanceRepository.findPartitions(OUTBOX)).thenReturn(
+        List.of(pending, published));
+    when(partitionMaintenanceRepository.countRowsWithStatus(OUTBOX, "SYS_P7",
+        RetentionServiceImpl.UNPUBLISHED_STATUSES)).thenReturn(3L);
+    when(partitionMaintenanceRepository.countRowsWithStatus(OUTBOX, "SYS_P8",
+        RetentionServiceImpl.UNPUBLISHED_STATUSES)).thenReturn(0L);
+
+    // when
+    int purged = retentionService.purgeExpiredPartitions();
+
+    // then
+    assertThat(purged).isEqualTo(1);
+    verify(partitionMaintenanceRepository, never()).dropPartition(OUTBOX, "SYS_P7");
+    verify(partitionMaintenanceRepository).dropPartition(OUTBOX, "SYS_P8");
+  }
+
+  @Test
+  void shouldKeepOutboxPartitionsWithFailedEvents() {
+    // given: a FAILED event is the only copy of an event that was never delivered
+    TablePartition failed = new TablePartition("SYS_P7", daysAgo(30), true);
+    when(partitionMaintenanceRepository.findPartitions(PROCESSED)).thenReturn(List.of());
+    when(partitionMaintenanceRepository.findPartitions(OUTBOX)).thenReturn(List.of(failed));
+    when(partitionMaintenanceRepository.countRowsWithStatus(OUTBOX, "SYS_P7",
+        List.of("PENDING", "FAILED"))).thenReturn(1L);
+
+    // when
+    int purged = retentionService.purgeExpiredPartitions();
+
+    // then
+    assertThat(purged).isZero();
+    verify(partitionMaintenanceRepository, never()).dropPartition(anyString(), anyString());
+  }
+
+  @Test
+  void shouldTruncateTheInitialRangePartitionOnlyWhileItHoldsRows() {
+    // given
+    TablePartition initial = new TablePartition("P_CPRS_OUTBOX_INITIAL", daysAgo(400), false);
+    when(partitionMaintenanceRepository.findPartitions(PROCESSED)).thenReturn(List.of());
+    when(partitionMaintenanceRepository.findPartitions(OUTBOX)).thenReturn(List.of(initial));
+    when(partitionMaintenanceRepository.countRows(OUTBOX, "P_CPRS_OUTBOX_INITIAL"))
+        .thenReturn(10L, 0L);
+
+    // when
+    retentionService.purgeExpiredPartitions();
+    retentionService.purgeExpiredPartitions();
+
+    // then
+    verify(partitionMaintenanceRepository).truncatePartition(OUTBOX, "P_CPRS_OUTBOX_INITIAL");
+    verify(partitionMaintenanceRepository, never()).dropPartition(anyString(), anyString());
+  }
+
+  @Test
+  void shouldCarryOnWhenAPartitionCannotBeReclaimed() {
+    // given
+    when(partitionMaintenanceRepository.findPartitions(PROCESSED)).thenReturn(List.of(
+        new TablePartition("SYS_P1", daysAgo(30), true),
+        new TablePartition("SYS_P2", daysAgo(29), true)));
+    doThrow(new DataAccessResourceFailureException("ORA-02149")).when(
+        partitionMaintenanceRepository).dropPartition(PROCESSED, "SYS_P1");
+
+    // when
+    int purged = retentionService.purgeExpiredPartitions();
+
+    // then
+    assertThat(purged).isEqualTo(1);
+    verify(partitionMaintenanceRepository).dropPartition(PROCESSED, "SYS_P2");
+    verify(partitionMaintenanceRepository, never()).countRowsWithStatus(eq(PROCESSED),
+        anyString(), any());
+  }
+
+  private static Instant daysAgo(int days) {
+    return Instant.now().minus(Duration.ofDays(days));
+  }
+}
@@ -10,21 +10,26 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.creditx.promo.catalog.PromotionCatalog;
 import com.creditx.promo.dto.TransactionPostedEvent;
+import com.creditx.promo.id.UuidV7Generator;
+import com.creditx.promo.model.ProcessedEvent;
 import com.creditx.promo.model.Promotion;
 import com.creditx.promo.model.PromotionApplication;
 import com.creditx.promo.model.PromotionApplicationStatus;
 import com.creditx.promo.model.PromotionStatus;
 import com.creditx.promo.model.TransactionType;
 import com.creditx.promo.repository.PromotionApplicationRepository;
-import com.creditx.promo.repository.PromotionRepository;
 import com.creditx.promo.service.CashbackCalculatorService;
+import com.creditx.promo.service.CashbackDispatchService;
 import com.creditx.promo.service.ProcessedEventService;
 import com.creditx.promo.service.PromoEvaluatorService;
 import com.creditx.promo.util.EventIdGenerator;
+import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,18 +38,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.ResponseEntity;
-import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionEventServiceImplTest {
 
-  @Mock
-  private RestTemplate restTemplate;
-
   @Mock
   private ProcessedEventService processedEventService;
 
@@ -55,11 +55,14 @@ class TransactionEventServiceImplTest {
   private CashbackCalculatorService cashbackCalculatorService;
 
   @Mock
-  private PromotionRepository promotionRepository;
+  private PromotionCatalog promotionCatalog;
 
   @Mock
   private PromotionApplicationRepository promotionApplicationRepository;
 
+  @Spy
+  private UuidV7Generator uuidV7Generator = new UuidV7Generator();
+
   @InjectMocks
   private TransactionEventServiceImpl transactionEventService;
 
@@ -68,9 +71,6 @@ class TransactionEventServiceImplTest {
 
   @BeforeEach
   void setup() {
-    ReflectionTestUtils.setField(transactionEventService, "creditMainServiceUrl",
-        "http://localhost:8080");
-
     baseEvent = TransactionPostedEvent.builder().transactionId(100L).issuerAccountId(10L)
         .merchantAccountId(20L).amount(new BigDecimal("200")).currency("USD")
         .type(TransactionType.INBOUND).createdAt(Instant.parse("2025-06-01T00:00:00Z")).build();
@@ -82,6 +82,14 @@ class TransactionEventServiceImplTest {
         .status(PromotionStatus.ACTIVE).build();
   }
 
+  @Test
+  void shouldNotDependOnAnythingThatCallsCreditMain() {
+    // A failed batch is rolled back and replayed record by record. Both paths must only queue
+    // cashbacks for the dispatcher: a call made inside the batch would be repeated by the replay
+    assertThat(TransactionEventServiceImpl.class.getDeclaredFields()).extracting(Field::getType)
+        .doesNotContain(RestTemplate.class, CashbackDispatchService.class);
+  }
+
   @Test
   void shouldSkipProcessingWhenEventAlreadyProcessed() {
     // given
@@ -101,12 +109,11 @@ class TransactionEventServiceImplTest {
       verify(processedEventService, times(1)).isEventProcessed(eventId);
       verify(promoEvaluatorService, never()).evaluate(any(), any());
       verify(cashbackCalculatorService, never()).calculate(any(), any());
-      verify(restTemplate, never()).postForEntity(anyString(), any(), any());
     }
   }
 
   @Test
-  void shouldApplyPromotionSuccessfully() {
+  void shouldQueueCashbackForMatchingPromotion() {
     // given
     String eventId = "transaction.posted-100-12345678";
     String idempotencyKey = "PROMO1:100";
@@ -118,45 +125,39 @@ class TransactionEventServiceImplTest {
           .thenReturn(eventId);
 
       when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
-      when(promotionRepository.findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(any(),
-          any())).thenReturn(List.of(testPromotion));
+      when(promotionCatalog.findValidBetween(any(), any())).thenReturn(List.of(testPromotion));
       when(promoEvaluatorService.evaluate(eq(baseEvent), anyList())).thenReturn(
           List.of(testPromotion));
       when(cashbackCalculatorService.calculate(eq(baseEvent), eq(testPromotion))).thenReturn(
           cashbackAmount);
-      when(promotionApplicationRepository.existsByIdempotencyKey(idempotencyKey)).thenReturn(false);
-      when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
-          eq(String.class))).thenReturn(ResponseEntity.ok("Success"));
+      when(promotionApplicationRepository.insertIfAbsent(any(PromotionApplication.class)))
+          .thenReturn(true);
 
       // when
       transactionEventService.processTransactionPosted(baseEvent);
 
       // then
       verify(processedEventService, times(1)).isEventProcessed(eventId);
-      verify(promotionRepository,
-          times(1)).findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(
-          baseEvent.getCreatedAt(), baseEvent.getCreatedAt());
+      verify(promotionCatalog, times(1)).findValidBetween(baseEvent.getCreatedAt(),
+          baseEvent.getCreatedAt());
       verify(promoEvaluatorService, times(1)).evaluate(baseEvent, List.of(testPromotion));
       verify(cashbackCalculatorService, times(1)).calculate(baseEvent, testPromotion);
-      verify(promotionApplicationRepository, times(1)).existsByIdempotencyKey(idempotencyKey);
-
-      ArgumentCaptor<String> urlCaptor = ArgumentCaptor.forClass(String.class);
-      ArgumentCaptor<HttpEntity<?>> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
-      verify(restTemplate, times(1)).postForEntity(urlCaptor.capture(), entityCaptor.capture(),
-          eq(String.class));
 
       ArgumentCaptor<PromotionApplication> applicationCaptor = ArgumentCaptor.forClass(
           PromotionApplication.class);
-      verify(promotionApplicationRepository, times(1)).save(applicationCaptor.capture());
+      verify(promotionApplicationRepository, times(1)).insertIfAbsent(
+          applicationCaptor.capture());
 
       PromotionApplication savedApplication = applicationCaptor.getValue();
+      assertThat(savedApplication.getApplicationId().version()).isEqualTo(7);
       assertThat(savedApplication.getPromoId()).isEqualTo("PROMO1");
       assertThat(savedApplication.getTransactionId()).isEqualTo(100L);
       assertThat(savedApplication.getCashbackAmount()).isEqualByComparingTo(cashbackAmount);
-      assertThat(savedApplication.getStatus()).isEqualTo(PromotionApplicationStatus.APPLIED);
+      assertThat(savedApplication.getCurrency()).isEqualTo("USD");
+      assertThat(savedApplication.getStatus()).isEqualTo(PromotionApplicationStatus.PENDING);
       assertThat(savedApplication.getIdempotencyKey()).isEqualTo(idempotencyKey);
 
-      verify(processedEventService, times(1)).markEventAsProcessed(eventId, null, "APPLIED");
+      verify(processedEventService, times(1)).markEventAsProcessed(eventId, null, "QUEUED");
     }
   }
 
@@ -171,8 +172,7 @@ class TransactionEventServiceImplTest {
           .thenReturn(eventId);
 
       when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
-      when(promotionRepository.findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(any(),
-          any())).thenReturn(List.of(testPromotion));
+      when(promotionCatalog.findValidBetween(any(), any())).thenReturn(List.of(testPromotion));
       when(promoEvaluatorService.evaluate(eq(baseEvent), anyList())).thenReturn(
           List.of()); // No matches after evaluation
 
@@ -183,7 +183,6 @@ class TransactionEventServiceImplTest {
       verify(processedEventService, times(1)).markEventAsProcessed(eventId, null, "NO_PROMO");
       verify(promoEvaluatorService, times(1)).evaluate(baseEvent, List.of(testPromotion));
       verify(cashbackCalculatorService, never()).calculate(any(), any());
-      verify(restTemplate, never()).postForEntity(anyString(), any(), any());
     }
   }
 
@@ -191,7 +190,6 @@ class TransactionEventServiceImplTest {
   void shouldSkipWhenDuplicateApplication() {
     // given
     String eventId = "transaction.posted-100-12345678";
-    String idempotencyKey = "PROMO1:100";
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
         EventIdGenerator.class)) {
@@ -199,86 +197,129 @@ class TransactionEventServiceImplTest {
           .thenReturn(eventId);
 
       when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
-      when(promotionRepository.findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(any(),
-          any())).thenReturn(List.of(testPromotion));
+      when(promotionCatalog.findValidBetween(any(), any())).thenReturn(List.of(testPromotion));
       when(promoEvaluatorService.evaluate(eq(baseEvent), anyList())).thenReturn(
           List.of(testPromotion));
-      when(promotionApplicationRepository.existsByIdempotencyKey(idempotencyKey)).thenReturn(true);
+      when(cashbackCalculatorService.calculate(eq(baseEvent), eq(testPromotion))).thenReturn(
+          new BigDecimal("20.00"));
+      // The idempotency key is taken, so the insert is a no-op
+      when(promotionApplicationRepository.insertIfAbsent(any(PromotionApplication.class)))
+          .thenReturn(false);
 
       // when
       transactionEventService.processTransactionPosted(baseEvent);
 
       // then
       verify(processedEventService, times(1)).markEventAsProcessed(eventId, null, "DUPLICATE");
-      verify(cashbackCalculatorService, never()).calculate(any(), any());
-      verify(restTemplate, never()).postForEntity(anyString(), any(), any());
+      verify(processedEventService, never()).markEventAsProcessed(eventId, null, "QUEUED");
     }
   }
 
   @Test
-  void shouldMarkAsFailedWhenCashbackCallFails() {
+  void shouldIgnoreCashbackTransactionType() {
     // given
-    String eventId = "transaction.posted-100-12345678";
-    String idempotencyKey = "PROMO1:100";
-    BigDecimal cashbackAmount = new BigDecimal("20.00");
+    TransactionPostedEvent cashbackEvent = TransactionPostedEvent.builder().transactionId(200L)
+        .type(TransactionType.CASHBACK).issuerAccountId(10L).merchantAccountId(20L)
+        .amount(new BigDecimal("5.00")).currency("USD").createdAt(Instant.now()).build();
+
+    String eventId = "transaction.posted-200-12345678";
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
         EventIdGenerator.class)) {
-      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.posted", 100L))
+      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.posted", 200L))
           .thenReturn(eventId);
 
       when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
-      when(promotionRepository.findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(any(),
-          any())).thenReturn(List.of(testPromotion));
-      when(promoEvaluatorService.evaluate(eq(baseEvent), anyList())).thenReturn(
-          List.of(testPromotion));
-      when(cashbackCalculatorService.calculate(eq(baseEvent), eq(testPromotion))).thenReturn(
-          cashbackAmount);
-      when(promotionApplicationRepository.existsByIdempotencyKey(idempotencyKey)).thenReturn(false);
-      when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
-          eq(String.class))).thenThrow(new RuntimeException("Service unavailable"));
 
       // when
-      transactionEventService.processTransactionPosted(baseEvent);
+      transactionEventService.processTransactionPosted(cashbackEvent);
 
       // then
-      ArgumentCaptor<PromotionApplication> applicationCaptor = ArgumentCaptor.forClass(
-          PromotionApplication.class);
-      verify(promotionApplicationRepository, times(1)).save(applicationCaptor.capture());
-
-      PromotionApplication savedApplication = applicationCaptor.getValue();
-      assertThat(savedApplication.getStatus()).isEqualTo(PromotionApplicationStatus.FAILED);
-      assertThat(savedApplication.getReason()).contains("RuntimeException:Service unavailable");
-
-      verify(processedEventService, times(1)).markEventAsProcessed(eventId, null, "FAILED");
+      verify(processedEventService, times(1)).markEventAsProcessed(eventId, null,
+          "CASHBACK_CONFIRMED");
+      verify(promotionCatalog, never()).findValidBetween(any(), any());
+      verify(promoEvaluatorService, never()).evaluate(any(), any());
     }
   }
 
   @Test
-  void shouldIgnoreCashbackTransactionType() {
+  @SuppressWarnings("unchecked")
+  void shouldProcessBatchWithBulkLookupsAndInserts() {
     // given
-    TransactionPostedEvent cashbackEvent = TransactionPostedEvent.builder().transactionId(200L)
-        .type(TransactionType.CASHBACK).issuerAccountId(10L).merchantAccountId(20L)
-        .amount(new BigDecimal("5.00")).currency("USD").createdAt(Instant.now()).build();
-
-    String eventId = "transaction.posted-200-12345678";
+    TransactionPostedEvent secondEvent = event(101L, TransactionType.INBOUND);
+    TransactionPostedEvent processedEvent = event(102L, TransactionType.INBOUND);
+    TransactionPostedEvent cashbackEvent = event(103L, TransactionType.CASHBACK);
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
         EventIdGenerator.class)) {
-      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.posted", 200L))
-          .thenReturn(eventId);
+      mockedGenerator.when(() -> EventIdGenerator.generateEventId(eq("transaction.posted"),
+          any(Long.class))).thenAnswer(inv -> "transaction.posted-" + inv.getArgument(1));
+
+      when(processedEventService.findProcessedEventIds(any())).thenReturn(
+          Set.of("transaction.posted-102"));
+      when(promotionCatalog.findValidBetween(any(), any())).thenReturn(List.of(testPromotion));
+      when(promoEvaluatorService.evaluate(any(), anyList())).thenReturn(List.of(testPromotion));
+      when(cashbackCalculatorService.calculate(any(), eq(testPromotion))).thenReturn(
+          new BigDecimal("20.00"));
+      // PROMO1:101 is already taken
+      when(promotionApplicationRepository.insertIfAbsent(anyList())).thenReturn(
+          new boolean[] {true, false});
 
-      when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
+      // when
+      transactionEventService.processTransactionPostedBatch(
+          List.of(baseEvent, secondEvent, processedEvent, cashbackEvent, baseEvent));
+
+      // then
+      verify(processedEventService, times(1)).findProcessedEventIds(any());
+      verify(promotionCatalog, times(1)).findValidBetween(any(), any());
+      verify(processedEventService, never()).isEventProcessed(anyString());
+      verify(promotionApplicationRepository, never()).insertIfAbsent(
+          any(PromotionApplication.class));
+
+      ArgumentCaptor<List<PromotionApplication>> applicationsCaptor = ArgumentCaptor.forClass(
+          List.class);
+      verify(promotionApplicationRepository, times(1)).insertIfAbsent(
+          applicationsCaptor.capture());
+      assertThat(applicationsCaptor.getValue()).hasSize(2).first().satisfies(app -> {
+        assertThat(app.getApplicationId().version()).isEqualTo(7);
+        assertThat(app.getTransactionId()).isEqualTo(100L);
+        assertThat(app.getStatus()).isEqualTo(PromotionApplicationStatus.PENDING);
+        assertThat(app.getIdempotencyKey()).isEqualTo("PROMO1:100");
+      });
+
+      ArgumentCaptor<List<ProcessedEvent>> markersCaptor = ArgumentCaptor.forClass(List.class);
+      verify(processedEventService, times(1)).markEventsAsProcessed(markersCaptor.capture());
+      assertThat(markersCaptor.getValue()).extracting(ProcessedEvent::getEventId,
+          ProcessedEvent::getStatus).containsExactly(
+          org.assertj.core.groups.Tuple.tuple("transaction.posted-103", "CASHBACK_CONFIRMED"),
+          org.assertj.core.groups.Tuple.tuple("transaction.posted-100", "QUEUED"),
+          org.assertj.core.groups.Tuple.tuple("transaction.posted-101", "DUPLICATE"));
+    }
+  }
+
+  @Test
+  void shouldSkipBatchWhenAllEventsAlreadyProcessed() {
+    // given
+    try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
+        EventIdGenerator.class)) {
+      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.posted", 100L))
+          .thenReturn("transaction.posted-100");
+      when(processedEventService.findProcessedEventIds(any())).thenReturn(
+          Set.of("transaction.posted-100"));
 
       // when
-      transactionEventService.processTransactionPosted(cashbackEvent);
+      transactionEventService.processTransactionPostedBatch(List.of(baseEvent));
 
       // then
-      verify(processedEventService, times(1)).markEventAsProcessed(eventId, null,
-          "CASHBACK_CONFIRMED");
-      verify(promotionRepository,
-          never()).findByStartDateLessThanEqualAndExpiryDateGreaterThanEqual(any(), any());
-      verify(promoEvaluatorService, never()).evaluate(any(), any());
+      verify(promotionCatalog, never()).findValidBetween(any(), any());
+      verify(promotionApplicationRepository, never()).insertIfAbsent(anyList());
+      verify(processedEventService, times(1)).markEventsAsProcessed(List.of());
     }
   }
-}
\ No newline at end of file
+
+  private TransactionPostedEvent event(Long transactionId, TransactionType type) {
+    return TransactionPostedEvent.builder().transactionId(transactionId).issuerAccountId(10L)
+        .merchantAccountId(20L).amount(new BigDecimal("200")).currency("USD").type(type)
+        .createdAt(baseEvent.getCreatedAt()).build();
+  }
+}
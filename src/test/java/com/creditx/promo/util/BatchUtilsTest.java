@@ -0,0 +1,26 @@
+package com.creditx.promo.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BatchUtilsTest {
+
+    @Test
+    void shouldPartitionPreservingOrder() {
+        List<List<Integer>> chunks = BatchUtils.partition(List.of(1, 2, 3, 4, 5), 2);
+        assertThat(chunks).containsExactly(List.of(1, 2), List.of(3, 4), List.of(5));
+    }
+
+    @Test
+    void shouldReturnNoChunksForEmptyInput() {
+        assertThat(BatchUtils.partition(List.of(), 10)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> BatchUtils.partition(List.of(1), 0));
+    }
+}
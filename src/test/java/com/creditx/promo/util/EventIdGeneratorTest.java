@@ -8,17 +8,13 @@ import org.junit.jupiter.api.Test;
 class EventIdGeneratorTest {
 
     @Test
-    void shouldGenerateUniqueEventId() {
+    void shouldGenerateDeterministicEventId() {
         String eventType = "transaction.posted";
         Long transactionId = 123L;
         String eventId1 = EventIdGenerator.generateEventId(eventType, transactionId);
         String eventId2 = EventIdGenerator.generateEventId(eventType, transactionId);
-        assertThat(eventId1).isNotNull();
-        assertThat(eventId2).isNotNull();
-        assertThat(eventId1).isNotEqualTo(eventId2);
-        assertThat(eventId1).startsWith("transaction.posted-123-");
-        assertThat(eventId2).startsWith("transaction.posted-123-");
-        assertThat(eventId1).hasSize(eventType.length() + 1 + transactionId.toString().length() + 1 + 8);
+        assertThat(eventId1).isEqualTo("transaction.posted-123");
+        assertThat(eventId2).isEqualTo(eventId1);
     }
 
     @Test
@@ -26,8 +22,8 @@ class EventIdGeneratorTest {
         Long transactionId = 456L;
         String eventId1 = EventIdGenerator.generateEventId("transaction.posted", transactionId);
         String eventId2 = EventIdGenerator.generateEventId("transaction.failed", transactionId);
-        assertThat(eventId1).startsWith("transaction.posted-456-");
-        assertThat(eventId2).startsWith("transaction.failed-456-");
+        assertThat(eventId1).isEqualTo("transaction.posted-456");
+        assertThat(eventId2).isEqualTo("transaction.failed-456");
         assertThat(eventId1).isNotEqualTo(eventId2);
     }
 
@@ -36,8 +32,8 @@ class EventIdGeneratorTest {
         String eventType = "hold.created";
         String eventId1 = EventIdGenerator.generateEventId(eventType, 111L);
         String eventId2 = EventIdGenerator.generateEventId(eventType, 222L);
-        assertThat(eventId1).startsWith("hold.created-111-");
-        assertThat(eventId2).startsWith("hold.created-222-");
+        assertThat(eventId1).isEqualTo("hold.created-111");
+        assertThat(eventId2).isEqualTo("hold.created-222");
         assertThat(eventId1).isNotEqualTo(eventId2);
     }
 
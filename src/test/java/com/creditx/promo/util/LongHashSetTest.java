@@ -0,0 +1,43 @@
+package com.creditx.promo.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LongHashSetTest {
+
+    @Test
+    void shouldContainEveryValueIncludingZeroAndNegatives() {
+        LongHashSet set = LongHashSet.of(0L, -7L, 200L, Long.MAX_VALUE, 200L);
+
+        assertThat(set.size()).isEqualTo(4);
+        assertThat(set.contains(0L)).isTrue();
+        assertThat(set.contains(-7L)).isTrue();
+        assertThat(set.contains(200L)).isTrue();
+        assertThat(set.contains(Long.MAX_VALUE)).isTrue();
+        assertThat(set.contains(201L)).isFalse();
+        assertThat(set.toArray()).containsExactlyInAnyOrder(0L, -7L, 200L, Long.MAX_VALUE);
+    }
+
+    @Test
+    void shouldHandleManyCollidingValues() {
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) i << 32;
+        }
+        LongHashSet set = LongHashSet.of(values);
+
+        for (long value : values) {
+            assertThat(set.contains(value)).isTrue();
+        }
+        assertThat(set.contains(1L)).isFalse();
+    }
+
+    @Test
+    void shouldBeEmptyWithoutValues() {
+        LongHashSet set = LongHashSet.of();
+
+        assertThat(set.isEmpty()).isTrue();
+        assertThat(set.contains(0L)).isFalse();
+    }
+}
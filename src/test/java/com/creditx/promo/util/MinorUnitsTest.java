@@ -0,0 +1,58 @@
+package com.creditx.promo.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MinorUnitsTest {
+
+    @Test
+    void shouldDivideLikeBigDecimalForEveryRoundingMode() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long p = random.nextInt(2_000_001) - 1_000_000;
+            long q = random.nextInt(1000) + 1;
+            if (random.nextBoolean()) {
+                q = -q;
+            }
+            for (RoundingMode mode : RoundingMode.values()) {
+                if (mode == RoundingMode.UNNECESSARY) {
+                    continue;
+                }
+                long expected = BigDecimal.valueOf(p)
+                    .divide(BigDecimal.valueOf(q), 0, mode).longValueExact();
+                assertThat(MinorUnits.divide(p, q, mode)).as("%d / %d %s", p, q, mode)
+                    .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectUnnecessaryRoundingOnlyWhenInexact() {
+        assertThat(MinorUnits.divide(10, 5, RoundingMode.UNNECESSARY)).isEqualTo(2);
+        assertThrows(ArithmeticException.class,
+            () -> MinorUnits.divide(10, 3, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void shouldUseTheCurrencyMinorUnitDigits() {
+        assertThat(MinorUnits.fractionDigits("USD")).isEqualTo(2);
+        assertThat(MinorUnits.fractionDigits("JPY")).isZero();
+        assertThat(MinorUnits.fractionDigits("KWD")).isEqualTo(3);
+        assertThat(MinorUnits.fractionDigits("???")).isEqualTo(MinorUnits.DEFAULT_FRACTION_DIGITS);
+        assertThat(MinorUnits.fractionDigits(null)).isEqualTo(MinorUnits.DEFAULT_FRACTION_DIGITS);
+    }
+
+    @Test
+    void shouldConvertOnlyExactAmountsToMinorUnits() {
+        assertThat(MinorUnits.toMinorUnits(new BigDecimal("12.3"), 2)).isEqualTo(1230);
+        assertThrows(ArithmeticException.class,
+            () -> MinorUnits.toMinorUnits(new BigDecimal("12.345"), 2));
+        assertThat(MinorUnits.rescaleDown(12_345, 3, 2)).isEqualTo(1234);
+        assertThat(MinorUnits.rescaleDown(5, 0, 2)).isEqualTo(500);
+    }
+}